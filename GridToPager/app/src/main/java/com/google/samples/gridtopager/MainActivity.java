@@ -21,12 +21,21 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.FragmentManager;
 import androidx.appcompat.app.AppCompatActivity;
 import com.google.samples.gridtopager.fragment.GridFragment;
+import com.google.samples.gridtopager.transition.PostponedEnterTransition;
 
 /**
  * Grid to pager app's main activity.
  */
 public class MainActivity extends AppCompatActivity {
 
+  private static final String KEY_CURRENT_POSITION = "com.google.samples.gridtopager.key.currentPosition";
+
+  /**
+   * The longest time the grid or the pager waits for its selected image before starting its
+   * postponed enter transition anyway.
+   */
+  private static final long POSTPONE_TIMEOUT_MILLIS = 1000;
+
   /**
    * Holds the current image position to be shared between the grid and the pager fragments. This
    * position updated when a grid item is clicked, or when paging the pager.
@@ -34,8 +43,9 @@ public class MainActivity extends AppCompatActivity {
    * In this demo app, the position always points to an image index at the {@link
    * com.google.samples.gridtopager.adapter.ImageData} class.
    */
-  public static int currentPosition;
-  private static final String KEY_CURRENT_POSITION = "com.google.samples.gridtopager.key.currentPosition";
+  private int currentPosition;
+  private final PostponedEnterTransition postponedEnterTransition =
+      new PostponedEnterTransition(POSTPONE_TIMEOUT_MILLIS);
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -53,6 +63,22 @@ public class MainActivity extends AppCompatActivity {
         .commit();
   }
 
+  public int getCurrentPosition() {
+    return currentPosition;
+  }
+
+  public void setCurrentPosition(int currentPosition) {
+    this.currentPosition = currentPosition;
+  }
+
+  /**
+   * Returns the coordinator for the grid's and the pager's postponed enter transitions. Only one
+   * of them is postponed at a time.
+   */
+  public PostponedEnterTransition getPostponedEnterTransition() {
+    return postponedEnterTransition;
+  }
+
   @Override
   protected void onSaveInstanceState(@NonNull Bundle outState) {
     super.onSaveInstanceState(outState);
@@ -32,16 +32,17 @@ import android.widget.ImageView;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.RequestManager;
 import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.target.Target;
 import com.google.samples.gridtopager.MainActivity;
 import com.google.samples.gridtopager.R;
 import com.google.samples.gridtopager.adapter.GridAdapter.ImageViewHolder;
+import com.google.samples.gridtopager.fragment.GridFragment;
+import com.google.samples.gridtopager.fragment.ImageFragment;
 import com.google.samples.gridtopager.fragment.ImagePagerFragment;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-
 /**
  * A fragment for displaying a grid of images.
  */
@@ -93,23 +94,20 @@ public class GridAdapter extends RecyclerView.Adapter<ImageViewHolder> {
   private static class ViewHolderListenerImpl implements ViewHolderListener {
 
     private Fragment fragment;
-    private AtomicBoolean enterTransitionStarted;
 
     ViewHolderListenerImpl(Fragment fragment) {
       this.fragment = fragment;
-      this.enterTransitionStarted = new AtomicBoolean();
     }
 
     @Override
     public void onLoadCompleted(ImageView view, int position) {
-      // Call startPostponedEnterTransition only when the 'selected' image loading is completed.
-      if (MainActivity.currentPosition != position) {
-        return;
-      }
-      if (enterTransitionStarted.getAndSet(true)) {
+      final MainActivity activity = (MainActivity) fragment.getActivity();
+      // Report ready only when the 'selected' image loading is completed. Later reports are
+      // ignored once the transition has started.
+      if (activity == null || activity.getCurrentPosition() != position) {
         return;
       }
-      fragment.startPostponedEnterTransition();
+      activity.getPostponedEnterTransition().onReady(GridFragment.SELECTED_IMAGE);
     }
 
     /**
@@ -123,7 +121,15 @@ public class GridAdapter extends RecyclerView.Adapter<ImageViewHolder> {
     @Override
     public void onItemClicked(View view, int position) {
       // Update the position.
-      MainActivity.currentPosition = position;
+      ((MainActivity) fragment.requireActivity()).setCurrentPosition(position);
+
+      // Start decoding the pager size image while the transaction is committed. The pager's
+      // request for the same image joins this load or finds it in the memory cache. The
+      // application wide request manager keeps the load going when the grid is stopped.
+      ImageFragment.createImageRequest(
+          Glide.with(view.getContext().getApplicationContext()), view.getContext(),
+          IMAGE_DRAWABLES[position])
+          .preload();
 
       // Exclude the clicked card from the exit transition (e.g. the card will disappear immediately
       // instead of fading out with the rest to prevent an overlapping animation of fade and move).
@@ -177,6 +183,7 @@ public class GridAdapter extends RecyclerView.Adapter<ImageViewHolder> {
       // Load the image with Glide to prevent OOM error when the image drawables are very large.
       requestManager
           .load(IMAGE_DRAWABLES[adapterPosition])
+          .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
           .listener(new RequestListener<Drawable>() {
             @Override
             public boolean onLoadFailed(@Nullable GlideException e, Object model,
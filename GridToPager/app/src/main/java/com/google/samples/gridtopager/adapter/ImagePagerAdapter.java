@@ -38,6 +38,6 @@ public class ImagePagerAdapter extends FragmentStatePagerAdapter {
   @NonNull
   @Override
   public Fragment getItem(int position) {
-    return ImageFragment.newInstance(IMAGE_DRAWABLES[position]);
+    return ImageFragment.newInstance(position, IMAGE_DRAWABLES[position]);
   }
 }
@@ -31,6 +31,7 @@ import android.view.ViewGroup;
 import com.google.samples.gridtopager.adapter.GridAdapter;
 import com.google.samples.gridtopager.MainActivity;
 import com.google.samples.gridtopager.R;
+import com.google.samples.gridtopager.transition.TransitionMetrics;
 import java.util.List;
 import java.util.Map;
 
@@ -39,7 +40,17 @@ import java.util.Map;
  */
 public class GridFragment extends Fragment {
 
+  /**
+   * The participant name the grid's selected image reports ready with.
+   */
+  public static final String SELECTED_IMAGE = "grid_image";
+
   private RecyclerView recyclerView;
+  /**
+   * Measures the exit transition, which also runs as the reenter transition after the grid
+   * postponed it while loading the selected image.
+   */
+  private TransitionMetrics exitMetrics;
 
   @Nullable
   @Override
@@ -49,11 +60,24 @@ public class GridFragment extends Fragment {
     recyclerView.setAdapter(new GridAdapter(this));
 
     prepareTransitions();
-    postponeEnterTransition();
+    ((MainActivity) requireActivity()).getPostponedEnterTransition()
+        .postpone(this, SELECTED_IMAGE);
 
     return recyclerView;
   }
 
+  @Override
+  public void postponeEnterTransition() {
+    exitMetrics.onPostponeEnterTransition();
+    super.postponeEnterTransition();
+  }
+
+  @Override
+  public void startPostponedEnterTransition() {
+    exitMetrics.onStartPostponedEnterTransition();
+    super.startPostponedEnterTransition();
+  }
+
   @Override
   public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
     super.onViewCreated(view, savedInstanceState);
@@ -78,12 +102,13 @@ public class GridFragment extends Fragment {
           int oldBottom) {
         recyclerView.removeOnLayoutChangeListener(this);
         final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
-        View viewAtPosition = layoutManager.findViewByPosition(MainActivity.currentPosition);
+        final int currentPosition = ((MainActivity) requireActivity()).getCurrentPosition();
+        View viewAtPosition = layoutManager.findViewByPosition(currentPosition);
         // Scroll to position if the view for the current position is null (not currently part of
         // layout manager children), or it's not completely visible.
         if (viewAtPosition == null || layoutManager
             .isViewPartiallyVisible(viewAtPosition, false, true)) {
-          recyclerView.post(() -> layoutManager.scrollToPosition(MainActivity.currentPosition));
+          recyclerView.post(() -> layoutManager.scrollToPosition(currentPosition));
         }
       }
     });
@@ -94,8 +119,9 @@ public class GridFragment extends Fragment {
    * that affect the flow.
    */
   private void prepareTransitions() {
-    setExitTransition(TransitionInflater.from(getContext())
-        .inflateTransition(R.transition.grid_exit_transition));
+    exitMetrics = new TransitionMetrics(requireContext(), "grid_exit");
+    setExitTransition(exitMetrics.attach(TransitionInflater.from(getContext())
+        .inflateTransition(R.transition.grid_exit_transition)));
 
     // A similar mapping is set at the ImagePagerFragment with a setEnterSharedElementCallback.
     setExitSharedElementCallback(
@@ -104,7 +130,8 @@ public class GridFragment extends Fragment {
           public void onMapSharedElements(List<String> names, Map<String, View> sharedElements) {
             // Locate the ViewHolder for the clicked position.
             RecyclerView.ViewHolder selectedViewHolder = recyclerView
-                .findViewHolderForAdapterPosition(MainActivity.currentPosition);
+                .findViewHolderForAdapterPosition(
+                    ((MainActivity) requireActivity()).getCurrentPosition());
             if (selectedViewHolder == null) {
               return;
             }
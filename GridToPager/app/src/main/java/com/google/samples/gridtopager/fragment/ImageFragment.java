@@ -16,8 +16,12 @@
 
 package com.google.samples.gridtopager.fragment;
 
+import android.content.Context;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
+import android.util.Log;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -25,29 +29,54 @@ import androidx.fragment.app.Fragment;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ImageView;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
 import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.target.Target;
+import com.google.samples.gridtopager.MainActivity;
 import com.google.samples.gridtopager.R;
+import com.google.samples.gridtopager.view.TiledImageView;
 
 /**
  * A fragment for displaying an image.
  */
 public class ImageFragment extends Fragment {
 
+  private static final String TAG = "ImageFragment";
+
   private static final String KEY_IMAGE_RES = "com.google.samples.gridtopager.key.imageRes";
+  private static final String KEY_POSITION = "com.google.samples.gridtopager.key.position";
 
-  public static ImageFragment newInstance(@DrawableRes int drawableRes) {
+  public static ImageFragment newInstance(int position, @DrawableRes int drawableRes) {
     ImageFragment fragment = new ImageFragment();
     Bundle argument = new Bundle();
+    argument.putInt(KEY_POSITION, position);
     argument.putInt(KEY_IMAGE_RES, drawableRes);
     fragment.setArguments(argument);
     return fragment;
   }
 
+  /**
+   * Creates the request for an image at the size the pager displays it. The grid preloads the
+   * tapped image with the same request, so the pager finds the decoded image in Glide's memory
+   * cache. Downsampled decodes are also kept in the disk cache, so decoding an evicted image again
+   * reads the small cached copy instead of the full size resource.
+   */
+  @NonNull
+  public static RequestBuilder<Drawable> createImageRequest(@NonNull RequestManager requestManager,
+      @NonNull Context context, @DrawableRes int imageRes) {
+    final DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+    return requestManager
+        .load(imageRes)
+        .override(displayMetrics.widthPixels, displayMetrics.heightPixels)
+        .fitCenter()
+        .diskCacheStrategy(DiskCacheStrategy.RESOURCE);
+  }
+
   @Nullable
   @Override
   public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
@@ -59,33 +88,47 @@ public class ImageFragment extends Fragment {
 
     // Just like we do when binding views at the grid, we set the transition name to be the string
     // value of the image res.
-    view.findViewById(R.id.image).setTransitionName(String.valueOf(imageRes));
+    final TiledImageView imageView = view.findViewById(R.id.image);
+    imageView.setTransitionName(String.valueOf(imageRes));
+    // Zooming in draws tiles of the full resolution image over the screen sized one.
+    imageView.setTileSource(imageRes);
 
     // Load the image with Glide to prevent OOM error when the image drawables are very large.
-    Glide.with(this)
-        .load(imageRes)
+    final long requestedAt = SystemClock.elapsedRealtime();
+    createImageRequest(Glide.with(this), requireContext(), imageRes)
         .listener(new RequestListener<Drawable>() {
           @Override
           public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable>
               target, boolean isFirstResource) {
-            // The postponeEnterTransition is called on the parent ImagePagerFragment, so the
-            // startPostponedEnterTransition() should also be called on it to get the transition
-            // going in case of a failure.
-            getParentFragment().startPostponedEnterTransition();
+            // The enter transition of the parent ImagePagerFragment is postponed until the
+            // selected image reports ready, so report it in case of a failure too.
+            onImageLoaded();
             return false;
           }
 
           @Override
           public boolean onResourceReady(Drawable resource, Object model, Target<Drawable>
               target, DataSource dataSource, boolean isFirstResource) {
-            // The postponeEnterTransition is called on the parent ImagePagerFragment, so the
-            // startPostponedEnterTransition() should also be called on it to get the transition
-            // going when the image is ready.
-            getParentFragment().startPostponedEnterTransition();
+            // Anything but the memory cache means the image was decoded again.
+            Log.d(TAG, "Image " + imageRes + " ready from " + dataSource + " after "
+                + (SystemClock.elapsedRealtime() - requestedAt) + "ms");
+            // The enter transition of the parent ImagePagerFragment is postponed until the
+            // selected image reports ready.
+            onImageLoaded();
             return false;
           }
         })
-        .into((ImageView) view.findViewById(R.id.image));
+        .into(imageView);
     return view;
   }
+
+  private void onImageLoaded() {
+    final MainActivity activity = (MainActivity) getActivity();
+    if (activity == null
+        || activity.getCurrentPosition() != getArguments().getInt(KEY_POSITION)) {
+      // Only the selected image takes part in the transition.
+      return;
+    }
+    activity.getPostponedEnterTransition().onReady(ImagePagerFragment.SELECTED_IMAGE);
+  }
 }
@@ -29,6 +29,7 @@ import android.view.ViewGroup;
 import com.google.samples.gridtopager.MainActivity;
 import com.google.samples.gridtopager.adapter.ImagePagerAdapter;
 import com.google.samples.gridtopager.R;
+import com.google.samples.gridtopager.transition.TransitionMetrics;
 import java.util.List;
 import java.util.Map;
 
@@ -37,7 +38,13 @@ import java.util.Map;
  */
 public class ImagePagerFragment extends Fragment {
 
+  /**
+   * The participant name the pager's selected image reports ready with.
+   */
+  public static final String SELECTED_IMAGE = "pager_image";
+
   private ViewPager viewPager;
+  private TransitionMetrics sharedElementMetrics;
 
   @Nullable
   @Override
@@ -45,13 +52,14 @@ public class ImagePagerFragment extends Fragment {
       @Nullable Bundle savedInstanceState) {
     viewPager = (ViewPager) inflater.inflate(R.layout.fragment_pager, container, false);
     viewPager.setAdapter(new ImagePagerAdapter(this));
+    final MainActivity activity = (MainActivity) requireActivity();
     // Set the current position and add a listener that will update the selection coordinator when
     // paging the images.
-    viewPager.setCurrentItem(MainActivity.currentPosition);
+    viewPager.setCurrentItem(activity.getCurrentPosition());
     viewPager.addOnPageChangeListener(new ViewPager.SimpleOnPageChangeListener() {
       @Override
       public void onPageSelected(int position) {
-        MainActivity.currentPosition = position;
+        activity.setCurrentPosition(position);
       }
     });
 
@@ -59,12 +67,24 @@ public class ImagePagerFragment extends Fragment {
 
     // Avoid a postponeEnterTransition on orientation change, and postpone only of first creation.
     if (savedInstanceState == null) {
-      postponeEnterTransition();
+      activity.getPostponedEnterTransition().postpone(this, SELECTED_IMAGE);
     }
 
     return viewPager;
   }
 
+  @Override
+  public void postponeEnterTransition() {
+    sharedElementMetrics.onPostponeEnterTransition();
+    super.postponeEnterTransition();
+  }
+
+  @Override
+  public void startPostponedEnterTransition() {
+    sharedElementMetrics.onStartPostponedEnterTransition();
+    super.startPostponedEnterTransition();
+  }
+
   /**
    * Prepares the shared element transition from and back to the grid fragment.
    */
@@ -72,7 +92,9 @@ public class ImagePagerFragment extends Fragment {
     Transition transition =
         TransitionInflater.from(getContext())
             .inflateTransition(R.transition.image_shared_element_transition);
-    setSharedElementEnterTransition(transition);
+    // Also measures the shared element return transition, which defaults to the same one.
+    sharedElementMetrics = new TransitionMetrics(requireContext(), "pager_shared_element");
+    setSharedElementEnterTransition(sharedElementMetrics.attach(transition));
 
     // A similar mapping is set at the GridFragment with a setExitSharedElementCallback.
     setEnterSharedElementCallback(
@@ -84,7 +106,8 @@ public class ImagePagerFragment extends Fragment {
             // At this stage, the method will simply return the fragment at the position and will
             // not create a new one.
             Fragment currentFragment = (Fragment) viewPager.getAdapter()
-                .instantiateItem(viewPager, MainActivity.currentPosition);
+                .instantiateItem(viewPager,
+                    ((MainActivity) requireActivity()).getCurrentPosition());
             View view = currentFragment.getView();
             if (view == null) {
               return;
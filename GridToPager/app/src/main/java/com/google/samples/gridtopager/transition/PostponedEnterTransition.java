@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.gridtopager.transition;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coordinates a postponed fragment enter transition.
+ *
+ * The transition is started once every required participant reported that it is ready, or when
+ * the timeout passes, whichever comes first. This keeps the UI responsive when an image load
+ * stalls or the view that should report never gets bound. The time each participant took to
+ * become ready is kept per participant name, so slow decodes show up in the log.
+ */
+public class PostponedEnterTransition {
+
+  private static final String TAG = "PostponedEnterTransition";
+
+  private final long timeoutMillis;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Set<String> pendingParticipants = new HashSet<>();
+  private final Map<String, LatencyStats> stats = new HashMap<>();
+  private final Runnable timeout = this::onTimeout;
+  @Nullable
+  private Fragment fragment;
+  private long postponedAtMillis;
+
+  /**
+   * @param timeoutMillis The maximum time a transition is postponed for.
+   */
+  public PostponedEnterTransition(long timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Postpones the enter transition of a fragment until all the participants are ready.
+   *
+   * A transition that is still postponed is started first, so it can never be left waiting.
+   *
+   * @param fragment The fragment whose enter transition to postpone.
+   * @param participants The names of the participants that have to report ready.
+   */
+  public void postpone(@NonNull Fragment fragment, @NonNull String... participants) {
+    start();
+    this.fragment = fragment;
+    pendingParticipants.addAll(Arrays.asList(participants));
+    postponedAtMillis = SystemClock.elapsedRealtime();
+    fragment.postponeEnterTransition();
+    handler.postDelayed(timeout, timeoutMillis);
+  }
+
+  /**
+   * Reports that a participant is ready. Starts the transition if it was the last one.
+   *
+   * @param participant The name the participant was postponed with.
+   */
+  public void onReady(@NonNull String participant) {
+    if (!pendingParticipants.remove(participant)) {
+      return;
+    }
+    final long latencyMillis = SystemClock.elapsedRealtime() - postponedAtMillis;
+    getStats(participant).record(latencyMillis);
+    Log.d(TAG, participant + " ready after " + latencyMillis + "ms, " + participant + ": "
+        + getStats(participant));
+    if (pendingParticipants.isEmpty()) {
+      start();
+    }
+  }
+
+  /**
+   * @param participant The name of a participant.
+   * @return The latency statistics of the participant.
+   */
+  @NonNull
+  public LatencyStats getStats(@NonNull String participant) {
+    LatencyStats participantStats = stats.get(participant);
+    if (participantStats == null) {
+      participantStats = new LatencyStats();
+      stats.put(participant, participantStats);
+    }
+    return participantStats;
+  }
+
+  private void onTimeout() {
+    for (String participant : pendingParticipants) {
+      getStats(participant).recordTimeout();
+      Log.w(TAG, "Starting transition without " + participant + " after " + timeoutMillis
+          + "ms, " + participant + ": " + getStats(participant));
+    }
+    start();
+  }
+
+  private void start() {
+    handler.removeCallbacks(timeout);
+    pendingParticipants.clear();
+    if (fragment != null) {
+      final Fragment postponedFragment = fragment;
+      fragment = null;
+      postponedFragment.startPostponedEnterTransition();
+    }
+  }
+
+  /**
+   * The time participants took to become ready.
+   */
+  public static class LatencyStats {
+
+    private int readyCount;
+    private int timeoutCount;
+    private long totalMillis;
+    private long maxMillis;
+
+    void record(long latencyMillis) {
+      readyCount++;
+      totalMillis += latencyMillis;
+      maxMillis = Math.max(maxMillis, latencyMillis);
+    }
+
+    void recordTimeout() {
+      timeoutCount++;
+    }
+
+    /**
+     * @return The number of times the participant was ready before the timeout.
+     */
+    public int getReadyCount() {
+      return readyCount;
+    }
+
+    /**
+     * @return The number of times the transition was started without the participant.
+     */
+    public int getTimeoutCount() {
+      return timeoutCount;
+    }
+
+    /**
+     * @return The average time the participant took to become ready.
+     */
+    public long getAverageMillis() {
+      return readyCount == 0 ? 0 : totalMillis / readyCount;
+    }
+
+    /**
+     * @return The longest time the participant took to become ready.
+     */
+    public long getMaxMillis() {
+      return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.US, "ready=%d timeouts=%d avgMs=%d maxMs=%d",
+          readyCount, timeoutCount, getAverageMillis(), maxMillis);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.gridtopager.transition;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The measurements of a single run of a transition, as recorded by {@link TransitionMetrics}.
+ * <p>
+ * A report is logged as a single line of space separated <code>key=value</code> pairs that
+ * {@link #parse(String)} reads back, for example:
+ * <pre>
+ * transition name=detail_enter durationMs=412 frames=25 dropped=1 p50Ms=16.67 p90Ms=16.72
+ * maxMs=33.31 postponedMs=87 createAnimatorUs=640
+ * </pre>
+ */
+public final class TransitionReport {
+
+    static final String PREFIX = "transition";
+
+    /**
+     * The value of {@link #postponedMillis} if the transition was not postponed.
+     */
+    public static final long NOT_POSTPONED = -1;
+
+    public final String name;
+    public final long durationMillis;
+    public final int frameCount;
+    public final int droppedFrames;
+    public final float p50FrameMillis;
+    public final float p90FrameMillis;
+    public final float maxFrameMillis;
+    public final long postponedMillis;
+    public final long createAnimatorMicros;
+
+    /**
+     * @param name The name of the transition. Whitespace is replaced, so it stays one token.
+     * @param durationMillis The time from the start to the end of the transition.
+     * @param frameCount The number of frame intervals measured.
+     * @param droppedFrames The number of frames missed while the transition was running.
+     * @param p50FrameMillis The median frame interval.
+     * @param p90FrameMillis The 90th percentile frame interval.
+     * @param maxFrameMillis The longest frame interval.
+     * @param postponedMillis The time the transition was postponed for, or
+     * {@link #NOT_POSTPONED}.
+     * @param createAnimatorMicros The time spent creating the transition's animators.
+     */
+    public TransitionReport(String name, long durationMillis, int frameCount, int droppedFrames,
+                            float p50FrameMillis, float p90FrameMillis, float maxFrameMillis,
+                            long postponedMillis, long createAnimatorMicros) {
+        this.name = name.replaceAll("\\s", "_");
+        this.durationMillis = durationMillis;
+        this.frameCount = frameCount;
+        this.droppedFrames = droppedFrames;
+        this.p50FrameMillis = p50FrameMillis;
+        this.p90FrameMillis = p90FrameMillis;
+        this.maxFrameMillis = maxFrameMillis;
+        this.postponedMillis = postponedMillis;
+        this.createAnimatorMicros = createAnimatorMicros;
+    }
+
+    /**
+     * Reads a report from a line written by {@link #toString()}.
+     *
+     * @param line The logged line.
+     * @return The report.
+     * @throws IllegalArgumentException If the line is not a transition report.
+     */
+    public static TransitionReport parse(String line) {
+        final String[] tokens = line.trim().split(" +");
+        if (tokens.length == 0 || !PREFIX.equals(tokens[0])) {
+            throw new IllegalArgumentException("Not a transition report: " + line);
+        }
+        final Map<String, String> values = new HashMap<>();
+        for (int i = 1; i < tokens.length; i++) {
+            final int separator = tokens[i].indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Malformed value " + tokens[i] + " in " + line);
+            }
+            values.put(tokens[i].substring(0, separator), tokens[i].substring(separator + 1));
+        }
+        try {
+            return new TransitionReport(require(values, "name", line),
+                    Long.parseLong(require(values, "durationMs", line)),
+                    Integer.parseInt(require(values, "frames", line)),
+                    Integer.parseInt(require(values, "dropped", line)),
+                    Float.parseFloat(require(values, "p50Ms", line)),
+                    Float.parseFloat(require(values, "p90Ms", line)),
+                    Float.parseFloat(require(values, "maxMs", line)),
+                    Long.parseLong(require(values, "postponedMs", line)),
+                    Long.parseLong(require(values, "createAnimatorUs", line)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed number in " + line, e);
+        }
+    }
+
+    private static String require(Map<String, String> values, String key, String line) {
+        final String value = values.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + key + " in " + line);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s name=%s durationMs=%d frames=%d dropped=%d"
+                        + " p50Ms=%.2f p90Ms=%.2f maxMs=%.2f postponedMs=%d createAnimatorUs=%d",
+                PREFIX, name, durationMillis, frameCount, droppedFrames,
+                p50FrameMillis, p90FrameMillis, maxFrameMillis,
+                postponedMillis, createAnimatorMicros);
+    }
+}
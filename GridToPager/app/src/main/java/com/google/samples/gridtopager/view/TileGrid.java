@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.gridtopager.view;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a source image into square tiles for each sample size.
+ *
+ * A tile is always {@link #TILE_SIZE} pixels wide once decoded, so it covers
+ * <code>TILE_SIZE * sampleSize</code> source pixels. The sample size for a zoom level is chosen so
+ * that a decoded pixel is never drawn smaller than half a screen pixel, which keeps the number of
+ * visible tiles bounded by the view size, whatever the resolution of the source.
+ */
+public class TileGrid {
+
+  /**
+   * The width and height of a decoded tile in pixels.
+   */
+  public static final int TILE_SIZE = 256;
+
+  /**
+   * Tiles are decoded as RGB_565, the sources being opaque JPEGs.
+   */
+  public static final int BYTES_PER_PIXEL = 2;
+
+  private final int imageWidth;
+  private final int imageHeight;
+
+  /**
+   * @param imageWidth The width of the source image in pixels.
+   * @param imageHeight The height of the source image in pixels.
+   */
+  public TileGrid(int imageWidth, int imageHeight) {
+    this.imageWidth = imageWidth;
+    this.imageHeight = imageHeight;
+  }
+
+  public int getImageWidth() {
+    return imageWidth;
+  }
+
+  public int getImageHeight() {
+    return imageHeight;
+  }
+
+  /**
+   * Returns the sample size to decode at when a source pixel is drawn <code>scale</code> screen
+   * pixels wide: the largest power of two that doesn't make decoded pixels wider than a screen
+   * pixel. Decoded pixels are then drawn between half a screen pixel and one screen pixel wide.
+   *
+   * @param scale The number of screen pixels per source pixel.
+   * @return The sample size, at least 1.
+   */
+  public static int getSampleSize(float scale) {
+    if (scale >= 1f || scale <= 0f) {
+      return 1;
+    }
+    return Integer.highestOneBit((int) (1f / scale));
+  }
+
+  /**
+   * Returns the tiles of a sample size that intersect a rectangle of the source image.
+   *
+   * @param sampleSize The sample size of the tiles.
+   * @param left The left edge of the visible area in source pixels.
+   * @param top The top edge of the visible area in source pixels.
+   * @param right The right edge of the visible area in source pixels.
+   * @param bottom The bottom edge of the visible area in source pixels.
+   * @return The visible tiles, row by row.
+   */
+  @NonNull
+  public List<Tile> getVisibleTiles(int sampleSize, float left, float top, float right,
+      float bottom) {
+    final List<Tile> tiles = new ArrayList<>();
+    if (left >= imageWidth || top >= imageHeight || right <= 0 || bottom <= 0) {
+      // The rectangle is outside of the image, even if it touches a tile that overhangs it.
+      return tiles;
+    }
+    final int tileSourceSize = TILE_SIZE * sampleSize;
+    final int firstColumn = Math.max(0, (int) Math.floor(left / tileSourceSize));
+    final int firstRow = Math.max(0, (int) Math.floor(top / tileSourceSize));
+    final int lastColumn = Math.min(getCount(imageWidth, tileSourceSize),
+        (int) Math.ceil(right / tileSourceSize)) - 1;
+    final int lastRow = Math.min(getCount(imageHeight, tileSourceSize),
+        (int) Math.ceil(bottom / tileSourceSize)) - 1;
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        tiles.add(new Tile(sampleSize, column, row));
+      }
+    }
+    return tiles;
+  }
+
+  /**
+   * @return The left edge of a tile in source pixels.
+   */
+  public int getLeft(@NonNull Tile tile) {
+    return tile.column * TILE_SIZE * tile.sampleSize;
+  }
+
+  /**
+   * @return The top edge of a tile in source pixels.
+   */
+  public int getTop(@NonNull Tile tile) {
+    return tile.row * TILE_SIZE * tile.sampleSize;
+  }
+
+  /**
+   * @return The right edge of a tile in source pixels, clipped to the image.
+   */
+  public int getRight(@NonNull Tile tile) {
+    return Math.min(imageWidth, getLeft(tile) + TILE_SIZE * tile.sampleSize);
+  }
+
+  /**
+   * @return The bottom edge of a tile in source pixels, clipped to the image.
+   */
+  public int getBottom(@NonNull Tile tile) {
+    return Math.min(imageHeight, getTop(tile) + TILE_SIZE * tile.sampleSize);
+  }
+
+  /**
+   * @return The number of bytes of a decoded tile.
+   */
+  public int getByteCount(@NonNull Tile tile) {
+    final int width = getCount(getRight(tile) - getLeft(tile), tile.sampleSize);
+    final int height = getCount(getBottom(tile) - getTop(tile), tile.sampleSize);
+    return width * height * BYTES_PER_PIXEL;
+  }
+
+  /**
+   * Returns the most bytes the tiles visible in a view can take. Decoded pixels are drawn at
+   * least half a screen pixel wide, so a tile covers at least <code>TILE_SIZE / 2</code> screen
+   * pixels and at most one partial tile is visible at each edge.
+   *
+   * @param viewWidth The width of the view in pixels.
+   * @param viewHeight The height of the view in pixels.
+   * @return The upper bound of the visible tiles' bytes.
+   */
+  public static long getMaxVisibleBytes(int viewWidth, int viewHeight) {
+    final int minTileOnScreen = TILE_SIZE / 2;
+    final long columns = getCount(viewWidth, minTileOnScreen) + 1;
+    final long rows = getCount(viewHeight, minTileOnScreen) + 1;
+    return columns * rows * TILE_SIZE * TILE_SIZE * BYTES_PER_PIXEL;
+  }
+
+  private static int getCount(int length, int size) {
+    return (length + size - 1) / size;
+  }
+
+  /**
+   * A tile of the source image at a sample size.
+   */
+  public static final class Tile {
+
+    public final int sampleSize;
+    public final int column;
+    public final int row;
+
+    public Tile(int sampleSize, int column, int row) {
+      this.sampleSize = sampleSize;
+      this.column = column;
+      this.row = row;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Tile)) {
+        return false;
+      }
+      final Tile tile = (Tile) o;
+      return sampleSize == tile.sampleSize && column == tile.column && row == tile.row;
+    }
+
+    @Override
+    public int hashCode() {
+      return (sampleSize * 31 + column) * 31 + row;
+    }
+
+    @Override
+    public String toString() {
+      return "Tile{sampleSize=" + sampleSize + ", column=" + column + ", row=" + row + "}";
+    }
+  }
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.gridtopager.view;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.widget.AppCompatImageView;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An image view that can be pinched to zoom into an image resource far larger than the screen.
+ *
+ * Until it is zoomed, the view shows its drawable like a regular fit center image view, so the
+ * screen sized bitmap loaded into it takes part in shared element transitions unchanged. Once
+ * zoomed, the visible part of the source image is drawn over the drawable in tiles, decoded with a
+ * {@link BitmapRegionDecoder} at the sample size of the current zoom on a background thread. Tiles
+ * are kept in an LRU cache bounded to a few screens worth of pixels, so the memory used doesn't
+ * depend on the size of the source image.
+ */
+public class TiledImageView extends AppCompatImageView {
+
+  private static final String TAG = "TiledImageView";
+
+  /**
+   * How many screen pixels a source pixel can be zoomed to at most.
+   */
+  private static final float MAX_PIXEL_SCALE = 2f;
+
+  /**
+   * The number of screens of tiles kept in the cache.
+   */
+  private static final int CACHED_SCREENS = 2;
+
+  private static final ExecutorService DECODE_EXECUTOR = Executors.newFixedThreadPool(2);
+
+  private final Matrix baseMatrix = new Matrix();
+  private final Matrix zoomMatrix = new Matrix();
+  private final Matrix drawMatrix = new Matrix();
+  private final Matrix sourceMatrix = new Matrix();
+  private final Matrix inverseMatrix = new Matrix();
+  private final float[] matrixValues = new float[9];
+  private final RectF visibleRect = new RectF();
+  private final Rect tileRect = new Rect();
+  private final Paint tilePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+  private final Set<TileGrid.Tile> pendingTiles = new HashSet<>();
+  private final LruCache<TileGrid.Tile, Bitmap> tiles;
+  private final ScaleGestureDetector scaleDetector;
+  private final GestureDetector gestureDetector;
+
+  @DrawableRes
+  private int tileSource;
+  @Nullable
+  private BitmapRegionDecoder decoder;
+  @Nullable
+  private TileGrid grid;
+  private boolean decoderRequested;
+  private float zoom = 1f;
+  /**
+   * The sample size last drawn. Tiles of other sample sizes still queued when the zoom changes
+   * are dropped instead of decoded.
+   */
+  private volatile int drawnSampleSize;
+
+  public TiledImageView(Context context) {
+    this(context, null);
+  }
+
+  public TiledImageView(Context context, @Nullable AttributeSet attrs) {
+    super(context, attrs);
+    tiles = new LruCache<TileGrid.Tile, Bitmap>(
+        TileGrid.TILE_SIZE * TileGrid.TILE_SIZE * TileGrid.BYTES_PER_PIXEL) {
+      @Override
+      protected int sizeOf(TileGrid.Tile key, Bitmap value) {
+        return value.getByteCount();
+      }
+    };
+    scaleDetector = new ScaleGestureDetector(context, new ScaleListener());
+    gestureDetector = new GestureDetector(context, new PanListener());
+  }
+
+  /**
+   * Sets the full resolution image to draw tiles from when zoomed. The drawable of the view is
+   * expected to be this image, fitted to the view.
+   *
+   * @param drawableRes The image resource, or 0 to disable zooming.
+   */
+  public void setTileSource(@DrawableRes int drawableRes) {
+    if (tileSource == drawableRes) {
+      return;
+    }
+    releaseDecoder();
+    tileSource = drawableRes;
+    resetZoom();
+  }
+
+  /**
+   * @return The current zoom, 1 when the image is fitted to the view.
+   */
+  public float getZoom() {
+    return zoom;
+  }
+
+  /**
+   * @return The number of bytes taken by the cached tiles.
+   */
+  public int getTileCacheBytes() {
+    return tiles.size();
+  }
+
+  @Override
+  public void setImageDrawable(@Nullable Drawable drawable) {
+    super.setImageDrawable(drawable);
+    updateMatrix();
+  }
+
+  @Override
+  protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+    super.onSizeChanged(w, h, oldw, oldh);
+    if (w > 0 && h > 0) {
+      tiles.resize((int) Math.min(Integer.MAX_VALUE,
+          CACHED_SCREENS * TileGrid.getMaxVisibleBytes(w, h)));
+    }
+    updateMatrix();
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    // Pages are detached when they leave the pager, so they come back fitted.
+    releaseDecoder();
+    resetZoom();
+  }
+
+  @Override
+  public boolean onTouchEvent(MotionEvent event) {
+    if (tileSource == 0) {
+      return super.onTouchEvent(event);
+    }
+    scaleDetector.onTouchEvent(event);
+    gestureDetector.onTouchEvent(event);
+    // Keep the pager from paging while the image is zoomed or being pinched.
+    getParent().requestDisallowInterceptTouchEvent(zoom > 1f || scaleDetector.isInProgress());
+    return true;
+  }
+
+  @Override
+  protected void onDraw(Canvas canvas) {
+    super.onDraw(canvas);
+    if (zoom <= 1f || decoder == null || grid == null) {
+      return;
+    }
+    // Map the view to the source image to find the visible tiles.
+    sourceMatrix.set(drawMatrix);
+    final Drawable drawable = getDrawable();
+    sourceMatrix.preScale(drawable.getIntrinsicWidth() / (float) grid.getImageWidth(),
+        drawable.getIntrinsicHeight() / (float) grid.getImageHeight());
+    if (!sourceMatrix.invert(inverseMatrix)) {
+      return;
+    }
+    visibleRect.set(0, 0, getWidth(), getHeight());
+    inverseMatrix.mapRect(visibleRect);
+    final int sampleSize = TileGrid.getSampleSize(sourceMatrix.mapRadius(1f));
+    drawnSampleSize = sampleSize;
+    final List<TileGrid.Tile> visibleTiles = grid.getVisibleTiles(sampleSize,
+        visibleRect.left, visibleRect.top, visibleRect.right, visibleRect.bottom);
+
+    final int saveCount = canvas.save();
+    canvas.concat(sourceMatrix);
+    for (int i = 0; i < visibleTiles.size(); i++) {
+      final TileGrid.Tile tile = visibleTiles.get(i);
+      final Bitmap bitmap = tiles.get(tile);
+      if (bitmap == null) {
+        requestTile(tile);
+        continue;
+      }
+      tileRect.set(grid.getLeft(tile), grid.getTop(tile), grid.getRight(tile),
+          grid.getBottom(tile));
+      canvas.drawBitmap(bitmap, null, tileRect, tilePaint);
+    }
+    canvas.restoreToCount(saveCount);
+  }
+
+  private void requestTile(final TileGrid.Tile tile) {
+    if (!pendingTiles.add(tile)) {
+      return;
+    }
+    final BitmapRegionDecoder decoder = this.decoder;
+    final Rect region = new Rect(grid.getLeft(tile), grid.getTop(tile), grid.getRight(tile),
+        grid.getBottom(tile));
+    DECODE_EXECUTOR.execute(() -> {
+      final BitmapFactory.Options options = new BitmapFactory.Options();
+      options.inSampleSize = tile.sampleSize;
+      options.inPreferredConfig = Bitmap.Config.RGB_565;
+      Bitmap bitmap = null;
+      if (tile.sampleSize == drawnSampleSize) {
+        try {
+          bitmap = decoder.decodeRegion(region, options);
+        } catch (IllegalStateException e) {
+          // The decoder was recycled while the tile was queued.
+        }
+      }
+      final Bitmap decoded = bitmap;
+      post(() -> {
+        if (this.decoder != decoder) {
+          return;
+        }
+        pendingTiles.remove(tile);
+        if (decoded != null) {
+          tiles.put(tile, decoded);
+          invalidate();
+        }
+      });
+    });
+  }
+
+  private void requestDecoder() {
+    if (decoderRequested || tileSource == 0) {
+      return;
+    }
+    decoderRequested = true;
+    final int source = tileSource;
+    final Context context = getContext().getApplicationContext();
+    // Opening a decoder indexes the whole image, so it is only done once zooming starts.
+    DECODE_EXECUTOR.execute(() -> {
+      BitmapRegionDecoder decoder = null;
+      try (InputStream stream = context.getResources().openRawResource(source)) {
+        decoder = BitmapRegionDecoder.newInstance(stream, false);
+      } catch (IOException e) {
+        Log.w(TAG, "Unable to open image " + source + " for tiling", e);
+      }
+      final BitmapRegionDecoder opened = decoder;
+      post(() -> {
+        if (opened == null) {
+          return;
+        }
+        if (tileSource != source || !decoderRequested) {
+          opened.recycle();
+          return;
+        }
+        this.decoder = opened;
+        grid = new TileGrid(opened.getWidth(), opened.getHeight());
+        invalidate();
+      });
+    });
+  }
+
+  private void releaseDecoder() {
+    decoderRequested = false;
+    pendingTiles.clear();
+    tiles.evictAll();
+    grid = null;
+    if (decoder != null) {
+      decoder.recycle();
+      decoder = null;
+    }
+  }
+
+  private void resetZoom() {
+    zoom = 1f;
+    zoomMatrix.reset();
+    updateMatrix();
+  }
+
+  /**
+   * Scales the image around a focus point, keeping the zoom between fitted and
+   * {@link #MAX_PIXEL_SCALE} screen pixels per source pixel.
+   */
+  private void zoomBy(float factor, float focusX, float focusY) {
+    final float maxZoom = getMaxZoom();
+    final float newZoom = Math.max(1f, Math.min(maxZoom, zoom * factor));
+    if (newZoom == zoom) {
+      return;
+    }
+    zoomMatrix.postScale(newZoom / zoom, newZoom / zoom, focusX, focusY);
+    zoom = newZoom;
+    if (zoom == 1f) {
+      zoomMatrix.reset();
+    }
+    updateMatrix();
+  }
+
+  private float getMaxZoom() {
+    final Drawable drawable = getDrawable();
+    if (drawable == null || drawable.getIntrinsicWidth() <= 0) {
+      return 1f;
+    }
+    baseMatrix.getValues(matrixValues);
+    final float fittedScale = matrixValues[Matrix.MSCALE_X] * drawable.getIntrinsicWidth();
+    // Until the decoder reports the image size, allow zooming the drawable's own pixels.
+    final int imageWidth = grid != null ? grid.getImageWidth() : drawable.getIntrinsicWidth();
+    return Math.max(1f, MAX_PIXEL_SCALE * imageWidth / fittedScale);
+  }
+
+  private void updateMatrix() {
+    final Drawable drawable = getDrawable();
+    if (drawable == null || drawable.getIntrinsicWidth() <= 0
+        || drawable.getIntrinsicHeight() <= 0 || getWidth() == 0 || getHeight() == 0) {
+      return;
+    }
+    if (zoom <= 1f) {
+      // Leave the drawable to the fit center scale type, which shared element transitions capture.
+      if (getScaleType() != ScaleType.FIT_CENTER) {
+        setScaleType(ScaleType.FIT_CENTER);
+      }
+      baseMatrix.setRectToRect(
+          new RectF(0, 0, drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight()),
+          new RectF(0, 0, getWidth(), getHeight()), Matrix.ScaleToFit.CENTER);
+      drawMatrix.set(baseMatrix);
+      return;
+    }
+    constrainZoomMatrix(drawable);
+    drawMatrix.set(baseMatrix);
+    drawMatrix.postConcat(zoomMatrix);
+    if (getScaleType() != ScaleType.MATRIX) {
+      setScaleType(ScaleType.MATRIX);
+    }
+    setImageMatrix(drawMatrix);
+    invalidate();
+  }
+
+  /**
+   * Keeps the zoomed image covering the view, or centered along an axis it doesn't fill.
+   */
+  private void constrainZoomMatrix(Drawable drawable) {
+    final RectF bounds =
+        new RectF(0, 0, drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight());
+    baseMatrix.mapRect(bounds);
+    zoomMatrix.mapRect(bounds);
+    float dx = 0;
+    float dy = 0;
+    if (bounds.width() <= getWidth()) {
+      dx = (getWidth() - bounds.width()) / 2 - bounds.left;
+    } else if (bounds.left > 0) {
+      dx = -bounds.left;
+    } else if (bounds.right < getWidth()) {
+      dx = getWidth() - bounds.right;
+    }
+    if (bounds.height() <= getHeight()) {
+      dy = (getHeight() - bounds.height()) / 2 - bounds.top;
+    } else if (bounds.top > 0) {
+      dy = -bounds.top;
+    } else if (bounds.bottom < getHeight()) {
+      dy = getHeight() - bounds.bottom;
+    }
+    zoomMatrix.postTranslate(dx, dy);
+  }
+
+  private class ScaleListener extends ScaleGestureDetector.SimpleOnScaleGestureListener {
+
+    @Override
+    public boolean onScaleBegin(ScaleGestureDetector detector) {
+      requestDecoder();
+      return true;
+    }
+
+    @Override
+    public boolean onScale(ScaleGestureDetector detector) {
+      zoomBy(detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+      return true;
+    }
+  }
+
+  private class PanListener extends GestureDetector.SimpleOnGestureListener {
+
+    @Override
+    public boolean onDown(MotionEvent e) {
+      return true;
+    }
+
+    @Override
+    public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+      if (zoom <= 1f || scaleDetector.isInProgress()) {
+        return false;
+      }
+      zoomMatrix.postTranslate(-distanceX, -distanceY);
+      updateMatrix();
+      return true;
+    }
+
+    @Override
+    public boolean onDoubleTap(MotionEvent e) {
+      if (zoom > 1f) {
+        resetZoom();
+      } else {
+        requestDecoder();
+        zoomBy(Math.min(getMaxZoom(), 2.5f), e.getX(), e.getY());
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.gridtopager.transition;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+
+@SmallTest
+public class TransitionReportTest {
+
+    private static final float MAX_FLOAT_DELTA = 0.01f;
+
+    private TransitionReport report;
+
+    @Before
+    public void alloc() {
+        report = new TransitionReport("main_detail", 412, 25, 1,
+                16.67f, 16.72f, 33.31f, 87, 640);
+    }
+
+    @Test
+    public void testParse_roundTrip() {
+        TransitionReport parsed = TransitionReport.parse(report.toString());
+        assertThat(parsed.name, is(report.name));
+        assertThat(parsed.durationMillis, is(report.durationMillis));
+        assertThat(parsed.frameCount, is(report.frameCount));
+        assertThat(parsed.droppedFrames, is(report.droppedFrames));
+        assertEquals(report.p50FrameMillis, parsed.p50FrameMillis, MAX_FLOAT_DELTA);
+        assertEquals(report.p90FrameMillis, parsed.p90FrameMillis, MAX_FLOAT_DELTA);
+        assertEquals(report.maxFrameMillis, parsed.maxFrameMillis, MAX_FLOAT_DELTA);
+        assertThat(parsed.postponedMillis, is(report.postponedMillis));
+        assertThat(parsed.createAnimatorMicros, is(report.createAnimatorMicros));
+    }
+
+    @Test
+    public void testParse_loggedLine() {
+        TransitionReport parsed = TransitionReport.parse("transition name=detail_return "
+                + "durationMs=300 frames=18 dropped=0 p50Ms=16.66 p90Ms=16.70 maxMs=17.01 "
+                + "postponedMs=-1 createAnimatorUs=95");
+        assertThat(parsed.name, is("detail_return"));
+        assertThat(parsed.frameCount, is(18));
+        assertThat(parsed.postponedMillis, is(TransitionReport.NOT_POSTPONED));
+        assertThat(parsed.createAnimatorMicros, is(95L));
+    }
+
+    @Test
+    public void testName_whitespaceReplaced() {
+        TransitionReport named = new TransitionReport("detail return", 0, 0, 0, 0f, 0f, 0f,
+                TransitionReport.NOT_POSTPONED, 0);
+        assertThat(TransitionReport.parse(named.toString()).name, is("detail_return"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_otherLine() {
+        TransitionReport.parse("onTransitionEnd: detail_return");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_missingValue() {
+        TransitionReport.parse("transition name=detail_return durationMs=300");
+    }
+}
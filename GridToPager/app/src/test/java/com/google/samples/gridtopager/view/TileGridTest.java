@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.gridtopager.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.filters.SmallTest;
+import java.util.List;
+import org.junit.Test;
+
+@SmallTest
+public class TileGridTest {
+
+  private static final int IMAGE_WIDTH = 8000;
+  private static final int IMAGE_HEIGHT = 6000;
+  private static final int VIEW_WIDTH = 1080;
+  private static final int VIEW_HEIGHT = 1920;
+
+  private final TileGrid grid = new TileGrid(IMAGE_WIDTH, IMAGE_HEIGHT);
+
+  @Test
+  public void getSampleSize_decodedPixelsFitScreenPixel() {
+    assertEquals(1, TileGrid.getSampleSize(2f));
+    assertEquals(1, TileGrid.getSampleSize(1f));
+    assertEquals(1, TileGrid.getSampleSize(0.6f));
+    assertEquals(2, TileGrid.getSampleSize(0.5f));
+    assertEquals(2, TileGrid.getSampleSize(0.3f));
+    assertEquals(4, TileGrid.getSampleSize(0.135f));
+  }
+
+  @Test
+  public void getVisibleTiles_coversWholeImage() {
+    final List<TileGrid.Tile> tiles = grid.getVisibleTiles(8, 0, 0, IMAGE_WIDTH, IMAGE_HEIGHT);
+    // 2048 source pixels per tile.
+    assertEquals(4 * 3, tiles.size());
+    final TileGrid.Tile last = tiles.get(tiles.size() - 1);
+    assertEquals(IMAGE_WIDTH, grid.getRight(last));
+    assertEquals(IMAGE_HEIGHT, grid.getBottom(last));
+  }
+
+  @Test
+  public void getVisibleTiles_clipsToImage() {
+    final List<TileGrid.Tile> tiles = grid.getVisibleTiles(1, -500, -500, 100, 100);
+    assertEquals(1, tiles.size());
+    assertEquals(new TileGrid.Tile(1, 0, 0), tiles.get(0));
+    assertTrue(grid.getVisibleTiles(1, IMAGE_WIDTH, 0, IMAGE_WIDTH + 100, 100).isEmpty());
+  }
+
+  @Test
+  public void getByteCount_edgeTilesAreSmaller() {
+    // 8000 = 31 * 256 + 64.
+    assertEquals(64 * 256 * TileGrid.BYTES_PER_PIXEL,
+        grid.getByteCount(new TileGrid.Tile(1, 31, 0)));
+    assertEquals(256 * 256 * TileGrid.BYTES_PER_PIXEL,
+        grid.getByteCount(new TileGrid.Tile(1, 0, 0)));
+  }
+
+  @Test
+  public void visibleBytes_stayUnderCeilingAtEveryZoom() {
+    final float fittedScale =
+        Math.min(VIEW_WIDTH / (float) IMAGE_WIDTH, VIEW_HEIGHT / (float) IMAGE_HEIGHT);
+    final long ceiling = TileGrid.getMaxVisibleBytes(VIEW_WIDTH, VIEW_HEIGHT);
+    for (float scale = fittedScale; scale <= 2f; scale *= 1.1f) {
+      final int sampleSize = TileGrid.getSampleSize(scale);
+      final float visibleWidth = VIEW_WIDTH / scale;
+      final float visibleHeight = VIEW_HEIGHT / scale;
+      // Pan across the image in steps that don't line up with the tiles.
+      for (float left = -visibleWidth / 2; left < IMAGE_WIDTH; left += visibleWidth / 3 + 37) {
+        for (float top = -visibleHeight / 2; top < IMAGE_HEIGHT;
+            top += visibleHeight / 3 + 53) {
+          long bytes = 0;
+          for (TileGrid.Tile tile : grid.getVisibleTiles(sampleSize, left, top,
+              left + visibleWidth, top + visibleHeight)) {
+            bytes += grid.getByteCount(tile);
+          }
+          assertTrue("Visible tiles take " + bytes + " bytes at scale " + scale,
+              bytes <= ceiling);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void visibleBytes_ceilingDoesNotDependOnImageSize() {
+    final long ceiling = TileGrid.getMaxVisibleBytes(VIEW_WIDTH, VIEW_HEIGHT);
+    // A fully decoded 8000x6000 image would take 96MB.
+    assertTrue(ceiling < (long) IMAGE_WIDTH * IMAGE_HEIGHT * TileGrid.BYTES_PER_PIXEL / 4);
+    assertTrue(ceiling >= (long) VIEW_WIDTH * VIEW_HEIGHT * TileGrid.BYTES_PER_PIXEL);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+* Copyright 2014 The Android Open Source Project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.example.android.interpolator;
+
+import android.view.Choreographer;
+import android.widget.TextView;
+
+/**
+ * Shows the time between frames in a TextView while it is running.
+ * The average and longest frame time are measured over windows of {@link #WINDOW_FRAMES}
+ * frames, so that updating the label doesn't cost a layout pass every frame.
+ */
+public class FrameTimeMonitor implements Choreographer.FrameCallback {
+
+    /**
+     * Number of frames the label is updated after.
+     */
+    private static final int WINDOW_FRAMES = 15;
+
+    private static final float NANOS_PER_MS = 1000000f;
+
+    /**
+     * Label the frame times are shown in.
+     */
+    private final TextView mLabel;
+
+    private boolean mRunning;
+    private long mLastFrameTimeNanos;
+    private long mWindowNanos;
+    private long mMaxFrameNanos;
+    private int mWindowCount;
+
+    /**
+     * @param label The label to show the frame times in.
+     */
+    public FrameTimeMonitor(TextView label) {
+        mLabel = label;
+    }
+
+    /**
+     * Start measuring frames. The label keeps the last measurement when stopped.
+     */
+    public void start() {
+        if (mRunning) {
+            return;
+        }
+        mRunning = true;
+        mLastFrameTimeNanos = 0;
+        resetWindow();
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Stop measuring frames.
+     */
+    public void stop() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        if (mWindowCount > 0) {
+            showWindow();
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        if (mLastFrameTimeNanos != 0) {
+            long interval = frameTimeNanos - mLastFrameTimeNanos;
+            mWindowNanos += interval;
+            mMaxFrameNanos = Math.max(mMaxFrameNanos, interval);
+            if (++mWindowCount == WINDOW_FRAMES) {
+                showWindow();
+            }
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private void showWindow() {
+        mLabel.setText(mLabel.getResources().getString(R.string.frame_time,
+                mWindowNanos / (float) mWindowCount / NANOS_PER_MS,
+                mMaxFrameNanos / NANOS_PER_MS));
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        mWindowNanos = 0;
+        mMaxFrameNanos = 0;
+        mWindowCount = 0;
+    }
+}
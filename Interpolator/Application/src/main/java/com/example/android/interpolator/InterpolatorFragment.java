@@ -16,11 +16,14 @@
 
 package com.example.android.interpolator;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
 import android.annotation.SuppressLint;
 import android.graphics.Path;
 import android.os.Bundle;
 import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -28,12 +31,16 @@ import android.view.ViewGroup;
 import android.view.animation.AnimationUtils;
 import android.view.animation.Interpolator;
 import android.widget.ArrayAdapter;
+import android.widget.FrameLayout;
+import android.widget.RadioGroup;
 import android.widget.SeekBar;
 import android.widget.Spinner;
 import android.widget.TextView;
 
 import com.example.android.common.logger.Log;
 
+import java.util.List;
+
 /**
  * This sample demonstrates the use of animation interpolators and path animations for
  * Material Design.
@@ -58,6 +65,32 @@ public class InterpolatorFragment extends Fragment {
      * TextView that shows animation selected in SeekBar.
      */
     private TextView mDurationLabel;
+    /**
+     * SeekBar for selection of the number of views animated in stress mode.
+     */
+    private SeekBar mStressCountSeekbar;
+    /**
+     * TextView that shows the number of views selected in the stress SeekBar.
+     */
+    private TextView mStressCountLabel;
+    /**
+     * RadioGroup for selection of how the views are animated in stress mode.
+     */
+    private RadioGroup mStressDriverGroup;
+
+    /**
+     * Animates the views of the stress mode.
+     */
+    private StressAnimator mStressAnimator;
+    /**
+     * Shows the frame times while the views of the stress mode are animated.
+     */
+    private FrameTimeMonitor mFrameTimeMonitor;
+
+    /**
+     * Keyframes of {@link #mPathIn} and {@link #mPathOut}, so that they are only flattened once.
+     */
+    private final PathKeyframeCache mKeyframeCache = new PathKeyframeCache();
 
     /**
      * Interpolators used for animation.
@@ -82,6 +115,34 @@ public class InterpolatorFragment extends Fragment {
      */
     private static final int INITIAL_DURATION_MS = 750;
 
+    /**
+     * Largest distance, in scale units, between the animation paths and the keyframes animators
+     * are built from. The framework flattens paths with a tolerance of 0.5, which is meant for
+     * pixels; 0.001 keeps the edge of a 1000px view within a pixel of the path.
+     */
+    static final float PATH_TOLERANCE = 0.001f;
+
+    /**
+     * Framework interpolators that are also offered as {@link LookupTableInterpolator}s.
+     */
+    private static final int[] LOOKUP_TABLE_SOURCES = new int[]{
+            android.R.interpolator.fast_out_linear_in,
+            android.R.interpolator.fast_out_slow_in,
+            android.R.interpolator.linear_out_slow_in
+    };
+
+    /**
+     * Largest acceptable error of the lookup table for each of {@link #LOOKUP_TABLE_SOURCES}.
+     * The view's scale changes by 0.8 over the animation, so an error of 0.0006 moves the edge of
+     * a 1000px view by less than half a pixel. The curves that slow in come to rest slowly, where
+     * a step off the source curve is easier to see, so they are held to half of that.
+     */
+    private static final float[] LOOKUP_TABLE_MAX_ERRORS = new float[]{
+            0.0006f,
+            0.0003f,
+            0.0003f
+    };
+
     /**
      * String used for logging.
      */
@@ -131,9 +192,18 @@ public class InterpolatorFragment extends Fragment {
         // Get the view that will be animated
         mView = view.findViewById(R.id.square);
 
+        initStressMode(view);
+
         super.onViewCreated(view, savedInstanceState);
     }
 
+    @Override
+    public void onPause() {
+        super.onPause();
+        mStressAnimator.cancel();
+        mFrameTimeMonitor.stop();
+    }
+
     /**
      * Set up the 'animate' button, when it is clicked the view is animated with the options
      * selected: the Interpolator, duration and animation path
@@ -160,7 +230,11 @@ public class InterpolatorFragment extends Fragment {
                         ((mIsOut) ? "Out (growing)" : "In (shrinking)")));
 
                 // Start the animation with the selected options
-                startAnimation(interpolator, duration, path);
+                if (mStressAnimator.getViewCount() > 0) {
+                    startStressAnimation(interpolator, duration, path);
+                } else {
+                    startAnimation(interpolator, duration, path);
+                }
 
                 // Toggle direction of animation (path)
                 mIsOut = !mIsOut;
@@ -196,23 +270,108 @@ public class InterpolatorFragment extends Fragment {
         mDurationSeekbar.setProgress(INITIAL_DURATION_MS);
     }
 
+    /**
+     * Set up the stress mode, which animates a number of views selected in a SeekBar instead of
+     * the sample view, either with an animator per view or with a single shared animator.
+     *
+     * @param view The view holding the stress mode controls.
+     */
+    private void initStressMode(View view) {
+        mStressCountLabel = (TextView) view.findViewById(R.id.stressCountLabel);
+        mStressDriverGroup = (RadioGroup) view.findViewById(R.id.stressDriverGroup);
+        mFrameTimeMonitor = new FrameTimeMonitor(
+                (TextView) view.findViewById(R.id.frameTimeLabel));
+        mStressAnimator = new StressAnimator(
+                (FrameLayout) view.findViewById(R.id.stressContainer),
+                ContextCompat.getColor(getActivity(), R.color.purple),
+                mKeyframeCache, PATH_TOLERANCE);
+        mStressAnimator.setListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationStart(Animator animation) {
+                mFrameTimeMonitor.start();
+            }
+
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                mFrameTimeMonitor.stop();
+            }
+        });
+
+        mStressCountSeekbar = (SeekBar) view.findViewById(R.id.stressCountSeek);
+        mStressCountSeekbar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int i, boolean b) {
+                mStressCountLabel.setText(getResources().getString(R.string.stress_count, i));
+                if (!b) {
+                    setStressViewCount(i);
+                }
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                // Only rebuild the views once the count has been picked.
+                setStressViewCount(seekBar.getProgress());
+            }
+        });
+        mStressCountLabel.setText(getResources().getString(R.string.stress_count, 0));
+    }
+
+    /**
+     * Replace the sample view with a number of views to animate in stress mode.
+     *
+     * @param count The number of views, or 0 to animate the sample view.
+     */
+    public void setStressViewCount(int count) {
+        mStressAnimator.setViewCount(count);
+        mView.setVisibility(count > 0 ? View.INVISIBLE : View.VISIBLE);
+    }
+
+    /**
+     * Start an animation on the views of the stress mode, driven as selected in the RadioGroup.
+     *
+     * @param interpolator The interpolator to use for the animation.
+     * @param duration Duration of the animation in ms.
+     * @param path Path of the animation
+     * @return The animators started
+     * @see StressAnimator#start(int, Interpolator, long, Path)
+     */
+    @SuppressLint("DefaultLocale")
+    public List<Animator> startStressAnimation(Interpolator interpolator, long duration,
+            Path path) {
+        int driver = mStressDriverGroup.getCheckedRadioButtonId() == R.id.stressDriverShared
+                ? StressAnimator.DRIVER_SHARED_ANIMATOR
+                : StressAnimator.DRIVER_OBJECT_ANIMATORS;
+        Log.i(TAG, String.format("Stress animation: %d views, %s",
+                mStressAnimator.getViewCount(),
+                driver == StressAnimator.DRIVER_SHARED_ANIMATOR ? "shared animator"
+                        : "animator per view"));
+        return mStressAnimator.start(driver, interpolator, duration, path);
+    }
+
     /**
      * Start an animation on the sample view.
      * The view is animated using an {@link android.animation.ObjectAnimator} on the
      * {@link View#SCALE_X} and {@link View#SCALE_Y} properties, with its animation based on a
      * path.
      * The only two paths defined here ({@link #mPathIn} and {@link #mPathOut}) scale the view
-     * uniformly.
+     * uniformly. The keyframes of a path are computed the first time it is animated and reused by
+     * later animators.
      *
      * @param interpolator The interpolator to use for the animation.
      * @param duration Duration of the animation in ms.
      * @param path Path of the animation
      * @return The ObjectAnimator used for this animation
-     * @see android.animation.ObjectAnimator#ofFloat(Object, String, String, android.graphics.Path)
+     * @see PathKeyframeCache#ofFloat(Object, android.util.Property, android.util.Property, Path,
+     * float)
      */
     public ObjectAnimator startAnimation(Interpolator interpolator, long duration, Path path) {
         // This ObjectAnimator uses the path to change the x and y scale of the mView object.
-        ObjectAnimator animator = ObjectAnimator.ofFloat(mView, View.SCALE_X, View.SCALE_Y, path);
+        ObjectAnimator animator = mKeyframeCache.ofFloat(mView, View.SCALE_X, View.SCALE_Y, path,
+                PATH_TOLERANCE);
 
         // Set the duration and interpolator for this animation
         animator.setDuration(duration);
@@ -248,10 +407,11 @@ public class InterpolatorFragment extends Fragment {
 
     /**
      * Initialize interpolators programmatically by loading them from their XML definitions
-     * provided by the framework.
+     * provided by the framework, followed by lookup table versions of the curved ones.
      */
+    @SuppressLint("DefaultLocale")
     private void initInterpolators() {
-        mInterpolators = new Interpolator[]{
+        final Interpolator[] framework = new Interpolator[]{
                 AnimationUtils.loadInterpolator(getActivity(),
                         android.R.interpolator.linear),
                 AnimationUtils.loadInterpolator(getActivity(),
@@ -261,6 +421,17 @@ public class InterpolatorFragment extends Fragment {
                 AnimationUtils.loadInterpolator(getActivity(),
                         android.R.interpolator.linear_out_slow_in)
         };
+
+        mInterpolators = new Interpolator[framework.length + LOOKUP_TABLE_SOURCES.length];
+        System.arraycopy(framework, 0, mInterpolators, 0, framework.length);
+        for (int i = 0; i < LOOKUP_TABLE_SOURCES.length; i++) {
+            LookupTableInterpolator interpolator = LookupTableInterpolator.create(
+                    AnimationUtils.loadInterpolator(getActivity(), LOOKUP_TABLE_SOURCES[i]),
+                    LOOKUP_TABLE_MAX_ERRORS[i]);
+            Log.d(TAG, String.format("Lookup table %d: %d samples, max error %f", i,
+                    interpolator.getSampleCount(), interpolator.getMaxError()));
+            mInterpolators[framework.length + i] = interpolator;
+        }
     }
 
     /**
@@ -0,0 +1,141 @@
+/*
+* Copyright 2014 The Android Open Source Project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.example.android.interpolator;
+
+import android.animation.TimeInterpolator;
+import android.view.animation.Interpolator;
+
+/**
+ * An interpolator that samples another interpolator into a table of evenly spaced values and
+ * interpolates linearly between them.
+ * Looking up a value is a multiplication and an array access, where a
+ * {@link android.view.animation.PathInterpolator} binary searches its path on every call.
+ * {@link #create(TimeInterpolator, float)} picks the smallest table that stays within an error
+ * bound of the sampled curve.
+ */
+public class LookupTableInterpolator implements Interpolator {
+
+    /**
+     * Number of samples of the smallest table tried by {@link #create(TimeInterpolator, float)}.
+     */
+    private static final int MIN_SAMPLE_COUNT = 17;
+
+    /**
+     * Number of samples of the largest table tried by {@link #create(TimeInterpolator, float)}.
+     */
+    private static final int MAX_SAMPLE_COUNT = 4097;
+
+    /**
+     * Number of points checked against the sampled curve between two samples.
+     */
+    private static final int ERROR_CHECKS_PER_SAMPLE = 4;
+
+    /**
+     * Values of the sampled interpolator at evenly spaced inputs from 0 to 1.
+     */
+    private final float[] mValues;
+
+    /**
+     * Largest difference to the sampled interpolator that was measured.
+     */
+    private final float mMaxError;
+
+    /**
+     * Sample an interpolator into a table of a fixed size.
+     *
+     * @param source The interpolator to sample.
+     * @param sampleCount The number of samples, at least 2.
+     */
+    public LookupTableInterpolator(TimeInterpolator source, int sampleCount) {
+        if (sampleCount < 2) {
+            throw new IllegalArgumentException("At least 2 samples are needed, got " + sampleCount);
+        }
+        mValues = new float[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            mValues[i] = source.getInterpolation(i / (float) (sampleCount - 1));
+        }
+        mMaxError = getMaxError(source, this, (sampleCount - 1) * ERROR_CHECKS_PER_SAMPLE);
+    }
+
+    /**
+     * Sample an interpolator into the smallest table that stays within an error bound of it.
+     * Tables are grown by doubling, up to {@link #MAX_SAMPLE_COUNT} samples, which is returned
+     * even if it doesn't meet the bound.
+     *
+     * @param source The interpolator to sample.
+     * @param maxError The largest acceptable difference to the source.
+     * @return The lookup table interpolator.
+     */
+    public static LookupTableInterpolator create(TimeInterpolator source, float maxError) {
+        LookupTableInterpolator interpolator;
+        int sampleCount = MIN_SAMPLE_COUNT;
+        do {
+            interpolator = new LookupTableInterpolator(source, sampleCount);
+            sampleCount = (sampleCount - 1) * 2 + 1;
+        } while (interpolator.getMaxError() > maxError && sampleCount <= MAX_SAMPLE_COUNT);
+        return interpolator;
+    }
+
+    /**
+     * Measure the largest difference between two interpolators at evenly spaced inputs from 0
+     * to 1.
+     *
+     * @param expected The reference interpolator.
+     * @param actual The interpolator to compare.
+     * @param steps The number of intervals between the checked inputs.
+     * @return The largest absolute difference.
+     */
+    public static float getMaxError(TimeInterpolator expected, TimeInterpolator actual,
+            int steps) {
+        float maxError = 0;
+        for (int i = 0; i <= steps; i++) {
+            final float input = i / (float) steps;
+            maxError = Math.max(maxError,
+                    Math.abs(expected.getInterpolation(input) - actual.getInterpolation(input)));
+        }
+        return maxError;
+    }
+
+    /**
+     * @return The number of samples in the table.
+     */
+    public int getSampleCount() {
+        return mValues.length;
+    }
+
+    /**
+     * @return The largest difference to the sampled interpolator measured between samples.
+     */
+    public float getMaxError() {
+        return mMaxError;
+    }
+
+    @Override
+    public float getInterpolation(float input) {
+        if (input <= 0) {
+            return mValues[0];
+        }
+        final int last = mValues.length - 1;
+        if (input >= 1) {
+            return mValues[last];
+        }
+        final float position = input * last;
+        final int index = (int) position;
+        final float fraction = position - index;
+        return mValues[index] + (mValues[index + 1] - mValues[index]) * fraction;
+    }
+}
@@ -0,0 +1,316 @@
+/*
+* Copyright 2014 The Android Open Source Project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.example.android.interpolator;
+
+import android.animation.ObjectAnimator;
+import android.animation.TypeEvaluator;
+import android.graphics.Path;
+import android.graphics.PathMeasure;
+import android.graphics.PointF;
+import android.os.Build;
+import android.util.FloatProperty;
+import android.util.Property;
+import android.util.SparseArray;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Builds {@link ObjectAnimator}s that animate two properties along a path, from keyframes that
+ * are computed once per path.
+ * {@link ObjectAnimator#ofFloat(Object, Property, Property, Path)} approximates the path into
+ * keyframes every time an animator is created. This cache flattens a path into a flat array of
+ * <code>[fraction, x, y]</code> points the first time it is used with a tolerance, and animators
+ * created later for the same path and tolerance share the array.
+ * Paths are cached by identity, so they must not be modified once they have been animated.
+ */
+public class PathKeyframeCache {
+
+    /**
+     * Number of times a contour is split before its curvature is checked, so that curves whose
+     * middle happens to lie on the chord between their ends are still followed.
+     */
+    private static final int MIN_DEPTH = 2;
+
+    /**
+     * Number of times a contour is split at most.
+     */
+    private static final int MAX_DEPTH = 16;
+
+    /**
+     * Flattened keyframes by path and by the bits of the tolerance, so that looking them up
+     * doesn't box the tolerance. Paths are only weakly referenced.
+     */
+    private final Map<Path, SparseArray<float[]>> mKeyframes = new WeakHashMap<>();
+
+    /**
+     * Number of times a path had to be flattened.
+     */
+    private int mMissCount;
+
+    /**
+     * Return the keyframes of a path, flattening it if it hasn't been with this tolerance yet.
+     *
+     * @param path The path.
+     * @param tolerance The largest distance between the path and the lines between keyframes.
+     * @return Keyframes as <code>[fraction, x, y]</code> triples, by fraction of the path length.
+     */
+    public float[] getKeyframes(Path path, float tolerance) {
+        SparseArray<float[]> byTolerance = mKeyframes.get(path);
+        if (byTolerance == null) {
+            byTolerance = new SparseArray<>();
+            mKeyframes.put(path, byTolerance);
+        }
+        int toleranceBits = Float.floatToIntBits(tolerance);
+        float[] keyframes = byTolerance.get(toleranceBits);
+        if (keyframes == null) {
+            keyframes = flatten(path, tolerance);
+            byTolerance.put(toleranceBits, keyframes);
+            mMissCount++;
+        }
+        return keyframes;
+    }
+
+    /**
+     * @return The number of times a path had to be flattened.
+     */
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Create an animator that animates two properties of a target along a path, using the x
+     * coordinates for the first property and the y coordinates for the second.
+     *
+     * @param target The object whose properties are animated.
+     * @param xProperty The property set to the x coordinates of the path.
+     * @param yProperty The property set to the y coordinates of the path.
+     * @param path The path to animate along.
+     * @param tolerance The largest distance between the path and the animated values.
+     * @return The animator.
+     * @see ObjectAnimator#ofFloat(Object, Property, Property, Path)
+     */
+    public <T> ObjectAnimator ofFloat(T target, Property<T, Float> xProperty,
+            Property<T, Float> yProperty, Path path, float tolerance) {
+        float[] keyframes = getKeyframes(path, tolerance);
+        int last = keyframes.length - 3;
+        return ObjectAnimator.ofObject(target, new PointProperty<>(xProperty, yProperty),
+                new KeyframesEvaluator(keyframes),
+                new PointF(keyframes[1], keyframes[2]),
+                new PointF(keyframes[last + 1], keyframes[last + 2]));
+    }
+
+    /**
+     * Flatten a path into lines that are at most <code>tolerance</code> away from it.
+     */
+    static float[] flatten(Path path, float tolerance) {
+        PathMeasure measure = new PathMeasure(path, false);
+        float totalLength = 0;
+        do {
+            totalLength += measure.getLength();
+        } while (measure.nextContour());
+        if (totalLength == 0) {
+            throw new IllegalArgumentException("The path must not be empty");
+        }
+
+        Flattener flattener = new Flattener(tolerance, totalLength);
+        measure.setPath(path, false);
+        float offset = 0;
+        do {
+            float length = measure.getLength();
+            if (length > 0) {
+                flattener.addContour(measure, offset, length);
+                offset += length;
+            }
+        } while (measure.nextContour());
+        return flattener.toArray();
+    }
+
+    /**
+     * Splits contours in two until their middle point is close enough to the line between their
+     * ends, appending the ends of the pieces as keyframes.
+     */
+    private static class Flattener {
+
+        private final float mTolerance;
+        private final float mTotalLength;
+        private final float[] mPoint = new float[2];
+        private float[] mKeyframes = new float[3 * 16];
+        private int mSize;
+
+        Flattener(float tolerance, float totalLength) {
+            mTolerance = tolerance;
+            mTotalLength = totalLength;
+        }
+
+        void addContour(PathMeasure measure, float offset, float length) {
+            measure.getPosTan(0, mPoint, null);
+            float startX = mPoint[0];
+            float startY = mPoint[1];
+            measure.getPosTan(length, mPoint, null);
+            add(offset, startX, startY);
+            split(measure, offset, 0, startX, startY, length, mPoint[0], mPoint[1], 0);
+        }
+
+        private void split(PathMeasure measure, float offset, float startDistance,
+                float startX, float startY, float endDistance, float endX, float endY,
+                int depth) {
+            float middleDistance = (startDistance + endDistance) / 2;
+            measure.getPosTan(middleDistance, mPoint, null);
+            float middleX = mPoint[0];
+            float middleY = mPoint[1];
+            float error = (float) Math.hypot(middleX - (startX + endX) / 2,
+                    middleY - (startY + endY) / 2);
+            if (depth < MIN_DEPTH || (depth < MAX_DEPTH && error > mTolerance)) {
+                split(measure, offset, startDistance, startX, startY,
+                        middleDistance, middleX, middleY, depth + 1);
+                split(measure, offset, middleDistance, middleX, middleY,
+                        endDistance, endX, endY, depth + 1);
+            } else {
+                add(offset + endDistance, endX, endY);
+            }
+        }
+
+        private void add(float distance, float x, float y) {
+            if (mSize == mKeyframes.length) {
+                mKeyframes = Arrays.copyOf(mKeyframes, mSize * 2);
+            }
+            mKeyframes[mSize++] = Math.min(1f, distance / mTotalLength);
+            mKeyframes[mSize++] = x;
+            mKeyframes[mSize++] = y;
+        }
+
+        float[] toArray() {
+            return Arrays.copyOf(mKeyframes, mSize);
+        }
+    }
+
+    /**
+     * Evaluates the point of flattened keyframes at a fraction of their length. Fractions outside
+     * of 0 to 1, from overshooting interpolators, extend the first and last lines.
+     */
+    private static class KeyframesEvaluator implements TypeEvaluator<PointF> {
+
+        private final float[] mKeyframes;
+
+        /**
+         * Point returned by every evaluation, which {@link PointProperty} only reads.
+         */
+        private final PointF mPoint = new PointF();
+
+        KeyframesEvaluator(float[] keyframes) {
+            mKeyframes = keyframes;
+        }
+
+        @Override
+        public PointF evaluate(float fraction, PointF startValue, PointF endValue) {
+            int count = mKeyframes.length / 3;
+            if (count == 1) {
+                mPoint.set(mKeyframes[1], mKeyframes[2]);
+                return mPoint;
+            }
+            int low;
+            if (fraction <= 0) {
+                low = 0;
+            } else if (fraction >= 1) {
+                low = count - 2;
+            } else {
+                // Find the last keyframe at or before the fraction.
+                low = 0;
+                int high = count - 1;
+                while (high - low > 1) {
+                    int middle = (low + high) >>> 1;
+                    if (mKeyframes[middle * 3] <= fraction) {
+                        low = middle;
+                    } else {
+                        high = middle;
+                    }
+                }
+            }
+            int start = low * 3;
+            int end = start + 3;
+            float span = mKeyframes[end] - mKeyframes[start];
+            if (span == 0) {
+                // A jump between contours.
+                mPoint.set(mKeyframes[end + 1], mKeyframes[end + 2]);
+                return mPoint;
+            }
+            float t = (fraction - mKeyframes[start]) / span;
+            mPoint.set(mKeyframes[start + 1] + (mKeyframes[end + 1] - mKeyframes[start + 1]) * t,
+                    mKeyframes[start + 2] + (mKeyframes[end + 2] - mKeyframes[start + 2]) * t);
+            return mPoint;
+        }
+    }
+
+    /**
+     * Sets the coordinates of a point to two float properties. Properties that are
+     * {@link FloatProperty FloatProperties}, like those of {@link android.view.View}, are set
+     * without boxing the coordinates.
+     */
+    private static class PointProperty<T> extends Property<T, PointF> {
+
+        private final Property<T, Float> mXProperty;
+        private final Property<T, Float> mYProperty;
+
+        /**
+         * The x property if it can be set to a primitive float, <code>null</code> otherwise.
+         */
+        private final FloatProperty<T> mXFloatProperty;
+
+        /**
+         * The y property if it can be set to a primitive float, <code>null</code> otherwise.
+         */
+        private final FloatProperty<T> mYFloatProperty;
+
+        PointProperty(Property<T, Float> xProperty, Property<T, Float> yProperty) {
+            super(PointF.class, xProperty.getName() + "/" + yProperty.getName());
+            mXProperty = xProperty;
+            mYProperty = yProperty;
+            mXFloatProperty = asFloatProperty(xProperty);
+            mYFloatProperty = asFloatProperty(yProperty);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> FloatProperty<T> asFloatProperty(Property<T, Float> property) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                    && property instanceof FloatProperty) {
+                return (FloatProperty<T>) property;
+            }
+            return null;
+        }
+
+        @Override
+        public PointF get(T object) {
+            return new PointF(mXProperty.get(object), mYProperty.get(object));
+        }
+
+        @Override
+        public void set(T object, PointF value) {
+            if (mXFloatProperty != null) {
+                mXFloatProperty.setValue(object, value.x);
+            } else {
+                mXProperty.set(object, value.x);
+            }
+            if (mYFloatProperty != null) {
+                mYFloatProperty.setValue(object, value.y);
+            } else {
+                mYProperty.set(object, value.y);
+            }
+        }
+    }
+}
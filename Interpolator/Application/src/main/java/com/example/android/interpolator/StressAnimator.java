@@ -0,0 +1,249 @@
+/*
+* Copyright 2014 The Android Open Source Project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.example.android.interpolator;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
+import android.graphics.Path;
+import android.graphics.PathMeasure;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.animation.Interpolator;
+import android.widget.FrameLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Animates the scale of many views along a path at once, to measure how many simultaneously
+ * animated views a screen can afford.
+ * The views can be driven in two ways that can be compared:
+ * {@link #DRIVER_OBJECT_ANIMATORS} starts an {@link ObjectAnimator} for every view, like
+ * {@link InterpolatorFragment#startAnimation(Interpolator, long, Path)} does for a single view.
+ * {@link #DRIVER_SHARED_ANIMATOR} starts a single {@link ValueAnimator}, samples the path once
+ * into a flat array of points, and sets the scale of every view from that array on each frame.
+ */
+public class StressAnimator {
+
+    /**
+     * Drive the views with one {@link ObjectAnimator} each.
+     */
+    public static final int DRIVER_OBJECT_ANIMATORS = 0;
+
+    /**
+     * Drive all views from a single {@link ValueAnimator}.
+     */
+    public static final int DRIVER_SHARED_ANIMATOR = 1;
+
+    /**
+     * Number of segments the path is sampled into for {@link #DRIVER_SHARED_ANIMATOR}.
+     */
+    private static final int PATH_SEGMENTS = 64;
+
+    /**
+     * Container of the animated views.
+     */
+    private final ViewGroup mContainer;
+
+    /**
+     * Color of the animated views.
+     */
+    private final int mColor;
+
+    /**
+     * Keyframes of the paths animated with {@link #DRIVER_OBJECT_ANIMATORS}.
+     */
+    private final PathKeyframeCache mKeyframeCache;
+
+    /**
+     * Tolerance the paths are flattened with for {@link #DRIVER_OBJECT_ANIMATORS}.
+     */
+    private final float mPathTolerance;
+
+    /**
+     * Animators of the current run.
+     */
+    private final List<Animator> mAnimators = new ArrayList<>();
+
+    /**
+     * Points of the path for the shared animator, as x and y pairs at evenly spaced distances.
+     */
+    private final float[] mPathPoints = new float[(PATH_SEGMENTS + 1) * 2];
+
+    /**
+     * Listener notified when a run ends.
+     */
+    private Animator.AnimatorListener mListener;
+
+    /**
+     * @param container The container the animated views are added to.
+     * @param color The color of the animated views.
+     * @param keyframeCache The cache of path keyframes for animators per view.
+     * @param pathTolerance The tolerance paths are flattened with for animators per view.
+     */
+    public StressAnimator(ViewGroup container, int color, PathKeyframeCache keyframeCache,
+            float pathTolerance) {
+        mContainer = container;
+        mColor = color;
+        mKeyframeCache = keyframeCache;
+        mPathTolerance = pathTolerance;
+    }
+
+    /**
+     * Set the listener that is notified when a run starts and ends.
+     *
+     * @param listener The listener, or null.
+     */
+    public void setListener(Animator.AnimatorListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Fill the container with a grid of views. The container needs to have been laid out.
+     *
+     * @param count The number of views.
+     */
+    public void setViewCount(int count) {
+        cancel();
+        mContainer.removeAllViews();
+        int width = mContainer.getWidth();
+        int height = mContainer.getHeight();
+        if (count <= 0 || width == 0 || height == 0) {
+            return;
+        }
+        // Pick the largest square cells that fit the views into the container.
+        int columns = (int) Math.ceil(Math.sqrt(count * width / (float) height));
+        int rows = (int) Math.ceil(count / (float) columns);
+        int cellSize = Math.min(width / columns, height / rows);
+        int margin = Math.max(1, cellSize / 10);
+        for (int i = 0; i < count; i++) {
+            View view = new View(mContainer.getContext());
+            view.setBackgroundColor(mColor);
+            FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
+                    cellSize - margin, cellSize - margin);
+            params.leftMargin = (i % columns) * cellSize;
+            params.topMargin = (i / columns) * cellSize;
+            mContainer.addView(view, params);
+        }
+    }
+
+    /**
+     * @return The number of animated views.
+     */
+    public int getViewCount() {
+        return mContainer.getChildCount();
+    }
+
+    /**
+     * Animate the scale of all views along a path.
+     *
+     * @param driver {@link #DRIVER_OBJECT_ANIMATORS} or {@link #DRIVER_SHARED_ANIMATOR}.
+     * @param interpolator The interpolator to use for the animation.
+     * @param duration Duration of the animation in ms.
+     * @param path Path of the scale x and y values.
+     * @return The animators started, one per view or a single shared one. The list is a copy,
+     * which later runs don't change.
+     */
+    public List<Animator> start(int driver, Interpolator interpolator, long duration, Path path) {
+        cancel();
+        if (driver == DRIVER_SHARED_ANIMATOR) {
+            mAnimators.add(createSharedAnimator(path));
+        } else {
+            for (int i = 0; i < mContainer.getChildCount(); i++) {
+                mAnimators.add(mKeyframeCache.ofFloat(mContainer.getChildAt(i),
+                        View.SCALE_X, View.SCALE_Y, path, mPathTolerance));
+            }
+        }
+        if (mAnimators.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Every run reports its end once, through the animator that is started last.
+        Animator last = mAnimators.get(mAnimators.size() - 1);
+        last.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                mAnimators.clear();
+            }
+        });
+        if (mListener != null) {
+            last.addListener(mListener);
+        }
+        for (int i = 0; i < mAnimators.size(); i++) {
+            Animator animator = mAnimators.get(i);
+            animator.setDuration(duration);
+            animator.setInterpolator(interpolator);
+            animator.start();
+        }
+        return new ArrayList<>(mAnimators);
+    }
+
+    /**
+     * Cancel the current run.
+     */
+    public void cancel() {
+        if (mAnimators.isEmpty()) {
+            return;
+        }
+        // Ending the last animator clears the list, so cancel a copy.
+        List<Animator> animators = new ArrayList<>(mAnimators);
+        mAnimators.clear();
+        for (int i = 0; i < animators.size(); i++) {
+            animators.get(i).cancel();
+        }
+    }
+
+    /**
+     * @return true if a run is in progress.
+     */
+    public boolean isRunning() {
+        return !mAnimators.isEmpty();
+    }
+
+    private Animator createSharedAnimator(Path path) {
+        PathMeasure measure = new PathMeasure(path, false);
+        float length = measure.getLength();
+        float[] point = new float[2];
+        for (int i = 0; i <= PATH_SEGMENTS; i++) {
+            measure.getPosTan(length * i / PATH_SEGMENTS, point, null);
+            mPathPoints[i * 2] = point[0];
+            mPathPoints[i * 2 + 1] = point[1];
+        }
+        ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+        animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                float position = Math.max(0f, Math.min(1f, animation.getAnimatedFraction()))
+                        * PATH_SEGMENTS;
+                int index = Math.min((int) position, PATH_SEGMENTS - 1);
+                float fraction = position - index;
+                int offset = index * 2;
+                float scaleX = mPathPoints[offset]
+                        + (mPathPoints[offset + 2] - mPathPoints[offset]) * fraction;
+                float scaleY = mPathPoints[offset + 1]
+                        + (mPathPoints[offset + 3] - mPathPoints[offset + 1]) * fraction;
+                for (int i = 0; i < mContainer.getChildCount(); i++) {
+                    View view = mContainer.getChildAt(i);
+                    view.setScaleX(scaleX);
+                    view.setScaleY(scaleY);
+                }
+            }
+        });
+        return animator;
+    }
+}
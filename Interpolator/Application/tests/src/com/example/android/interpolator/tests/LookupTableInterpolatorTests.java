@@ -0,0 +1,162 @@
+/*
+* Copyright 2014 The Android Open Source Project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.example.android.interpolatorplayground.tests;
+
+import com.example.android.interpolator.LookupTableInterpolator;
+
+import android.animation.TimeInterpolator;
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.view.animation.AnimationUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests and benchmarks for {@link LookupTableInterpolator}.
+ * The benchmark compares the time per call of the framework path interpolators with their lookup
+ * tables. Each interpolator is warmed up, then timed over several rounds, and the median round is
+ * reported in the log under {@link #TAG}, together with the error of the table.
+ */
+public class LookupTableInterpolatorTests extends AndroidTestCase {
+
+    private static final String TAG = "InterpolatorBenchmark";
+
+    private static final int[] CURVES = new int[]{
+            android.R.interpolator.fast_out_linear_in,
+            android.R.interpolator.fast_out_slow_in,
+            android.R.interpolator.linear_out_slow_in
+    };
+
+    private static final float MAX_ERROR = 0.0005f;
+
+    /**
+     * Number of inputs the error of a table is checked at.
+     */
+    private static final int ERROR_STEPS = 100000;
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 7;
+    private static final int CALLS_PER_ROUND = 100000;
+
+    /**
+     * Inputs of the timed calls, random so that the calls can't be folded together.
+     */
+    private float[] mInputs;
+
+    /**
+     * Sum of the results of the timed calls, read so that the calls aren't optimized away.
+     */
+    private float mSink;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mInputs = new float[CALLS_PER_ROUND];
+        Random random = new Random(42);
+        for (int i = 0; i < mInputs.length; i++) {
+            mInputs[i] = random.nextFloat();
+        }
+    }
+
+    /**
+     * Test that tables stay within their error bound everywhere, not only where it was measured.
+     */
+    public void testMaxErrorWithinBound() {
+        for (int curve : CURVES) {
+            TimeInterpolator source = AnimationUtils.loadInterpolator(getContext(), curve);
+            LookupTableInterpolator table = LookupTableInterpolator.create(source, MAX_ERROR);
+            float error = LookupTableInterpolator.getMaxError(source, table, ERROR_STEPS);
+            // The error between the checked points can only be slightly larger.
+            assertTrue("Error " + error + " of " + table.getSampleCount() + " samples",
+                    error <= MAX_ERROR * 1.1f);
+        }
+    }
+
+    /**
+     * Test that the ends of the curve are reproduced exactly.
+     */
+    public void testEndpoints() {
+        for (int curve : CURVES) {
+            TimeInterpolator source = AnimationUtils.loadInterpolator(getContext(), curve);
+            LookupTableInterpolator table = LookupTableInterpolator.create(source, MAX_ERROR);
+            assertEquals(source.getInterpolation(0f), table.getInterpolation(0f));
+            assertEquals(source.getInterpolation(1f), table.getInterpolation(1f));
+            assertEquals(table.getInterpolation(0f), table.getInterpolation(-1f));
+            assertEquals(table.getInterpolation(1f), table.getInterpolation(2f));
+        }
+    }
+
+    /**
+     * Test that a table needs at least two samples.
+     */
+    public void testTooFewSamples() {
+        try {
+            new LookupTableInterpolator(AnimationUtils.loadInterpolator(getContext(),
+                    android.R.interpolator.linear), 1);
+            fail("A single sample must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * Time the framework interpolators against their tables and log the results.
+     */
+    public void testBenchmark() {
+        for (int curve : CURVES) {
+            TimeInterpolator source = AnimationUtils.loadInterpolator(getContext(), curve);
+            LookupTableInterpolator table = LookupTableInterpolator.create(source, MAX_ERROR);
+            double sourceNanos = measureNanosPerCall(source);
+            double tableNanos = measureNanosPerCall(table);
+            Log.i(TAG, String.format("%s: source %.1f ns/call, table %.1f ns/call,"
+                            + " %d samples, max error %f",
+                    getContext().getResources().getResourceEntryName(curve),
+                    sourceNanos, tableNanos, table.getSampleCount(),
+                    LookupTableInterpolator.getMaxError(source, table, ERROR_STEPS)));
+        }
+        // Keep the results alive.
+        assertFalse(Float.isNaN(mSink));
+    }
+
+    /**
+     * @return The median time of a call over {@link #MEASURED_ROUNDS} rounds, after
+     * {@link #WARMUP_ROUNDS} rounds that aren't measured.
+     */
+    private double measureNanosPerCall(TimeInterpolator interpolator) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runRound(interpolator);
+        }
+        long[] rounds = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            rounds[i] = runRound(interpolator);
+        }
+        Arrays.sort(rounds);
+        return rounds[MEASURED_ROUNDS / 2] / (double) CALLS_PER_ROUND;
+    }
+
+    private long runRound(TimeInterpolator interpolator) {
+        float sum = 0;
+        long start = System.nanoTime();
+        for (float input : mInputs) {
+            sum += interpolator.getInterpolation(input);
+        }
+        long duration = System.nanoTime() - start;
+        mSink += sum;
+        return duration;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+* Copyright 2014 The Android Open Source Project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.example.android.interpolatorplayground.tests;
+
+import com.example.android.interpolator.PathKeyframeCache;
+
+import android.animation.ObjectAnimator;
+import android.graphics.Path;
+import android.graphics.PathMeasure;
+import android.os.Debug;
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.view.View;
+
+/**
+ * Tests and benchmarks for {@link PathKeyframeCache}.
+ * The benchmark builds animators along a curved path with
+ * {@link ObjectAnimator#ofFloat(Object, android.util.Property, android.util.Property, Path)}
+ * and with the cache, at the framework's tolerance of half a pixel, and logs the time and memory
+ * allocated per animator under {@link #TAG}.
+ */
+public class PathKeyframeCacheTests extends AndroidTestCase {
+
+    private static final String TAG = "PathKeyframeBenchmark";
+
+    /**
+     * Tolerance the framework flattens paths with.
+     */
+    private static final float FRAMEWORK_TOLERANCE = 0.5f;
+
+    private static final int WARMUP_ANIMATORS = 200;
+    private static final int MEASURED_ANIMATORS = 1000;
+
+    private View mView;
+
+    /**
+     * A looping path in pixels, made of curves only.
+     */
+    private Path mPath;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mView = new View(getContext());
+        mPath = new Path();
+        mPath.moveTo(0, 0);
+        for (int i = 0; i < 8; i++) {
+            float x = i * 120;
+            mPath.cubicTo(x + 40, -300, x + 160, 300, x + 120, 0);
+            mPath.quadTo(x + 60, 200, x + 120, 0);
+        }
+    }
+
+    /**
+     * Test that a path is only flattened once per tolerance.
+     */
+    public void testKeyframesCached() {
+        PathKeyframeCache cache = new PathKeyframeCache();
+        float[] keyframes = cache.getKeyframes(mPath, FRAMEWORK_TOLERANCE);
+        assertSame(keyframes, cache.getKeyframes(mPath, FRAMEWORK_TOLERANCE));
+        assertEquals(1, cache.getMissCount());
+
+        assertNotSame(keyframes, cache.getKeyframes(mPath, FRAMEWORK_TOLERANCE / 2));
+        assertEquals(2, cache.getMissCount());
+
+        cache.ofFloat(mView, View.TRANSLATION_X, View.TRANSLATION_Y, mPath, FRAMEWORK_TOLERANCE);
+        assertEquals(2, cache.getMissCount());
+    }
+
+    /**
+     * Test that the path stays within the tolerance of the lines between keyframes.
+     */
+    public void testKeyframesWithinTolerance() {
+        final float tolerance = 0.25f;
+        float[] keyframes = new PathKeyframeCache().getKeyframes(mPath, tolerance);
+        PathMeasure measure = new PathMeasure(mPath, false);
+        float length = measure.getLength();
+        float[] point = new float[2];
+        assertEquals(0f, keyframes[0]);
+        assertEquals(1f, keyframes[keyframes.length - 3], 1e-6f);
+        for (int i = 0; i + 3 < keyframes.length; i += 3) {
+            for (int step = 0; step <= 8; step++) {
+                float fraction = keyframes[i] + (keyframes[i + 3] - keyframes[i]) * step / 8;
+                measure.getPosTan(fraction * length, point, null);
+                float distance = getDistanceToLine(point[0], point[1], keyframes[i + 1],
+                        keyframes[i + 2], keyframes[i + 4], keyframes[i + 5]);
+                // Splitting stops on the middle point, so allow some error elsewhere.
+                assertTrue("Point " + fraction + " is " + distance + " away",
+                        distance <= tolerance * 2);
+            }
+        }
+    }
+
+    /**
+     * Test that animators start and end on the ends of the path.
+     */
+    public void testAnimatorEnds() {
+        ObjectAnimator animator = new PathKeyframeCache().ofFloat(mView, View.TRANSLATION_X,
+                View.TRANSLATION_Y, mPath, FRAMEWORK_TOLERANCE);
+        animator.setDuration(1000);
+        animator.setCurrentPlayTime(0);
+        assertEquals(0f, mView.getTranslationX(), 1e-3f);
+        assertEquals(0f, mView.getTranslationY(), 1e-3f);
+        animator.setCurrentPlayTime(1000);
+        assertEquals(960f, mView.getTranslationX(), 1e-3f);
+        assertEquals(0f, mView.getTranslationY(), 1e-3f);
+    }
+
+    /**
+     * Compare building animators along the path with the framework and with the cache.
+     */
+    public void testConstructionBenchmark() {
+        PathKeyframeCache cache = new PathKeyframeCache();
+        for (int i = 0; i < WARMUP_ANIMATORS; i++) {
+            ObjectAnimator.ofFloat(mView, View.TRANSLATION_X, View.TRANSLATION_Y, mPath);
+            cache.ofFloat(mView, View.TRANSLATION_X, View.TRANSLATION_Y, mPath,
+                    FRAMEWORK_TOLERANCE);
+        }
+
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocSize();
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ANIMATORS; i++) {
+                ObjectAnimator.ofFloat(mView, View.TRANSLATION_X, View.TRANSLATION_Y, mPath);
+            }
+            long frameworkNanos = System.nanoTime() - start;
+            long frameworkBytes = Debug.getThreadAllocSize();
+
+            Debug.resetThreadAllocSize();
+            start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ANIMATORS; i++) {
+                cache.ofFloat(mView, View.TRANSLATION_X, View.TRANSLATION_Y, mPath,
+                        FRAMEWORK_TOLERANCE);
+            }
+            long cachedNanos = System.nanoTime() - start;
+            long cachedBytes = Debug.getThreadAllocSize();
+
+            Log.i(TAG, String.format("framework: %d ns, %d bytes per animator;"
+                            + " cached: %d ns, %d bytes per animator; %d keyframes",
+                    frameworkNanos / MEASURED_ANIMATORS, frameworkBytes / MEASURED_ANIMATORS,
+                    cachedNanos / MEASURED_ANIMATORS, cachedBytes / MEASURED_ANIMATORS,
+                    cache.getKeyframes(mPath, FRAMEWORK_TOLERANCE).length / 3));
+            // Allocation counts are only kept by some runtimes.
+            if (frameworkBytes > 0) {
+                assertTrue(cachedBytes < frameworkBytes);
+            }
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    private static float getDistanceToLine(float x, float y, float startX, float startY,
+            float endX, float endY) {
+        float dx = endX - startX;
+        float dy = endY - startY;
+        float lengthSquared = dx * dx + dy * dy;
+        float t = lengthSquared == 0 ? 0
+                : Math.max(0, Math.min(1, ((x - startX) * dx + (y - startY) * dy) / lengthSquared));
+        return (float) Math.hypot(x - (startX + dx * t), y - (startY + dy * t));
+    }
+}
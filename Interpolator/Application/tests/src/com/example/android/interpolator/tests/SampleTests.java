@@ -20,14 +20,18 @@ import com.example.android.interpolator.InterpolatorFragment;
 import com.example.android.interpolator.MainActivity;
 import com.example.android.interpolator.R;
 
+import android.animation.Animator;
 import android.animation.ObjectAnimator;
 import android.test.ActivityInstrumentationTestCase2;
 import android.test.UiThreadTest;
 import android.view.animation.Interpolator;
+import android.widget.RadioGroup;
 import android.widget.SeekBar;
 import android.widget.Spinner;
 import android.widget.TextView;
 
+import java.util.List;
+
 /**
  * Tests for interpolatorplayground sample.
  */
@@ -113,4 +117,36 @@ public class SampleTests extends ActivityInstrumentationTestCase2<MainActivity>
             animator.cancel();
         }
     }
+
+    /**
+     * Test if the stress mode starts an animator per view or a single shared animator.
+     */
+    @UiThreadTest
+    public void testStartStressAnimation() {
+        final int viewCount = 100;
+        final Interpolator interpolator = mTestFragment.getInterpolators()[0];
+        RadioGroup driverGroup = (RadioGroup) getActivity().findViewById(R.id.stressDriverGroup);
+        mTestFragment.setStressViewCount(viewCount);
+
+        driverGroup.check(R.id.stressDriverObjectAnimators);
+        List<Animator> animators =
+                mTestFragment.startStressAnimation(interpolator, 1000L, mTestFragment.getPathIn());
+        assertEquals(viewCount, animators.size());
+        for (Animator animator : animators) {
+            assertTrue(animator.isStarted());
+        }
+
+        // Starting the shared animator cancels the animators per view
+        driverGroup.check(R.id.stressDriverShared);
+        List<Animator> objectAnimators = animators;
+        animators =
+                mTestFragment.startStressAnimation(interpolator, 1000L, mTestFragment.getPathIn());
+        assertEquals(viewCount, objectAnimators.size());
+        assertFalse(objectAnimators.get(0).isStarted());
+        assertEquals(1, animators.size());
+        assertTrue(animators.get(0).isStarted());
+        animators.get(0).cancel();
+
+        mTestFragment.setStressViewCount(0);
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A single change to displayed data, matching one of RecyclerView.Adapter's
+ * <code>notifyItem*</code> calls.
+ */
+public final class DataChange {
+
+    public static final int INSERTED = 0;
+    public static final int CHANGED = 1;
+    public static final int REMOVED = 2;
+    public static final int MOVED = 3;
+
+    private final int mType;
+    private final int mPosition;
+    private final int mToPosition;
+
+    private DataChange(int type, int position, int toPosition) {
+        mType = type;
+        mPosition = position;
+        mToPosition = toPosition;
+    }
+
+    @NonNull
+    public static DataChange inserted(int position) {
+        return new DataChange(INSERTED, position, position);
+    }
+
+    @NonNull
+    public static DataChange changed(int position) {
+        return new DataChange(CHANGED, position, position);
+    }
+
+    @NonNull
+    public static DataChange removed(int position) {
+        return new DataChange(REMOVED, position, position);
+    }
+
+    @NonNull
+    public static DataChange moved(int fromPosition, int toPosition) {
+        return new DataChange(MOVED, fromPosition, toPosition);
+    }
+
+    /**
+     * @return One of {@link #INSERTED}, {@link #CHANGED}, {@link #REMOVED} or {@link #MOVED}.
+     */
+    public int getType() {
+        return mType;
+    }
+
+    /**
+     * @return The position of the change, or the position an item was moved from.
+     */
+    public int getPosition() {
+        return mPosition;
+    }
+
+    /**
+     * @return The position an item was moved to, else the same as {@link #getPosition()}.
+     */
+    public int getToPosition() {
+        return mToPosition;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DataChange)) {
+            return false;
+        }
+        DataChange change = (DataChange) o;
+        return mType == change.mType && mPosition == change.mPosition
+                && mToPosition == change.mToPosition;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mType;
+        result = 31 * result + mPosition;
+        result = 31 * result + mToPosition;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "DataChange{type=" + mType + ", position=" + mPosition
+                + ", toPosition=" + mToPosition + "}";
+    }
+}
@@ -16,19 +16,37 @@
 
 package com.google.samples.apps.ourstreets.data;
 
+import android.os.Handler;
+import android.os.Looper;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import android.util.Log;
 
+import com.firebase.client.ChildEventListener;
 import com.firebase.client.DataSnapshot;
 import com.firebase.client.Firebase;
 import com.firebase.client.FirebaseError;
 import com.firebase.client.ValueEventListener;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * Base class for data presentation.
+ * <p>
+ * Snapshots are parsed on a background thread, and only the parsed data is handed to the view on
+ * the main thread. Snapshots are parsed from their raw values, which are read once per
+ * child, rather than by looking up and converting every field through its own snapshot.
+ * <p>
+ * If the view is an {@link IncrementalDataView}, the data is kept up to date from child events.
+ * Only the children that were added or changed are parsed again, on the same background thread
+ * and in the order the events arrived, and each event is reported to the view as a single
+ * {@link DataChange}. Other views receive the whole data again
+ * on every change.
  *
  * @param <T> The data type which will be displayed.
  */
@@ -36,10 +54,28 @@ abstract class DataPresenter<T> {
 
     private static final String TAG = "DataPresenter";
 
+    /**
+     * Parses snapshots in the order they arrived, for all presenters.
+     */
+    private static final Executor PARSE_EXECUTOR = Executors.newSingleThreadExecutor();
+
     private final Firebase mFirebase;
     private final ValueEventListener mValueEventListener;
-    private final List<T> mData;
     private final DataView<T> mDataView;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final KeyedIndex<T> mIndex = new KeyedIndex<>();
+    private final ChildEventListener mChildEventListener;
+    private final ValueEventListener mInitialDataListener;
+    /**
+     * <code>true</code> once the snapshot of the data that existed when listening started has
+     * been received. Earlier child events are part of it.
+     */
+    private boolean mInitialDataReceived;
+    /**
+     * Increased whenever listening starts or stops, to drop data parsed for earlier listeners.
+     */
+    private int mGeneration;
 
     /**
      * Creates a data presenter.
@@ -49,18 +85,17 @@ abstract class DataPresenter<T> {
      */
     DataPresenter(@NonNull DataView<T> dataView, @NonNull String configUrl) {
         mFirebase = new Firebase(configUrl);
-        mData = new ArrayList<>();
         mDataView = dataView;
 
         mValueEventListener = new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot dataSnapshot) {
-                mData.clear();
-                for (DataSnapshot data : dataSnapshot.getChildren()) {
-                    // Data parsing is being done within the extending classes.
-                    mData.add(parseData(data));
-                }
-                mDataView.showData(mData);
+                parseAsync(dataSnapshot, new ParsedDataCallback<T>() {
+                    @Override
+                    public void onDataParsed(List<String> keys, List<T> data) {
+                        mDataView.showData(Collections.unmodifiableList(data));
+                    }
+                });
             }
 
             @Override
@@ -70,18 +105,197 @@ abstract class DataPresenter<T> {
                 mDataView.showError();
             }
         };
+
+        mChildEventListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(final DataSnapshot data, final String previousChildKey) {
+                onChildEvent(data, new ParsedChildCallback<T>() {
+                    @Override
+                    public void onChildParsed(T child) {
+                        showChange(mIndex.onChildAdded(data.getKey(), child, previousChildKey));
+                    }
+                });
+            }
+
+            @Override
+            public void onChildChanged(final DataSnapshot data, String previousChildKey) {
+                onChildEvent(data, new ParsedChildCallback<T>() {
+                    @Override
+                    public void onChildParsed(T child) {
+                        showChange(mIndex.onChildChanged(data.getKey(), child));
+                    }
+                });
+            }
+
+            @Override
+            public void onChildRemoved(final DataSnapshot data) {
+                onChildEvent(null, new ParsedChildCallback<T>() {
+                    @Override
+                    public void onChildParsed(T child) {
+                        showChange(mIndex.onChildRemoved(data.getKey()));
+                    }
+                });
+            }
+
+            @Override
+            public void onChildMoved(final DataSnapshot data, final String previousChildKey) {
+                onChildEvent(null, new ParsedChildCallback<T>() {
+                    @Override
+                    public void onChildParsed(T child) {
+                        showChange(mIndex.onChildMoved(data.getKey(), previousChildKey));
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(FirebaseError firebaseError) {
+                mValueEventListener.onCancelled(firebaseError);
+            }
+        };
+
+        // Value events are raised after the child events for the same data, so this snapshot
+        // holds all children that already existed. They are parsed together from it, and the
+        // child events that announced them one by one are ignored.
+        mInitialDataListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                mInitialDataReceived = true;
+                parseAsync(dataSnapshot, new ParsedDataCallback<T>() {
+                    @Override
+                    public void onDataParsed(List<String> keys, List<T> data) {
+                        String previousKey = null;
+                        for (int i = 0; i < keys.size(); i++) {
+                            mIndex.onChildAdded(keys.get(i), data.get(i), previousKey);
+                            previousKey = keys.get(i);
+                        }
+                        mDataView.showData(mIndex.getData());
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(FirebaseError firebaseError) {
+                // Reported by the child event listener.
+            }
+        };
     }
 
+    /**
+     * Parses a single child. This is called on a background thread.
+     *
+     * @param value The raw value of the child, as returned by {@link DataSnapshot#getValue()}.
+     */
     @NonNull
-    protected abstract T parseData(DataSnapshot data);
+    protected abstract T parseData(@NonNull Map<String, Object> value);
 
     /**
      * Asynchronously gets data to display.
      * Once the data is available one of {@link DataView}'s methods will be invoked.
      */
     public final void getData() {
+        stop();
+        if (mDataView instanceof IncrementalDataView) {
+            mIndex.clear();
+            mInitialDataReceived = false;
+            mFirebase.addChildEventListener(mChildEventListener);
+            mFirebase.addListenerForSingleValueEvent(mInitialDataListener);
+        } else {
+            mFirebase.addValueEventListener(mValueEventListener);
+        }
+    }
+
+    /**
+     * Stops getting data. The view isn't invoked any more.
+     */
+    public final void stop() {
+        mGeneration++;
         mFirebase.removeEventListener(mValueEventListener);
-        mFirebase.addValueEventListener(mValueEventListener);
+        mFirebase.removeEventListener(mChildEventListener);
+        mFirebase.removeEventListener(mInitialDataListener);
     }
 
+    /**
+     * Parses all children of a snapshot on a background thread.
+     *
+     * @param callback Receives the keys and the parsed children on the main thread, unless
+     * listening has been stopped or restarted in the meantime.
+     */
+    private void parseAsync(@NonNull final DataSnapshot snapshot,
+                            @NonNull final ParsedDataCallback<T> callback) {
+        final int generation = mGeneration;
+        PARSE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                int count = (int) snapshot.getChildrenCount();
+                final List<String> keys = new ArrayList<>(count);
+                final List<T> data = new ArrayList<>(count);
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    keys.add(child.getKey());
+                    data.add(parseChild(child));
+                }
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            callback.onDataParsed(keys, data);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    @NonNull
+    private T parseChild(@NonNull DataSnapshot child) {
+        //noinspection unchecked
+        return parseData((Map<String, Object>) child.getValue());
+    }
+
+    /**
+     * Parses the child of a child event on a background thread. Events without a child to parse
+     * take the same way, so that all changes reach the view in the order they arrived, after
+     * the initial data that was queued before them.
+     *
+     * @param child The child to parse, or <code>null</code> if the event has none.
+     * @param callback Receives the parsed child, or <code>null</code>, on the main thread,
+     * unless listening has been stopped or restarted in the meantime.
+     */
+    private void onChildEvent(@Nullable final DataSnapshot child,
+                              @NonNull final ParsedChildCallback<T> callback) {
+        if (!mInitialDataReceived) {
+            // Part of the initial data.
+            return;
+        }
+        final int generation = mGeneration;
+        PARSE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final T parsed = child != null ? parseChild(child) : null;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            callback.onChildParsed(parsed);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void showChange(@Nullable DataChange change) {
+        if (change != null) {
+            ((IncrementalDataView<T>) mDataView).showDataChange(change);
+        }
+    }
+
+    private interface ParsedDataCallback<T> {
+
+        void onDataParsed(List<String> keys, List<T> data);
+    }
+
+    private interface ParsedChildCallback<T> {
+
+        void onChildParsed(@Nullable T child);
+    }
 }
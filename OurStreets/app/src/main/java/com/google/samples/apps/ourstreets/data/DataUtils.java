@@ -17,23 +17,75 @@
 package com.google.samples.apps.ourstreets.data;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.google.android.gms.maps.model.LatLng;
+import com.google.samples.apps.ourstreets.model.Detail;
+import com.google.samples.apps.ourstreets.model.Gallery;
 
-import com.firebase.client.DataSnapshot;
+import java.util.Map;
 
 /**
  * Utility class for data manipulation
+ * <p>
+ * Values are read from the raw values of snapshots, where objects are maps and numbers are
+ * {@link Long}s or {@link Double}s, depending on whether they are integral.
  */
 public final class DataUtils {
 
     /**
-     * Read latitude and longitude data from a snapshot's child called {@link JsonKeys#LOCATION}.
+     * Read a gallery from the raw value of its snapshot.
      */
-    public static @NonNull LatLng readLatLng(@NonNull DataSnapshot snapshot) {
-        final DataSnapshot location = snapshot.child(JsonKeys.LOCATION);
-        double lat = location.child(JsonKeys.LATITUDE).getValue(Double.class);
-        double lng = location.child(JsonKeys.LONGITUDE).getValue(Double.class);
-        return new LatLng(lat, lng);
+    public static @NonNull Gallery readGallery(@NonNull Map<String, Object> value) {
+        return new Gallery(readString(value, JsonKeys.TITLE),
+                readString(value, JsonKeys.DESCRIPTION),
+                readString(value, JsonKeys.GALLERY_ID),
+                readLatLng(value));
+    }
+
+    /**
+     * Read a detail from the raw value of its snapshot.
+     */
+    public static @NonNull Detail readDetail(@NonNull Map<String, Object> value) {
+        final Map<String, Object> location = readMap(value, JsonKeys.LOCATION);
+        return new Detail(readString(value, JsonKeys.TITLE),
+                readString(value, JsonKeys.DESCRIPTION),
+                new LatLng(readNumber(location, JsonKeys.LATITUDE).doubleValue(),
+                        readNumber(location, JsonKeys.LONGITUDE).doubleValue()),
+                readNumber(location, JsonKeys.TILT).floatValue(),
+                readNumber(location, JsonKeys.BEARING).floatValue());
+    }
+
+    /**
+     * Read latitude and longitude data from a value's child called {@link JsonKeys#LOCATION}.
+     */
+    public static @NonNull LatLng readLatLng(@NonNull Map<String, Object> value) {
+        final Map<String, Object> location = readMap(value, JsonKeys.LOCATION);
+        return new LatLng(readNumber(location, JsonKeys.LATITUDE).doubleValue(),
+                readNumber(location, JsonKeys.LONGITUDE).doubleValue());
+    }
+
+    private static @Nullable String readString(@NonNull Map<String, Object> value,
+                                               @NonNull String key) {
+        return (String) value.get(key);
+    }
+
+    private static @NonNull Number readNumber(@NonNull Map<String, Object> value,
+                                              @NonNull String key) {
+        final Number number = (Number) value.get(key);
+        if (number == null) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return number;
+    }
+
+    private static @NonNull Map<String, Object> readMap(@NonNull Map<String, Object> value,
+                                                        @NonNull String key) {
+        //noinspection unchecked
+        final Map<String, Object> map = (Map<String, Object>) value.get(key);
+        if (map == null) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return map;
     }
 }
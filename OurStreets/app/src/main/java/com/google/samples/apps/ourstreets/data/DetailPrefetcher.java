@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.samples.apps.ourstreets.model.Detail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches the details of galleries before they are tapped, so that their markers can be shown as
+ * soon as the detail transition starts.
+ * <p>
+ * Galleries passed to {@link #prefetch(List)} are fetched in order, at most a limited number at a
+ * time. Fetches of galleries that aren't passed to {@link #retain(Collection)} any more are
+ * cancelled. Fetched details are kept in a least recently used cache and read with
+ * {@link #get(String)}, which counts hits and misses.
+ * <p>
+ * This class is not thread safe, it is meant to be used from the main thread.
+ */
+public final class DetailPrefetcher {
+
+    /**
+     * Starts fetching the details of a gallery.
+     */
+    public interface Fetcher {
+
+        /**
+         * @param galleryId The id of the gallery.
+         * @param dataView The view to show the details or an error on.
+         * @return The fetch, to stop it once it completed or isn't needed any more.
+         */
+        @NonNull
+        Fetch fetch(@NonNull String galleryId, @NonNull DataView<Detail> dataView);
+    }
+
+    /**
+     * A started fetch.
+     */
+    public interface Fetch {
+
+        void cancel();
+    }
+
+    private static final int MAX_CONCURRENT_FETCHES = 2;
+    private static final int CACHE_SIZE = 16;
+
+    private static DetailPrefetcher sInstance;
+
+    private final Fetcher mFetcher;
+    private final int mMaxConcurrentFetches;
+    private final Map<String, List<Detail>> mCache;
+    private final Set<String> mQueue = new LinkedHashSet<>();
+    private final Map<String, PrefetchView> mFetches = new HashMap<>();
+
+    private int mHitCount;
+    private int mMissCount;
+    private String mTappedGalleryId;
+    private long mTapNanos;
+
+    /**
+     * @param fetcher Fetches the details of a gallery.
+     * @param maxConcurrentFetches The maximum number of galleries fetched at the same time.
+     * @param cacheSize The maximum number of galleries whose details are kept.
+     */
+    public DetailPrefetcher(@NonNull Fetcher fetcher, int maxConcurrentFetches,
+                            final int cacheSize) {
+        mFetcher = fetcher;
+        mMaxConcurrentFetches = maxConcurrentFetches;
+        mCache = new LinkedHashMap<String, List<Detail>>(cacheSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Detail>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @return The prefetcher of this application, which fetches with {@link DetailPresenter}s.
+     */
+    @NonNull
+    public static synchronized DetailPrefetcher getInstance() {
+        if (sInstance == null) {
+            sInstance = new DetailPrefetcher(new Fetcher() {
+                @NonNull
+                @Override
+                public Fetch fetch(@NonNull String galleryId, @NonNull DataView<Detail> dataView) {
+                    final DetailPresenter presenter = new DetailPresenter(dataView, galleryId);
+                    presenter.getData();
+                    return new Fetch() {
+                        @Override
+                        public void cancel() {
+                            presenter.stop();
+                        }
+                    };
+                }
+            }, MAX_CONCURRENT_FETCHES, CACHE_SIZE);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Fetches the details of galleries that aren't cached yet, and cancels all other fetches.
+     *
+     * @param galleryIds The ids of the galleries, most important first.
+     */
+    public void prefetch(@NonNull List<String> galleryIds) {
+        retain(galleryIds);
+        for (String galleryId : galleryIds) {
+            if (!mCache.containsKey(galleryId) && !mFetches.containsKey(galleryId)) {
+                mQueue.add(galleryId);
+            }
+        }
+        startFetches();
+    }
+
+    /**
+     * Cancels the fetches of all galleries but the given ones.
+     *
+     * @param galleryIds The ids of the galleries that are still needed.
+     */
+    public void retain(@NonNull Collection<String> galleryIds) {
+        Set<String> retained = new HashSet<>(galleryIds);
+        mQueue.retainAll(retained);
+        Iterator<Map.Entry<String, PrefetchView>> fetches = mFetches.entrySet().iterator();
+        while (fetches.hasNext()) {
+            Map.Entry<String, PrefetchView> fetch = fetches.next();
+            if (!retained.contains(fetch.getKey())) {
+                fetches.remove();
+                fetch.getValue().cancel();
+            }
+        }
+        startFetches();
+    }
+
+    /**
+     * @param galleryId The id of a gallery.
+     * @return The prefetched details of the gallery, or <code>null</code> if they weren't fetched.
+     */
+    @Nullable
+    public List<Detail> get(@NonNull String galleryId) {
+        List<Detail> details = mCache.get(galleryId);
+        if (details == null) {
+            mMissCount++;
+        } else {
+            mHitCount++;
+        }
+        return details;
+    }
+
+    /**
+     * Marks that a gallery has been tapped, to measure the time until its markers are shown.
+     */
+    public void onGalleryTapped(@NonNull String galleryId) {
+        mTappedGalleryId = galleryId;
+        mTapNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks that the markers of a gallery are shown.
+     *
+     * @return The time since the gallery was tapped in milliseconds, or -1 if it wasn't tapped
+     * or its markers have already been shown.
+     */
+    public long onMarkersShown(@NonNull String galleryId) {
+        if (!galleryId.equals(mTappedGalleryId)) {
+            return -1;
+        }
+        mTappedGalleryId = null;
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mTapNanos);
+    }
+
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return The share of {@link #get(String)} calls that returned prefetched details.
+     */
+    public float getHitRate() {
+        int count = mHitCount + mMissCount;
+        return count == 0 ? 0 : mHitCount / (float) count;
+    }
+
+    /**
+     * @return The ids of the galleries that are being fetched.
+     */
+    @NonNull
+    Set<String> getFetchingGalleryIds() {
+        return mFetches.keySet();
+    }
+
+    private void startFetches() {
+        while (mFetches.size() < mMaxConcurrentFetches && !mQueue.isEmpty()) {
+            // Fetches that complete synchronously start the next ones themselves,
+            // so the queue is read again every time.
+            Iterator<String> queue = mQueue.iterator();
+            String galleryId = queue.next();
+            queue.remove();
+            PrefetchView view = new PrefetchView(galleryId);
+            mFetches.put(galleryId, view);
+            view.start();
+        }
+    }
+
+    /**
+     * Receives the details of a single fetch.
+     */
+    private final class PrefetchView implements DataView<Detail> {
+
+        private final String mGalleryId;
+        private Fetch mFetch;
+        private boolean mDone;
+
+        PrefetchView(@NonNull String galleryId) {
+            mGalleryId = galleryId;
+        }
+
+        void start() {
+            Fetch fetch = mFetcher.fetch(mGalleryId, this);
+            if (mDone) {
+                fetch.cancel();
+            } else {
+                mFetch = fetch;
+            }
+        }
+
+        void cancel() {
+            mDone = true;
+            if (mFetch != null) {
+                mFetch.cancel();
+            }
+        }
+
+        @Override
+        public void showData(List<Detail> data) {
+            if (!mDone) {
+                mCache.put(mGalleryId, new ArrayList<>(data));
+                finish();
+            }
+        }
+
+        @Override
+        public void showError() {
+            if (!mDone) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            cancel();
+            mFetches.remove(mGalleryId);
+            startFetches();
+        }
+    }
+}
@@ -18,11 +18,10 @@ package com.google.samples.apps.ourstreets.data;
 
 import androidx.annotation.NonNull;
 
-import com.google.android.gms.maps.model.LatLng;
-
 import com.google.samples.apps.ourstreets.BuildConfig;
 import com.google.samples.apps.ourstreets.model.Detail;
-import com.firebase.client.DataSnapshot;
+
+import java.util.Map;
 
 /**
  * Presents gallery details to other components of this app.
@@ -35,13 +34,7 @@ public final class DetailPresenter extends DataPresenter<Detail> {
 
     @NonNull
     @Override
-    protected Detail parseData(DataSnapshot data) {
-            String title = data.child(JsonKeys.TITLE).getValue(String.class);
-            String description = data.child(JsonKeys.DESCRIPTION).getValue(String.class);
-            LatLng latLng = DataUtils.readLatLng(data);
-            DataSnapshot location = data.child(JsonKeys.LOCATION);
-            Float tilt = location.child(JsonKeys.TILT).getValue(Float.class);
-            Float bearing = location.child(JsonKeys.BEARING).getValue(Float.class);
-        return new Detail(title, description, latLng, tilt, bearing);
+    protected Detail parseData(@NonNull Map<String, Object> value) {
+        return DataUtils.readDetail(value);
     }
 }
@@ -18,11 +18,10 @@ package com.google.samples.apps.ourstreets.data;
 
 import androidx.annotation.NonNull;
 
-import com.google.android.gms.maps.model.LatLng;
-
 import com.google.samples.apps.ourstreets.BuildConfig;
 import com.google.samples.apps.ourstreets.model.Gallery;
-import com.firebase.client.DataSnapshot;
+
+import java.util.Map;
 
 /**
  * Presents galleries to other components of this app.
@@ -35,11 +34,7 @@ public final class GalleryPresenter extends DataPresenter<Gallery> {
 
     @NonNull
     @Override
-    protected Gallery parseData(DataSnapshot data) {
-        String title = data.child(JsonKeys.TITLE).getValue(String.class);
-        String description = data.child(JsonKeys.DESCRIPTION).getValue(String.class);
-        String galleryId = data.child(JsonKeys.GALLERY_ID).getValue(String.class);
-        LatLng latLng = DataUtils.readLatLng(data);
-        return new Gallery(title, description, galleryId, latLng);
+    protected Gallery parseData(@NonNull Map<String, Object> value) {
+        return DataUtils.readGallery(value);
     }
 }
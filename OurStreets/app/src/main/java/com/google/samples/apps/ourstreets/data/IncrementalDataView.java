@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Informing on data's state, one change at a time after the data has been shown.
+ * <p>
+ * The list passed to {@link #showData(java.util.List)} is updated in place before every call to
+ * {@link #showDataChange(DataChange)}.
+ */
+public interface IncrementalDataView<T> extends DataView<T> {
+
+    /**
+     * Called when the displayed data changed.
+     *
+     * @param change The change that was made to the displayed list.
+     */
+    void showDataChange(@NonNull DataChange change);
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ordered data kept up to date from keyed child events, as Firebase reports them.
+ * <p>
+ * Every event returns the single {@link DataChange} it made to {@link #getData()}, or
+ * <code>null</code> if the data didn't change. Positions are looked up through a key index that is
+ * only rebuilt from the first position that shifted, so appending children, the common case, stays
+ * constant time.
+ *
+ * @param <T> The type of the parsed children.
+ */
+final class KeyedIndex<T> {
+
+    private final List<T> mData = new ArrayList<>();
+    private final List<String> mKeys = new ArrayList<>();
+    private final Map<String, Integer> mPositions = new HashMap<>();
+
+    /**
+     * The children at positions below this one have up to date entries in {@link #mPositions}.
+     */
+    private int mValidPositions;
+
+    /**
+     * @return The data, updated in place by every event.
+     */
+    @NonNull
+    List<T> getData() {
+        return mData;
+    }
+
+    /**
+     * Removes all data.
+     */
+    void clear() {
+        mData.clear();
+        mKeys.clear();
+        mPositions.clear();
+        mValidPositions = 0;
+    }
+
+    /**
+     * @param key The key of a child.
+     * @return The position of the child, or -1.
+     */
+    int getPosition(@NonNull String key) {
+        Integer position = mPositions.get(key);
+        // Entries of children that shifted can be stale, even below mValidPositions.
+        if (position == null || position >= mValidPositions
+                || !mKeys.get(position).equals(key)) {
+            for (int i = mValidPositions; i < mKeys.size(); i++) {
+                mPositions.put(mKeys.get(i), i);
+            }
+            mValidPositions = mKeys.size();
+            position = mPositions.get(key);
+        }
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * @param key The key of the added child.
+     * @param item The parsed child.
+     * @param previousKey The key of the child before it, or <code>null</code> if it is first.
+     */
+    @Nullable
+    DataChange onChildAdded(@NonNull String key, @NonNull T item, @Nullable String previousKey) {
+        if (getPosition(key) >= 0) {
+            // Already known, for example when listening again.
+            return onChildChanged(key, item);
+        }
+        int position = getInsertPosition(previousKey);
+        insert(position, key, item);
+        return DataChange.inserted(position);
+    }
+
+    /**
+     * @param key The key of the changed child.
+     * @param item The parsed child.
+     * @return The change, or <code>null</code> if the parsed child is equal to the known one.
+     */
+    @Nullable
+    DataChange onChildChanged(@NonNull String key, @NonNull T item) {
+        int position = getPosition(key);
+        if (position < 0 || item.equals(mData.get(position))) {
+            return null;
+        }
+        mData.set(position, item);
+        return DataChange.changed(position);
+    }
+
+    /**
+     * @param key The key of the removed child.
+     */
+    @Nullable
+    DataChange onChildRemoved(@NonNull String key) {
+        int position = getPosition(key);
+        if (position < 0) {
+            return null;
+        }
+        remove(position);
+        return DataChange.removed(position);
+    }
+
+    /**
+     * @param key The key of the moved child.
+     * @param previousKey The key of the child now before it, or <code>null</code> if it is first.
+     */
+    @Nullable
+    DataChange onChildMoved(@NonNull String key, @Nullable String previousKey) {
+        int from = getPosition(key);
+        if (from < 0) {
+            return null;
+        }
+        T item = mData.get(from);
+        remove(from);
+        int to = getInsertPosition(previousKey);
+        insert(to, key, item);
+        return from == to ? null : DataChange.moved(from, to);
+    }
+
+    private int getInsertPosition(@Nullable String previousKey) {
+        if (previousKey == null) {
+            return 0;
+        }
+        int previous = getPosition(previousKey);
+        // An unknown previous child shouldn't happen, keep the child at the end then.
+        return previous < 0 ? mKeys.size() : previous + 1;
+    }
+
+    private void insert(int position, String key, T item) {
+        mData.add(position, item);
+        mKeys.add(position, key);
+        if (position == mValidPositions) {
+            mPositions.put(key, position);
+            mValidPositions++;
+        } else {
+            mValidPositions = Math.min(mValidPositions, position);
+        }
+    }
+
+    private void remove(int position) {
+        mData.remove(position);
+        mPositions.remove(mKeys.remove(position));
+        mValidPositions = Math.min(mValidPositions, position);
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.samples.apps.ourstreets.model.Detail;
+import com.google.samples.apps.ourstreets.model.Gallery;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Keeps galleries and their details on disk, so that they can be shown before the remote data
+ * arrives.
+ * <p>
+ * The galleries and the details of each gallery are stored in their own files, in a compact binary
+ * encoding. Every file is versioned by a checksum of its content, so writing data that is already
+ * stored is detected, skipped and reported, without touching the disk. The checksum is verified
+ * while a file is read, so files that were truncated or corrupted on disk are treated as missing,
+ * just like files written in an older format or that fail to read.
+ */
+public final class ModelStore {
+
+    /**
+     * Version of the file format, to be increased whenever the encoding changes.
+     */
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAGIC = 0x4f53544d; // "OSTM"
+
+    private static final String GALLERIES_FILE = "galleries";
+    private static final String DETAILS_DIRECTORY = "details";
+
+    private static ModelStore sInstance;
+
+    private final File mDirectory;
+    /**
+     * Versions of the files that were read or written, by file name.
+     */
+    private final Map<String, Long> mVersions = new HashMap<>();
+
+    /**
+     * @param directory The directory the files are kept in.
+     */
+    public ModelStore(@NonNull File directory) {
+        mDirectory = directory;
+    }
+
+    /**
+     * @return The store of this application.
+     */
+    @NonNull
+    public static synchronized ModelStore getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new ModelStore(new File(context.getApplicationContext().getFilesDir(),
+                    "models"));
+        }
+        return sInstance;
+    }
+
+    /**
+     * @return The stored galleries, without their details, or <code>null</code> if none are.
+     */
+    @Nullable
+    public synchronized List<Gallery> readGalleries() {
+        PayloadInputStream in = open(new File(mDirectory, GALLERIES_FILE));
+        if (in == null) {
+            return null;
+        }
+        try {
+            int count = in.readInt();
+            List<Gallery> galleries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                galleries.add(new Gallery(readString(in), readString(in), readString(in),
+                        new LatLng(in.readDouble(), in.readDouble())));
+            }
+            if (in.isIntact()) {
+                mVersions.put(GALLERIES_FILE, in.getVersion());
+                return galleries;
+            }
+        } catch (IOException e) {
+            // Handled as a missing file.
+        } finally {
+            close(in);
+        }
+        mVersions.remove(GALLERIES_FILE);
+        return null;
+    }
+
+    /**
+     * Stores galleries, without their details.
+     *
+     * @return <code>true</code> if the galleries differ from the stored ones.
+     */
+    public synchronized boolean writeGalleries(@NonNull List<Gallery> galleries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(galleries.size());
+            for (Gallery gallery : galleries) {
+                writeString(out, gallery.getTitle());
+                writeString(out, gallery.getDescription());
+                writeString(out, gallery.getGalleryId());
+                writeLatLng(out, gallery.getPosition());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return write(GALLERIES_FILE, bytes.toByteArray());
+    }
+
+    /**
+     * @param galleryId The id of a gallery.
+     * @return The stored details of the gallery, or <code>null</code> if none are.
+     */
+    @Nullable
+    public synchronized List<Detail> readDetails(@NonNull String galleryId) {
+        String name = getDetailsFileName(galleryId);
+        PayloadInputStream in = open(new File(mDirectory, name));
+        if (in == null) {
+            return null;
+        }
+        try {
+            int count = in.readInt();
+            List<Detail> details = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                details.add(new Detail(readString(in), readString(in),
+                        new LatLng(in.readDouble(), in.readDouble()),
+                        in.readFloat(), in.readFloat()));
+            }
+            if (in.isIntact()) {
+                mVersions.put(name, in.getVersion());
+                return details;
+            }
+        } catch (IOException e) {
+            // Handled as a missing file.
+        } finally {
+            close(in);
+        }
+        mVersions.remove(name);
+        return null;
+    }
+
+    /**
+     * Stores the details of a gallery.
+     *
+     * @return <code>true</code> if the details differ from the stored ones.
+     */
+    public synchronized boolean writeDetails(@NonNull String galleryId,
+                                             @NonNull List<Detail> details) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(details.size());
+            for (Detail detail : details) {
+                writeString(out, detail.getTitle());
+                writeString(out, detail.getDescription());
+                writeLatLng(out, detail.getPosition());
+                out.writeFloat(detail.getTilt());
+                out.writeFloat(detail.getBearing());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return write(getDetailsFileName(galleryId), bytes.toByteArray());
+    }
+
+    /**
+     * @param galleryId The id of a gallery.
+     * @return The version of the gallery's stored details, or 0 if none are known.
+     */
+    public synchronized long getDetailsVersion(@NonNull String galleryId) {
+        Long version = mVersions.get(getDetailsFileName(galleryId));
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * @return The version of the stored galleries, or 0 if none are known.
+     */
+    public synchronized long getGalleriesVersion() {
+        Long version = mVersions.get(GALLERIES_FILE);
+        return version == null ? 0 : version;
+    }
+
+    @NonNull
+    private static String getDetailsFileName(@NonNull String galleryId) {
+        // Gallery ids are Firebase keys, which can't contain '/'.
+        return DETAILS_DIRECTORY + File.separator + galleryId;
+    }
+
+    /**
+     * Opens a file and reads its header.
+     *
+     * @return The stream positioned at the payload, or <code>null</code> if the file is missing
+     * or in another format.
+     */
+    @Nullable
+    private static PayloadInputStream open(@NonNull File file) {
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        try {
+            if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION) {
+                return new PayloadInputStream(in, in.readLong());
+            }
+        } catch (IOException e) {
+            // Handled as a missing file.
+        }
+        close(in);
+        return null;
+    }
+
+    private boolean write(@NonNull String name, @NonNull byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        long version = crc.getValue();
+        Long storedVersion = mVersions.get(name);
+        if (storedVersion != null && storedVersion == version) {
+            return false;
+        }
+        File file = new File(mDirectory, name);
+        File temp = new File(file.getPath() + ".tmp");
+        //noinspection ResultOfMethodCallIgnored
+        file.getParentFile().mkdirs();
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new FileOutputStream(temp));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(version);
+            out.write(payload);
+            out.close();
+            out = null;
+            if (!temp.renameTo(file)) {
+                throw new IOException("Unable to replace " + file);
+            }
+            mVersions.put(name, version);
+        } catch (IOException e) {
+            // The data is still shown, it just won't be available offline.
+            close(out);
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+        }
+        return true;
+    }
+
+    private static void writeString(@NonNull DataOutputStream out, @Nullable String value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readString(@NonNull DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeLatLng(@NonNull DataOutputStream out, @NonNull LatLng latLng)
+            throws IOException {
+        out.writeDouble(latLng.latitude);
+        out.writeDouble(latLng.longitude);
+    }
+
+    /**
+     * Reads the payload of a file, computing its checksum along the way.
+     */
+    private static final class PayloadInputStream extends DataInputStream {
+
+        /**
+         * The checksum of the payload, as written in the header.
+         */
+        private final long mVersion;
+
+        PayloadInputStream(@NonNull DataInputStream in, long version) {
+            super(new CheckedInputStream(in, new CRC32()));
+            mVersion = version;
+        }
+
+        long getVersion() {
+            return mVersion;
+        }
+
+        /**
+         * @return <code>true</code> if the payload was read up to its end and matches the
+         * checksum in the header.
+         */
+        boolean isIntact() throws IOException {
+            CheckedInputStream checked = (CheckedInputStream) in;
+            return checked.read() == -1 && checked.getChecksum().getValue() == mVersion;
+        }
+    }
+
+    private static void close(@Nullable Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing left to do.
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.samples.apps.ourstreets.model.Detail;
+import com.google.samples.apps.ourstreets.model.Gallery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Shows stored data at once and reconciles it with the remote data once that arrives.
+ * <p>
+ * Pass this to a presenter in place of the view. {@link #showStoredData()} shows what was stored
+ * the last time, without waiting for the presenter. Remote data is only passed on if it differs
+ * from the data that was shown, or if the view is an {@link IncrementalDataView}, which needs the
+ * presenter's live list to apply later changes to. Remote errors are only shown if nothing could
+ * be shown from the store.
+ * <p>
+ * Only views created for an {@link IncrementalDataView} are incremental themselves, so presenters
+ * send other views whole snapshots instead of child events. Data is stored on a background
+ * thread, once when it arrives and then, for incremental views, only on {@link #flush()}, so that
+ * changes to a large list don't rewrite it one child at a time.
+ *
+ * @param <T> The data type which will be displayed.
+ */
+public class OfflineFirstDataView<T> implements DataView<T> {
+
+    /**
+     * Local copy of the data.
+     */
+    public interface Store<T> {
+
+        /**
+         * @return The stored data, or <code>null</code> if none is.
+         */
+        @Nullable
+        List<T> read();
+
+        /**
+         * @return <code>true</code> if the data differs from the stored data.
+         */
+        boolean write(@NonNull List<T> data);
+    }
+
+    /**
+     * Writes the data of all views in the order it was flushed.
+     */
+    private static final Executor WRITE_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final DataView<T> mDataView;
+    private final Store<T> mStore;
+    private final Executor mWriteExecutor;
+    private boolean mShowedStoredData;
+    /**
+     * The data that was last shown, to tell whether the remote data changed.
+     */
+    private List<T> mShownData;
+    private List<T> mRemoteData;
+    /**
+     * <code>true</code> if the remote data changed since it was last stored.
+     */
+    private boolean mDirty;
+
+    OfflineFirstDataView(@NonNull DataView<T> dataView, @NonNull Store<T> store,
+                         @NonNull Executor writeExecutor) {
+        mDataView = dataView;
+        mStore = store;
+        mWriteExecutor = writeExecutor;
+    }
+
+    /**
+     * Creates a view that is incremental if the wrapped view is.
+     *
+     * @param writeExecutor Stores the data.
+     */
+    @NonNull
+    public static <T> OfflineFirstDataView<T> create(@NonNull DataView<T> dataView,
+                                                     @NonNull Store<T> store,
+                                                     @NonNull Executor writeExecutor) {
+        if (dataView instanceof IncrementalDataView) {
+            return new Incremental<>((IncrementalDataView<T>) dataView, store, writeExecutor);
+        }
+        return new OfflineFirstDataView<>(dataView, store, writeExecutor);
+    }
+
+    /**
+     * Shows the galleries of a store.
+     */
+    @NonNull
+    public static OfflineFirstDataView<Gallery> forGalleries(@NonNull DataView<Gallery> dataView,
+                                                             @NonNull ModelStore store) {
+        return forGalleries(dataView, store, WRITE_EXECUTOR);
+    }
+
+    @NonNull
+    static OfflineFirstDataView<Gallery> forGalleries(@NonNull DataView<Gallery> dataView,
+                                                      @NonNull final ModelStore store,
+                                                      @NonNull Executor writeExecutor) {
+        return create(dataView, new Store<Gallery>() {
+            @Nullable
+            @Override
+            public List<Gallery> read() {
+                return store.readGalleries();
+            }
+
+            @Override
+            public boolean write(@NonNull List<Gallery> data) {
+                return store.writeGalleries(data);
+            }
+        }, writeExecutor);
+    }
+
+    /**
+     * Shows the details of a gallery of a store.
+     */
+    @NonNull
+    public static OfflineFirstDataView<Detail> forDetails(@NonNull DataView<Detail> dataView,
+                                                          @NonNull final ModelStore store,
+                                                          @NonNull final String galleryId) {
+        return create(dataView, new Store<Detail>() {
+            @Nullable
+            @Override
+            public List<Detail> read() {
+                return store.readDetails(galleryId);
+            }
+
+            @Override
+            public boolean write(@NonNull List<Detail> data) {
+                return store.writeDetails(galleryId, data);
+            }
+        }, WRITE_EXECUTOR);
+    }
+
+    /**
+     * Shows the stored data, if there is any.
+     *
+     * @return <code>true</code> if stored data was shown.
+     */
+    public boolean showStoredData() {
+        List<T> data = mStore.read();
+        if (data == null) {
+            return false;
+        }
+        mShowedStoredData = true;
+        mShownData = data;
+        mDataView.showData(data);
+        return true;
+    }
+
+    /**
+     * Stores and shows data that was fetched ahead of the presenter, such as prefetched details.
+     * The presenter's data is then only shown if it differs from it.
+     */
+    public void showFetchedData(@NonNull List<T> data) {
+        mShowedStoredData = true;
+        store(data);
+        mShownData = data;
+        mDataView.showData(data);
+    }
+
+    /**
+     * Stores the changes made to the remote data since it was last stored, on a background
+     * thread.
+     */
+    public void flush() {
+        if (!mDirty) {
+            return;
+        }
+        mDirty = false;
+        // The remote data may keep changing on this thread, so a copy is written.
+        final List<T> data = new ArrayList<>(mRemoteData);
+        mWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mStore.write(data);
+            }
+        });
+    }
+
+    @Override
+    public void showData(List<T> data) {
+        boolean changed = !data.equals(mShownData);
+        store(data);
+        if (changed) {
+            mShownData = data;
+            mDataView.showData(data);
+        }
+    }
+
+    @Override
+    public void showError() {
+        if (!mShowedStoredData) {
+            mDataView.showError();
+        }
+    }
+
+    /**
+     * Stores data on a background thread and keeps it to store later changes.
+     */
+    void store(@NonNull List<T> data) {
+        mRemoteData = data;
+        mDirty = true;
+        flush();
+    }
+
+    /**
+     * Marks the remote data as changed, to be stored on the next {@link #flush()}.
+     */
+    void markDirty() {
+        mDirty = true;
+    }
+
+    DataView<T> getDataView() {
+        return mDataView;
+    }
+
+    /**
+     * Passes the presenter's live list and its changes on to an {@link IncrementalDataView}.
+     */
+    private static final class Incremental<T> extends OfflineFirstDataView<T>
+            implements IncrementalDataView<T> {
+
+        Incremental(@NonNull IncrementalDataView<T> dataView, @NonNull Store<T> store,
+                    @NonNull Executor writeExecutor) {
+            super(dataView, store, writeExecutor);
+        }
+
+        @Override
+        public void showData(List<T> data) {
+            store(data);
+            getDataView().showData(data);
+        }
+
+        @Override
+        public void showDataChange(@NonNull DataChange change) {
+            markDirty();
+            ((IncrementalDataView<T>) getDataView()).showDataChange(change);
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.google.samples.apps.ourstreets.fragment;
 
 import android.content.Context;
+import android.graphics.Point;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
@@ -37,20 +38,26 @@ import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.MapView;
 import com.google.android.gms.maps.OnMapReadyCallback;
+import com.google.android.gms.maps.Projection;
 import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.maps.android.clustering.ClusterManager;
 import com.google.samples.apps.ourstreets.R;
 import com.google.samples.apps.ourstreets.data.DataView;
+import com.google.samples.apps.ourstreets.data.DetailPrefetcher;
 import com.google.samples.apps.ourstreets.data.DetailPresenter;
 import com.google.samples.apps.ourstreets.data.IntentKeys;
+import com.google.samples.apps.ourstreets.data.ModelStore;
+import com.google.samples.apps.ourstreets.data.OfflineFirstDataView;
 import com.google.samples.apps.ourstreets.map.DetailClusterManager;
 import com.google.samples.apps.ourstreets.map.OnCameraPositionUpdateListener;
 import com.google.samples.apps.ourstreets.model.Detail;
 import com.google.samples.apps.ourstreets.model.Gallery;
+import com.google.samples.apps.ourstreets.transition.TransitionMetrics;
 import com.google.samples.apps.ourstreets.view.ViewUtils;
 
 import java.util.List;
+import java.util.Locale;
 
 /**
  * A {@link Fragment} that displays {@link Detail}s.
@@ -69,6 +76,8 @@ public class DetailFragment extends Fragment implements DataView<Detail> {
     private GoogleMap.OnMapClickListener mOnMapClickListener;
     private Detail mSelectedDetail;
     private Transition mDescriptionChange;
+    private TransitionMetrics mSharedElementMetrics;
+    private DetailPresenter mDetailPresenter;
 
     /**
      * Create a new instance with details for a given {@link Gallery}.
@@ -98,6 +107,13 @@ public class DetailFragment extends Fragment implements DataView<Detail> {
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mMapPadding = getResources().getDimensionPixelSize(R.dimen.padding_map);
+        final Object sharedElementEnter = getSharedElementEnterTransition();
+        if (mSharedElementMetrics == null && sharedElementEnter instanceof Transition) {
+            // Also measures the shared element return transition, which defaults to the
+            // same one.
+            mSharedElementMetrics = new TransitionMetrics(getContext(), "detail_shared_element");
+            mSharedElementMetrics.attach((Transition) sharedElementEnter);
+        }
         if (savedInstanceState != null) {
             mCameraPosition = savedInstanceState.getParcelable(IntentKeys.CAMERA_POSITION);
             mSelectedDetail = savedInstanceState.getParcelable(IntentKeys.DETAIL);
@@ -188,6 +204,7 @@ public class DetailFragment extends Fragment implements DataView<Detail> {
 
     @Override
     public void onDestroyView() {
+        stopDetailPresenter();
         mFloatingActionButton = null;
         super.onDestroyView();
     }
@@ -261,6 +278,8 @@ public class DetailFragment extends Fragment implements DataView<Detail> {
     private void initializeMap(final GoogleMap googleMap) {
         googleMap.moveCamera(CameraUpdateFactory.newCameraPosition(mCameraPosition));
         googleMap.setOnMapLoadedCallback(getOnMapLoadedCallback(googleMap));
+        // Stored details are replaced if the remote ones differ, don't keep their markers.
+        googleMap.clear();
         setMarkers(googleMap);
     }
 
@@ -286,27 +305,34 @@ public class DetailFragment extends Fragment implements DataView<Detail> {
     }
 
     private void setMarkers(GoogleMap googleMap) {
-        final List<Detail> locations = mGallery.getDetails();
-        ClusterManager<Detail> clusterManager = getClusterManager(googleMap);
-        clusterManager.addItems(locations);
+        DetailClusterManager clusterManager = getClusterManager(googleMap);
+        clusterManager.clusterVisibleDetails();
         googleMap.setOnCameraChangeListener(clusterManager);
+        reportMarkersShown();
     }
 
     @NonNull
     private DetailClusterManager getClusterManager(GoogleMap googleMap) {
-        return new DetailClusterManager(getContext(), googleMap,
+        return new DetailClusterManager(getContext(), googleMap, mGallery,
                 getOnClusterItemClickListener(),
-                getOnMapClickListener(),
+                getOnMapClickListener(googleMap),
                 getOnCameraPositionUpdateListener());
     }
 
     @NonNull
-    private GoogleMap.OnMapClickListener getOnMapClickListener() {
+    private GoogleMap.OnMapClickListener getOnMapClickListener(final GoogleMap googleMap) {
         if (mOnMapClickListener == null) {
             mOnMapClickListener = new GoogleMap.OnMapClickListener() {
                 @Override
                 public void onMapClick(LatLng latLng) {
-                    setDescriptionText(mGallery);
+                    // Clicks that barely miss a marker still select its detail.
+                    Detail detail = mGallery.getNearestDetail(latLng);
+                    if (detail != null && isWithinTouchRadius(googleMap, latLng,
+                            detail.getPosition())) {
+                        setDescriptionText(detail);
+                    } else {
+                        setDescriptionText(mGallery);
+                    }
                 }
             };
         }
@@ -327,6 +353,15 @@ public class DetailFragment extends Fragment implements DataView<Detail> {
         return mOnClusterItemClickListener;
     }
 
+    private boolean isWithinTouchRadius(@NonNull GoogleMap googleMap, @NonNull LatLng touch,
+                                        @NonNull LatLng position) {
+        Projection projection = googleMap.getProjection();
+        Point touchPoint = projection.toScreenLocation(touch);
+        Point point = projection.toScreenLocation(position);
+        return Math.hypot(touchPoint.x - point.x, touchPoint.y - point.y)
+                <= getResources().getDimensionPixelSize(R.dimen.detail_touch_radius);
+    }
+
     private OnCameraPositionUpdateListener getOnCameraPositionUpdateListener() {
         if (mCameraListener == null) {
             mCameraListener = new OnCameraPositionUpdateListener() {
@@ -382,7 +417,23 @@ public class DetailFragment extends Fragment implements DataView<Detail> {
         return streetViewFragment;
     }
 
+    /**
+     * Logs the time from tapping the gallery until its markers are shown.
+     */
+    private void reportMarkersShown() {
+        DetailPrefetcher prefetcher = DetailPrefetcher.getInstance();
+        long tapToMarkersMillis = prefetcher.onMarkersShown(mGallery.getGalleryId());
+        if (tapToMarkersMillis >= 0) {
+            Log.i(TAG, String.format(Locale.US,
+                    "detail_markers tapToMarkersMs=%d prefetchHits=%d prefetchMisses=%d"
+                            + " hitRate=%.2f", tapToMarkersMillis, prefetcher.getHitCount(),
+                    prefetcher.getMissCount(), prefetcher.getHitRate()));
+        }
+    }
+
     private void loadDetails() {
+        // The previous gallery's presenter must not show its details in this one.
+        stopDetailPresenter();
         if (mGallery == null) {
             Log.w(TAG, "loadDetails: can't load data for null gallery");
             showError();
@@ -391,6 +442,22 @@ public class DetailFragment extends Fragment implements DataView<Detail> {
             initMapAsync();
             return;
         }
-        new DetailPresenter(this, mGallery.getGalleryId()).getData();
+        OfflineFirstDataView<Detail> dataView = OfflineFirstDataView.forDetails(this,
+                ModelStore.getInstance(getContext()), mGallery.getGalleryId());
+        List<Detail> prefetched = DetailPrefetcher.getInstance().get(mGallery.getGalleryId());
+        if (prefetched != null) {
+            dataView.showFetchedData(prefetched);
+        } else {
+            dataView.showStoredData();
+        }
+        mDetailPresenter = new DetailPresenter(dataView, mGallery.getGalleryId());
+        mDetailPresenter.getData();
+    }
+
+    private void stopDetailPresenter() {
+        if (mDetailPresenter != null) {
+            mDetailPresenter.stop();
+            mDetailPresenter = null;
+        }
     }
 }
@@ -21,6 +21,7 @@ import android.animation.AnimatorListenerAdapter;
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
 import android.annotation.SuppressLint;
+import android.content.Context;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -32,6 +33,7 @@ import androidx.interpolator.view.animation.FastOutLinearInInterpolator;
 import androidx.recyclerview.widget.RecyclerView;
 import android.transition.Explode;
 import android.transition.Fade;
+import android.transition.Transition;
 import android.transition.TransitionSet;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -44,35 +46,64 @@ import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.model.CameraPosition;
 import com.google.samples.apps.ourstreets.R;
-import com.google.samples.apps.ourstreets.data.DataView;
+import com.google.samples.apps.ourstreets.data.DataChange;
+import com.google.samples.apps.ourstreets.data.DetailPrefetcher;
 import com.google.samples.apps.ourstreets.data.GalleryPresenter;
+import com.google.samples.apps.ourstreets.data.IncrementalDataView;
+import com.google.samples.apps.ourstreets.data.ModelStore;
+import com.google.samples.apps.ourstreets.data.OfflineFirstDataView;
 import com.google.samples.apps.ourstreets.model.Gallery;
 import com.google.samples.apps.ourstreets.transition.Elevation;
+import com.google.samples.apps.ourstreets.transition.TransitionMetrics;
 import com.google.samples.apps.ourstreets.view.GalleryAdapter;
 import com.google.samples.apps.ourstreets.view.GalleryDivider;
 import com.google.samples.apps.ourstreets.view.GalleryViewHolder;
 import com.google.samples.apps.ourstreets.view.RecyclerItemClickListener;
 import com.google.samples.apps.ourstreets.view.ViewUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * A {@link Fragment} that displays an overview of all available StreetView galleries.
  */
-public class GalleryFragment extends Fragment implements DataView<Gallery> {
+public class GalleryFragment extends Fragment implements IncrementalDataView<Gallery> {
 
     public static final String TAG = "GalleryFragment";
 
     private static final FastOutLinearInInterpolator INTERPOLATOR =
             new FastOutLinearInInterpolator();
 
+    /**
+     * How long galleries need to stay in view before their details are prefetched.
+     */
+    private static final long PREFETCH_DWELL_MILLIS = 300;
+
     private List<Gallery> mGalleries;
-    private RecyclerView.Adapter mAdapter;
+    private OfflineFirstDataView<Gallery> mGalleryDataView;
+    private GalleryPresenter mGalleryPresenter;
+    private GalleryAdapter mAdapter;
     private RecyclerView mRecyclerView;
     private View mEmptyView;
     private View mGalleryContent;
 
     private boolean mAnimateViewSwap;
+    private TransitionMetrics mExitMetrics;
+    /**
+     * The adapter positions of the first and last visible galleries when the prefetcher was
+     * last told which galleries to retain.
+     */
+    private int mRetainedFirstPosition = RecyclerView.NO_POSITION;
+    private int mRetainedLastPosition = RecyclerView.NO_POSITION;
+
+    private final DetailPrefetcher mPrefetcher = DetailPrefetcher.getInstance();
+    private final Runnable mPrefetchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mPrefetcher.prefetch(getVisibleGalleryIds(true));
+        }
+    };
 
     public GalleryFragment() {
 
@@ -98,6 +129,16 @@ public class GalleryFragment extends Fragment implements DataView<Gallery> {
         return new GalleryFragment();
     }
 
+    @Override
+    public void onAttach(Context context) {
+        super.onAttach(context);
+        if (mExitMetrics == null) {
+            // Also measures the reenter transition, which defaults to the exit transition.
+            mExitMetrics = new TransitionMetrics(context, "gallery_exit");
+            mExitMetrics.attach((Transition) getExitTransition());
+        }
+    }
+
     @Nullable
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
@@ -114,14 +155,29 @@ public class GalleryFragment extends Fragment implements DataView<Gallery> {
         initRecyclerView(view);
         mAnimateViewSwap = savedInstanceState == null && mGalleries == null;
         if (mGalleries == null) {
-            new GalleryPresenter(this).getData();
+            loadGalleries();
         } else {
             showData(mGalleries);
+            // Catches up with the changes made while there was no view.
+            startGalleryPresenter(false);
+        }
+    }
+
+    @Override
+    public void onStop() {
+        if (mGalleryDataView != null) {
+            mGalleryDataView.flush();
         }
+        super.onStop();
     }
 
     @Override
     public void onDestroyView() {
+        stopGalleryPresenter();
+        mRecyclerView.removeCallbacks(mPrefetchRunnable);
+        // Leave the network to the details of the tapped gallery.
+        mPrefetcher.retain(Collections.<String>emptyList());
+        resetRetainedPositions();
         mRecyclerView = null;
         mEmptyView = null;
         mGalleryContent = null;
@@ -131,12 +187,45 @@ public class GalleryFragment extends Fragment implements DataView<Gallery> {
     @Override
     public void showData(List<Gallery> galleries) {
         mGalleries = galleries;
+        resetRetainedPositions();
         initRecyclerViewAdapter();
         showContent(mAnimateViewSwap);
+        schedulePrefetch();
+        // Stored galleries are shown first, the remote ones replace them without another reveal.
+        mAnimateViewSwap = false;
+    }
+
+    @Override
+    public void showDataChange(@NonNull DataChange change) {
+        if (mAdapter == null) {
+            // The galleries are updated in place, the adapter will show them once created.
+            return;
+        }
+        // The galleries at the visible positions may have changed.
+        resetRetainedPositions();
+        // Only the cards that changed are bound again.
+        switch (change.getType()) {
+            case DataChange.INSERTED:
+                mAdapter.notifyItemInserted(change.getPosition());
+                break;
+            case DataChange.CHANGED:
+                mAdapter.notifyItemChanged(change.getPosition());
+                break;
+            case DataChange.REMOVED:
+                mAdapter.notifyItemRemoved(change.getPosition());
+                break;
+            case DataChange.MOVED:
+                mAdapter.notifyItemMoved(change.getPosition(), change.getToPosition());
+                break;
+        }
     }
 
     @Override
     public void showError() {
+        if (mGalleries != null) {
+            Log.i(TAG, "showError: Keeping the galleries already shown");
+            return;
+        }
         mGalleryContent.setVisibility(View.GONE);
         mEmptyView.setVisibility(View.GONE);
         //noinspection ConstantConditions
@@ -149,6 +238,37 @@ public class GalleryFragment extends Fragment implements DataView<Gallery> {
         setupAndInflate((ViewStub) failedContainer);
     }
 
+    /**
+     * Shows the stored galleries, if any, until the remote ones arrive.
+     */
+    private void loadGalleries() {
+        startGalleryPresenter(true);
+    }
+
+    /**
+     * Stops the previous presenter so that only one of them updates the galleries.
+     */
+    private void startGalleryPresenter(boolean showStoredData) {
+        stopGalleryPresenter();
+        mGalleryDataView = OfflineFirstDataView.forGalleries(this,
+                ModelStore.getInstance(getContext()));
+        if (showStoredData) {
+            mGalleryDataView.showStoredData();
+        }
+        mGalleryPresenter = new GalleryPresenter(mGalleryDataView);
+        mGalleryPresenter.getData();
+    }
+
+    private void stopGalleryPresenter() {
+        if (mGalleryPresenter != null) {
+            mGalleryPresenter.stop();
+            mGalleryPresenter = null;
+        }
+        if (mGalleryDataView != null) {
+            mGalleryDataView.flush();
+        }
+    }
+
     private void initRecyclerView(View contentView) {
         mRecyclerView = (RecyclerView) contentView.findViewById(R.id.galleries);
         // use this setting to improve performance if you know that changes
@@ -158,14 +278,90 @@ public class GalleryFragment extends Fragment implements DataView<Gallery> {
                 new RecyclerItemClickListener(getActivity()) {
                     @Override
                     public void onItemClick(RecyclerView.ViewHolder holder, int position) {
-                        showDetailFragment((GalleryViewHolder) holder,
-                                mGalleries.get(position));
+                        Gallery gallery = mGalleries.get(position);
+                        mPrefetcher.onGalleryTapped(gallery.getGalleryId());
+                        showDetailFragment((GalleryViewHolder) holder, gallery);
                     }
                 });
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    schedulePrefetch();
+                } else {
+                    recyclerView.removeCallbacks(mPrefetchRunnable);
+                }
+            }
+
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                int childCount = recyclerView.getChildCount();
+                if (childCount == 0) {
+                    return;
+                }
+                // Most frames only move the same galleries, which need not be retained again.
+                int first = recyclerView.getChildAdapterPosition(recyclerView.getChildAt(0));
+                int last = recyclerView.getChildAdapterPosition(
+                        recyclerView.getChildAt(childCount - 1));
+                if (first == mRetainedFirstPosition && last == mRetainedLastPosition) {
+                    return;
+                }
+                mRetainedFirstPosition = first;
+                mRetainedLastPosition = last;
+                // Galleries that scrolled out of view aren't worth the bandwidth any more.
+                mPrefetcher.retain(getVisibleGalleryIds(false));
+            }
+        });
         final int itemMargin = getResources().getDimensionPixelSize(R.dimen.grid_single);
         mRecyclerView.addItemDecoration(new GalleryDivider(itemMargin));
     }
 
+    /**
+     * Makes the next scroll tell the prefetcher which galleries to retain, even if the same
+     * positions are visible.
+     */
+    private void resetRetainedPositions() {
+        mRetainedFirstPosition = RecyclerView.NO_POSITION;
+        mRetainedLastPosition = RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * Prefetches the details of the fully visible galleries once they stayed in view for a while.
+     */
+    private void schedulePrefetch() {
+        if (mRecyclerView == null) {
+            return;
+        }
+        mRecyclerView.removeCallbacks(mPrefetchRunnable);
+        mRecyclerView.postDelayed(mPrefetchRunnable, PREFETCH_DWELL_MILLIS);
+    }
+
+    /**
+     * @param fullyVisible <code>true</code> to leave out partially visible galleries.
+     * @return The ids of the visible galleries, from top to bottom.
+     */
+    @NonNull
+    private List<String> getVisibleGalleryIds(boolean fullyVisible) {
+        List<String> galleryIds = new ArrayList<>();
+        if (mRecyclerView == null || mGalleries == null) {
+            return galleryIds;
+        }
+        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+            View child = mRecyclerView.getChildAt(i);
+            int position = mRecyclerView.getChildAdapterPosition(child);
+            if (position == RecyclerView.NO_POSITION || position >= mGalleries.size()) {
+                continue;
+            }
+            if (fullyVisible && (child.getTop() < 0 || child.getLeft() < 0
+                    || child.getBottom() > mRecyclerView.getHeight()
+                    || child.getRight() > mRecyclerView.getWidth())) {
+                continue;
+            }
+            galleryIds.add(mGalleries.get(position).getGalleryId());
+        }
+        return galleryIds;
+    }
+
     private void initRecyclerViewAdapter() {
         if (mRecyclerView == null || mGalleries == null) {
             Log.d(TAG, "initRecyclerViewAdapter: Missing data, not initializing.");
@@ -173,8 +369,13 @@ public class GalleryFragment extends Fragment implements DataView<Gallery> {
         }
         if (mAdapter == null) {
             mAdapter = new GalleryAdapter(mGalleries, getContext());
+        } else {
+            mAdapter.swapData(mGalleries);
+        }
+        if (mRecyclerView.getAdapter() != mAdapter) {
+            // Setting the adapter again would rebind every card and discard the diff.
+            mRecyclerView.setAdapter(mAdapter);
         }
-        mRecyclerView.setAdapter(mAdapter);
     }
 
     private void showContent(boolean animate) {
@@ -324,7 +525,7 @@ public class GalleryFragment extends Fragment implements DataView<Gallery> {
                         new View.OnClickListener() {
                             @Override
                             public void onClick(View view) {
-                                new GalleryPresenter(GalleryFragment.this).getData();
+                                loadGalleries();
                                 mEmptyView.setVisibility(View.VISIBLE);
                                 inflated.setVisibility(View.GONE);
                             }
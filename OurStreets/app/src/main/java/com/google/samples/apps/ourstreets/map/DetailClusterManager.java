@@ -21,24 +21,41 @@ import androidx.annotation.NonNull;
 
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.maps.android.clustering.ClusterManager;
 
 import com.google.samples.apps.ourstreets.model.Detail;
+import com.google.samples.apps.ourstreets.model.Gallery;
 
 /**
  * Cluster manager set up for a {@link Detail} GoogleMap cluster.
+ * <p>
+ * Only the details within the viewport, padded by {@link #VIEWPORT_PADDING} on every side, are
+ * clustered. They are looked up again once the viewport leaves the padded area.
  */
 public final class DetailClusterManager extends ClusterManager<Detail> {
 
+    /**
+     * How far details are clustered beyond the viewport, as a share of its size.
+     */
+    private static final double VIEWPORT_PADDING = 0.5;
+
+    private final GoogleMap mMap;
+    private final Gallery mGallery;
     private final OnCameraPositionUpdateListener mOnCameraPositionUpdateListener;
+    private LatLngBounds mClusteredBounds;
 
     public DetailClusterManager(
             @NonNull Context context,
             @NonNull GoogleMap map,
+            @NonNull Gallery gallery,
             @NonNull OnClusterItemClickListener<Detail> onClusterItemClickListener,
             @NonNull GoogleMap.OnMapClickListener onMapClickListener,
             @NonNull OnCameraPositionUpdateListener onCameraPositionUpdateListener) {
         super(context, map, new NoEmptyInfoWindowMarkerManager(context, map));
+        mMap = map;
+        mGallery = gallery;
         map.setOnInfoWindowClickListener(this);
         map.setOnMarkerClickListener(this);
         setRenderer(new DetailMarkerRenderer(context, map, this));
@@ -52,6 +69,48 @@ public final class DetailClusterManager extends ClusterManager<Detail> {
         if (mOnCameraPositionUpdateListener != null) {
             mOnCameraPositionUpdateListener.onCameraPositionUpdate(cameraPosition);
         }
+        clusterVisibleDetails();
         super.onCameraChange(cameraPosition);
     }
+
+    /**
+     * Clusters the details within the padded viewport, unless they already are.
+     */
+    public void clusterVisibleDetails() {
+        LatLngBounds viewport = mMap.getProjection().getVisibleRegion().latLngBounds;
+        if (mClusteredBounds != null && mClusteredBounds.contains(viewport.southwest)
+                && mClusteredBounds.contains(viewport.northeast)) {
+            return;
+        }
+        double latitudePadding = (viewport.northeast.latitude - viewport.southwest.latitude)
+                * VIEWPORT_PADDING;
+        double longitudeSpan = viewport.northeast.longitude - viewport.southwest.longitude;
+        if (longitudeSpan < 0) {
+            // The viewport crosses the antimeridian.
+            longitudeSpan += 360;
+        }
+        double longitudePadding = longitudeSpan * VIEWPORT_PADDING;
+        double south = Math.max(-90, viewport.southwest.latitude - latitudePadding);
+        double north = Math.min(90, viewport.northeast.latitude + latitudePadding);
+        double west = -180;
+        double east = 180;
+        if (longitudeSpan + longitudePadding * 2 < 360) {
+            west = wrapLongitude(viewport.southwest.longitude - longitudePadding);
+            east = wrapLongitude(viewport.northeast.longitude + longitudePadding);
+        }
+        clearItems();
+        addItems(mGallery.getDetailsWithin(south, west, north, east));
+        cluster();
+        mClusteredBounds = new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+    }
+
+    private static double wrapLongitude(double longitude) {
+        if (longitude < -180) {
+            return longitude + 360;
+        }
+        if (longitude > 180) {
+            return longitude - 360;
+        }
+        return longitude;
+    }
 }
@@ -63,6 +63,44 @@ public class Detail implements Parcelable, ClusterItem {
         return mBearing;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Detail)) {
+            return false;
+        }
+
+        Detail detail = (Detail) o;
+
+        if (Float.compare(detail.mTilt, mTilt) != 0) {
+            return false;
+        }
+        if (Float.compare(detail.mBearing, mBearing) != 0) {
+            return false;
+        }
+        if (mTitle != null ? !mTitle.equals(detail.mTitle) : detail.mTitle != null) {
+            return false;
+        }
+        if (mDescription != null ? !mDescription.equals(detail.mDescription)
+                : detail.mDescription != null) {
+            return false;
+        }
+        return !(mLocation != null ? !mLocation.equals(detail.mLocation)
+                : detail.mLocation != null);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mTitle != null ? mTitle.hashCode() : 0;
+        result = 31 * result + (mDescription != null ? mDescription.hashCode() : 0);
+        result = 31 * result + (mLocation != null ? mLocation.hashCode() : 0);
+        result = 31 * result + Float.floatToIntBits(mTilt);
+        result = 31 * result + Float.floatToIntBits(mBearing);
+        return result;
+    }
+
     protected Detail(Parcel in) {
         mTitle = in.readString();
         mDescription = in.readString();
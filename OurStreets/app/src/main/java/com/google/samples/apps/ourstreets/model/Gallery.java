@@ -19,6 +19,7 @@ package com.google.samples.apps.ourstreets.model;
 import android.os.Parcel;
 import android.os.Parcelable;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.LatLngBounds;
@@ -34,6 +35,7 @@ public class Gallery implements Parcelable {
     private final List<Detail> mDetails;
     private final LatLng mLatLng;
     private LatLngBounds mLatLngBounds;
+    private LatLngIndex mDetailIndex;
 
     public Gallery(String title, String description, String galleryId, LatLng latLng) {
         mTitle = title;
@@ -44,6 +46,8 @@ public class Gallery implements Parcelable {
     }
 
     public void replaceDetails(List<Detail> details) {
+        mLatLngBounds = null;
+        mDetailIndex = null;
         mDetails.clear();
         if (details != null) {
             mDetails.addAll(details);
@@ -83,13 +87,58 @@ public class Gallery implements Parcelable {
         return mLatLngBounds;
     }
 
+    /**
+     * @param south The southern latitude of the range.
+     * @param west The western longitude of the range. If it is larger than <code>east</code>,
+     * the range crosses the antimeridian.
+     * @param north The northern latitude of the range.
+     * @param east The eastern longitude of the range.
+     * @return The details within the range, in no particular order.
+     */
+    @NonNull
+    public List<Detail> getDetailsWithin(double south, double west, double north, double east) {
+        final List<Detail> details = new ArrayList<>();
+        getDetailIndex().query(south, west, north, east, new LatLngIndex.Visitor() {
+            @Override
+            public void visit(int index) {
+                details.add(mDetails.get(index));
+            }
+        });
+        return details;
+    }
+
+    /**
+     * @return The detail nearest to a location, or <code>null</code> if there are no details.
+     */
+    @Nullable
+    public Detail getNearestDetail(@NonNull LatLng latLng) {
+        int index = getDetailIndex().nearest(latLng.latitude, latLng.longitude);
+        return index < 0 ? null : mDetails.get(index);
+    }
+
     @NonNull
     private LatLngBounds calculateBounds() {
-        LatLngBounds.Builder boundsBuilder = new LatLngBounds.Builder();
-        for (Detail location : mDetails) {
-            boundsBuilder.include(location.getPosition());
+        LatLngIndex index = getDetailIndex();
+        return new LatLngBounds(new LatLng(index.getSouth(), index.getWest()),
+                new LatLng(index.getNorth(), index.getEast()));
+    }
+
+    /**
+     * @return The index of the details' positions, built once for the current details.
+     */
+    @NonNull
+    private LatLngIndex getDetailIndex() {
+        if (mDetailIndex == null) {
+            double[] latitudes = new double[mDetails.size()];
+            double[] longitudes = new double[mDetails.size()];
+            for (int i = 0; i < mDetails.size(); i++) {
+                LatLng position = mDetails.get(i).getPosition();
+                latitudes[i] = position.latitude;
+                longitudes[i] = position.longitude;
+            }
+            mDetailIndex = new LatLngIndex(latitudes, longitudes);
         }
-        return boundsBuilder.build();
+        return mDetailIndex;
     }
 
     protected Gallery(Parcel in) {
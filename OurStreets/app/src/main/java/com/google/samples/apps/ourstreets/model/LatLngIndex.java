@@ -0,0 +1,335 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.model;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A static spatial index over points, to find the points within a viewport or nearest to a
+ * location.
+ * <p>
+ * The points are kept in a packed R-tree: they are sorted along a Hilbert curve and grouped into
+ * nodes of {@link #NODE_SIZE}, which are grouped again until a single root is left. All nodes are
+ * stored in flat primitive arrays, so the index is built with a single primitive sort and queries
+ * only allocate a small stack. The bounds of all points are the bounds of the root.
+ * <p>
+ * Ranges crossing the antimeridian are supported. Distances for {@link #nearest(double, double)}
+ * are planar, with longitudes scaled to the latitude of the location, which is accurate for the
+ * short distances between the details of a gallery.
+ */
+public final class LatLngIndex {
+
+    /**
+     * Receives the points found by a query.
+     */
+    public interface Visitor {
+
+        /**
+         * @param index The position of the point in the arrays the index was created from.
+         */
+        void visit(int index);
+    }
+
+    private static final int NODE_SIZE = 16;
+    private static final int HILBERT_MAX = (1 << 16) - 1;
+
+    private final int mSize;
+    /**
+     * South, west, north and east of every node, the points first.
+     */
+    private final double[] mBoxes;
+    /**
+     * For points, their index. For other nodes, the position of their first child.
+     */
+    private final int[] mIndices;
+    /**
+     * The position after the last node of every level, from the points up to the root.
+     */
+    private final int[] mLevelEnds;
+
+    /**
+     * @param latitudes The latitudes of the points.
+     * @param longitudes The longitudes of the points, in [-180, 180].
+     */
+    public LatLngIndex(@NonNull double[] latitudes, @NonNull double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("Got " + latitudes.length + " latitudes and "
+                    + longitudes.length + " longitudes");
+        }
+        mSize = latitudes.length;
+        int nodeCount = mSize;
+        int levelCount = 1;
+        for (int count = mSize; count > 1; levelCount++) {
+            count = (count + NODE_SIZE - 1) / NODE_SIZE;
+            nodeCount += count;
+        }
+        mBoxes = new double[nodeCount * 4];
+        mIndices = new int[nodeCount];
+        mLevelEnds = new int[levelCount];
+        if (mSize == 0) {
+            return;
+        }
+
+        double south = Double.POSITIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY;
+        double north = Double.NEGATIVE_INFINITY;
+        double east = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < mSize; i++) {
+            south = Math.min(south, latitudes[i]);
+            north = Math.max(north, latitudes[i]);
+            west = Math.min(west, longitudes[i]);
+            east = Math.max(east, longitudes[i]);
+        }
+
+        // Sort the points along a Hilbert curve, so that points close to each other end up in
+        // the same nodes. The index is packed into the low bits, so that a primitive sort works.
+        double latitudeScale = north > south ? HILBERT_MAX / (north - south) : 0;
+        double longitudeScale = east > west ? HILBERT_MAX / (east - west) : 0;
+        long[] keys = new long[mSize];
+        for (int i = 0; i < mSize; i++) {
+            int x = (int) ((longitudes[i] - west) * longitudeScale);
+            int y = (int) ((latitudes[i] - south) * latitudeScale);
+            keys[i] = (hilbert(x, y) & 0xffffffffL) << 32 | i;
+        }
+        Arrays.sort(keys);
+        for (int position = 0; position < mSize; position++) {
+            int i = (int) keys[position];
+            mIndices[position] = i;
+            setBox(position, latitudes[i], longitudes[i], latitudes[i], longitudes[i]);
+        }
+
+        // Group the nodes of every level into the nodes of the next one.
+        int levelStart = 0;
+        int levelEnd = mSize;
+        int position = mSize;
+        mLevelEnds[0] = levelEnd;
+        for (int level = 1; level < levelCount; level++) {
+            for (int child = levelStart; child < levelEnd; child += NODE_SIZE) {
+                int end = Math.min(child + NODE_SIZE, levelEnd);
+                double nodeSouth = Double.POSITIVE_INFINITY;
+                double nodeWest = Double.POSITIVE_INFINITY;
+                double nodeNorth = Double.NEGATIVE_INFINITY;
+                double nodeEast = Double.NEGATIVE_INFINITY;
+                for (int i = child; i < end; i++) {
+                    nodeSouth = Math.min(nodeSouth, mBoxes[i * 4]);
+                    nodeWest = Math.min(nodeWest, mBoxes[i * 4 + 1]);
+                    nodeNorth = Math.max(nodeNorth, mBoxes[i * 4 + 2]);
+                    nodeEast = Math.max(nodeEast, mBoxes[i * 4 + 3]);
+                }
+                mIndices[position] = child;
+                setBox(position, nodeSouth, nodeWest, nodeNorth, nodeEast);
+                position++;
+            }
+            levelStart = levelEnd;
+            levelEnd = position;
+            mLevelEnds[level] = levelEnd;
+        }
+    }
+
+    /**
+     * @return The number of points.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public double getSouth() {
+        return getRootBox(0);
+    }
+
+    public double getWest() {
+        return getRootBox(1);
+    }
+
+    public double getNorth() {
+        return getRootBox(2);
+    }
+
+    public double getEast() {
+        return getRootBox(3);
+    }
+
+    /**
+     * Finds the points within a range, inclusive.
+     *
+     * @param south The southern latitude of the range.
+     * @param west The western longitude of the range. If it is larger than <code>east</code>,
+     * the range crosses the antimeridian.
+     * @param north The northern latitude of the range.
+     * @param east The eastern longitude of the range.
+     * @param visitor Receives the points within the range, in no particular order.
+     */
+    public void query(double south, double west, double north, double east,
+                      @NonNull Visitor visitor) {
+        if (west > east) {
+            query(south, west, north, 180, visitor);
+            query(south, -180, north, east, visitor);
+            return;
+        }
+        if (mSize == 0) {
+            return;
+        }
+        // Every level holds at most the siblings of a single node.
+        int[] stack = new int[mLevelEnds.length * NODE_SIZE];
+        int stackSize = 0;
+        stack[stackSize++] = mIndices.length - 1;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            int child = mIndices[node];
+            int end = Math.min(child + NODE_SIZE, getLevelEnd(child));
+            for (; child < end; child++) {
+                int box = child * 4;
+                if (mBoxes[box] > north || mBoxes[box + 1] > east
+                        || mBoxes[box + 2] < south || mBoxes[box + 3] < west) {
+                    continue;
+                }
+                if (child < mSize) {
+                    visitor.visit(mIndices[child]);
+                } else {
+                    stack[stackSize++] = child;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The index of the point nearest to a location, or -1 if there are no points.
+     */
+    public int nearest(double latitude, double longitude) {
+        if (mSize == 0) {
+            return -1;
+        }
+        double longitudeScale = Math.cos(Math.toRadians(latitude));
+        // A binary heap of nodes, ordered by their distance to the location.
+        int[] heapNodes = new int[NODE_SIZE * 4];
+        double[] heapDistances = new double[heapNodes.length];
+        int heapSize = 0;
+        int node = mIndices.length - 1;
+        while (true) {
+            if (node < mSize) {
+                return mIndices[node];
+            }
+            int child = mIndices[node];
+            int end = Math.min(child + NODE_SIZE, getLevelEnd(child));
+            for (; child < end; child++) {
+                if (heapSize == heapNodes.length) {
+                    heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+                    heapDistances = Arrays.copyOf(heapDistances, heapSize * 2);
+                }
+                double distance = getDistance(child, latitude, longitude, longitudeScale);
+                // Sift up.
+                int i = heapSize++;
+                while (i > 0) {
+                    int parent = (i - 1) / 2;
+                    if (heapDistances[parent] <= distance) {
+                        break;
+                    }
+                    heapNodes[i] = heapNodes[parent];
+                    heapDistances[i] = heapDistances[parent];
+                    i = parent;
+                }
+                heapNodes[i] = child;
+                heapDistances[i] = distance;
+            }
+            // Take the nearest node, and sift the last one down into its place.
+            node = heapNodes[0];
+            heapSize--;
+            int last = heapNodes[heapSize];
+            double lastDistance = heapDistances[heapSize];
+            int i = 0;
+            while (true) {
+                int smallest = i * 2 + 1;
+                if (smallest >= heapSize) {
+                    break;
+                }
+                if (smallest + 1 < heapSize
+                        && heapDistances[smallest + 1] < heapDistances[smallest]) {
+                    smallest++;
+                }
+                if (heapDistances[smallest] >= lastDistance) {
+                    break;
+                }
+                heapNodes[i] = heapNodes[smallest];
+                heapDistances[i] = heapDistances[smallest];
+                i = smallest;
+            }
+            heapNodes[i] = last;
+            heapDistances[i] = lastDistance;
+        }
+    }
+
+    private double getRootBox(int offset) {
+        if (mSize == 0) {
+            throw new IllegalStateException("No points");
+        }
+        return mBoxes[(mIndices.length - 1) * 4 + offset];
+    }
+
+    private void setBox(int position, double south, double west, double north, double east) {
+        int box = position * 4;
+        mBoxes[box] = south;
+        mBoxes[box + 1] = west;
+        mBoxes[box + 2] = north;
+        mBoxes[box + 3] = east;
+    }
+
+    private int getLevelEnd(int position) {
+        for (int levelEnd : mLevelEnds) {
+            if (position < levelEnd) {
+                return levelEnd;
+            }
+        }
+        return mIndices.length;
+    }
+
+    /**
+     * @return The squared distance from a location to the nearest point of a node's box.
+     */
+    private double getDistance(int node, double latitude, double longitude,
+                               double longitudeScale) {
+        int box = node * 4;
+        double dy = Math.max(0, Math.max(mBoxes[box] - latitude, latitude - mBoxes[box + 2]));
+        double dx = Math.max(0, Math.max(mBoxes[box + 1] - longitude,
+                longitude - mBoxes[box + 3])) * longitudeScale;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * @return The position of a point on a Hilbert curve filling a 2^16 by 2^16 square.
+     */
+    private static int hilbert(int x, int y) {
+        int position = 0;
+        for (int s = 1 << 15; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            position += s * s * ((3 * rx) ^ ry);
+            // Rotate the quadrant, so that the curve stays continuous.
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = HILBERT_MAX - x;
+                    y = HILBERT_MAX - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return position;
+    }
+}
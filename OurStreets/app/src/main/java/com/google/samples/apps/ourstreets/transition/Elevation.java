@@ -30,12 +30,14 @@ import android.view.ViewGroup;
  * Transitions target {@link View}s elevation property to/from zero
  * when it's entering/exiting a scene.
  */
-public class Elevation extends Transition {
+public class Elevation extends Transition implements TransitionMetrics.Timed {
 
     private static final String PROP_ELEVATION = "ourstreets:elevation";
 
     private static final String[] PROPERTIES = {PROP_ELEVATION};
 
+    private long mCreateAnimatorTimeNanos;
+
     /**
      * Constructs an Elevation object with no target objects.
      */
@@ -74,9 +76,31 @@ public class Elevation extends Transition {
         return PROPERTIES;
     }
 
+    @Override
+    public Transition clone() {
+        // Transitions are cloned for each run, so every run starts its own measurement.
+        final Elevation clone = (Elevation) super.clone();
+        clone.mCreateAnimatorTimeNanos = 0;
+        return clone;
+    }
+
+    @Override
+    public long getCreateAnimatorTimeNanos() {
+        return mCreateAnimatorTimeNanos;
+    }
+
     @Override
     public Animator createAnimator(ViewGroup sceneRoot, TransitionValues startValues,
                                    TransitionValues endValues) {
+        final long startTime = System.nanoTime();
+        final Animator animator = createElevationAnimator(startValues, endValues);
+        // Called once per target, so the time of a run is the sum of all calls.
+        mCreateAnimatorTimeNanos += System.nanoTime() - startTime;
+        return animator;
+    }
+
+    private Animator createElevationAnimator(TransitionValues startValues,
+                                             TransitionValues endValues) {
         if (startValues == null && endValues == null) {
             return null; // nothing to do here
         }
@@ -18,6 +18,7 @@ package com.google.samples.apps.ourstreets.view;
 
 import android.content.Context;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -36,7 +37,7 @@ import java.util.List;
 public class GalleryAdapter extends RecyclerView.Adapter<GalleryViewHolder> {
 
     private static final int MAP_ZOOM = 3;
-    private final List<Gallery> mGalleryCollection;
+    private List<Gallery> mGalleryCollection;
     private final String mItemViewBase;
     private final String mDescriptionContainerBase;
     private final String mDetailTransitionBase;
@@ -59,6 +60,42 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryViewHolder> {
         mMapBase = context.getString(R.string.transition_map);
     }
 
+    /**
+     * Replaces the galleries, only binding the cards of galleries that changed.
+     *
+     * @param data The new galleries.
+     */
+    public void swapData(@NonNull final List<Gallery> data) {
+        if (data == mGalleryCollection) {
+            return;
+        }
+        final List<Gallery> oldData = mGalleryCollection;
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldData.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return data.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldData.get(oldItemPosition).getGalleryId()
+                        .equals(data.get(newItemPosition).getGalleryId());
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldData.get(oldItemPosition).equals(data.get(newItemPosition));
+            }
+        });
+        mGalleryCollection = data;
+        result.dispatchUpdatesTo(this);
+    }
+
     @Override
     public GalleryViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         View v = LayoutInflater.from(parent.getContext())
@@ -79,16 +116,17 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryViewHolder> {
 
     @Override
     public void onBindViewHolder(GalleryViewHolder holder, int position) {
-        final int adapterPosition = holder.getAdapterPosition();
-        final Gallery gallery = mGalleryCollection.get(adapterPosition);
+        final Gallery gallery = mGalleryCollection.get(holder.getAdapterPosition());
         // Set transition names here and not in the layout declaration,
         // because multiple identical transition names at the same time
-        // confuse the transition system.
-        holder.itemView.setTransitionName(mItemViewBase + adapterPosition);
-        holder.descriptionContainer.setTransitionName(mDescriptionContainerBase + adapterPosition);
-        holder.descriptionText.setTransitionName(mDescriptionTitleBase + adapterPosition);
-        holder.titleText.setTransitionName(mDetailTransitionBase + adapterPosition);
-        holder.mapView.setTransitionName(mMapBase + adapterPosition);
+        // confuse the transition system. They are based on the gallery rather than the position,
+        // as the cards around an inserted, removed or moved gallery aren't bound again.
+        final String galleryId = gallery.getGalleryId();
+        holder.itemView.setTransitionName(mItemViewBase + galleryId);
+        holder.descriptionContainer.setTransitionName(mDescriptionContainerBase + galleryId);
+        holder.descriptionText.setTransitionName(mDescriptionTitleBase + galleryId);
+        holder.titleText.setTransitionName(mDetailTransitionBase + galleryId);
+        holder.mapView.setTransitionName(mMapBase + galleryId);
 
         // Bind the user visible information.
         holder.titleText.setText(gallery.getTitle());
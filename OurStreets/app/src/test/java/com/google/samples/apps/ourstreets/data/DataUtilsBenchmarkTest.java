@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import androidx.test.filters.LargeTest;
+
+import com.google.samples.apps.ourstreets.model.Detail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures parsing details from the raw values Firebase reports for their snapshots.
+ */
+@LargeTest
+public class DataUtilsBenchmarkTest {
+
+    private static final int DETAIL_COUNT = 100000;
+
+    @Test
+    public void testReadDetail_benchmark() {
+        List<Map<String, Object>> values = new ArrayList<>(DETAIL_COUNT);
+        for (int i = 0; i < DETAIL_COUNT; i++) {
+            values.add(DataUtilsTest.createDetailValue(i));
+        }
+        // Warm up, so that the measured run is compiled.
+        readDetails(values);
+
+        long start = System.nanoTime();
+        List<Detail> details = readDetails(values);
+        long elapsed = System.nanoTime() - start;
+
+        String result = String.format(Locale.US, "readDetail count=%d totalMs=%d nsPerDetail=%d",
+                DETAIL_COUNT, TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed / DETAIL_COUNT);
+        assertThat(result, details.size(), is(DETAIL_COUNT));
+        assertThat(result, details.get(DETAIL_COUNT - 1).getTitle(),
+                is("title" + (DETAIL_COUNT - 1)));
+        System.out.println(result);
+    }
+
+    private static List<Detail> readDetails(List<Map<String, Object>> values) {
+        List<Detail> details = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            details.add(DataUtils.readDetail(values.get(i)));
+        }
+        return details;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import androidx.test.filters.SmallTest;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.samples.apps.ourstreets.model.Detail;
+import com.google.samples.apps.ourstreets.model.Gallery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@SmallTest
+public class DataUtilsTest {
+
+    private Map<String, Object> mDetailValue;
+
+    @Before
+    public void alloc() {
+        mDetailValue = createDetailValue(1);
+    }
+
+    @After
+    public void release() {
+        mDetailValue = null;
+    }
+
+    @Test
+    public void testReadDetail() {
+        Detail detail = DataUtils.readDetail(mDetailValue);
+        assertThat(detail.getTitle(), is("title1"));
+        assertThat(detail.getDescription(), is("description1"));
+        assertThat(detail.getPosition(), is(new LatLng(1.5, -1.5)));
+        assertThat(detail.getTilt(), is(10f));
+        assertThat(detail.getBearing(), is(90.5f));
+    }
+
+    @Test
+    public void testReadGallery() {
+        mDetailValue.put(JsonKeys.GALLERY_ID, "-KFgallery1");
+        Gallery gallery = DataUtils.readGallery(mDetailValue);
+        assertThat(gallery.getTitle(), is("title1"));
+        assertThat(gallery.getGalleryId(), is("-KFgallery1"));
+        assertThat(gallery.getPosition(), is(new LatLng(1.5, -1.5)));
+    }
+
+    @Test
+    public void testReadLatLng_integral() {
+        // Firebase reports integral numbers as longs.
+        Map<String, Object> location = new HashMap<>();
+        location.put(JsonKeys.LATITUDE, 52L);
+        location.put(JsonKeys.LONGITUDE, 13L);
+        mDetailValue.put(JsonKeys.LOCATION, location);
+        assertThat(DataUtils.readLatLng(mDetailValue), is(new LatLng(52, 13)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadDetail_missingLocation() {
+        mDetailValue.remove(JsonKeys.LOCATION);
+        DataUtils.readDetail(mDetailValue);
+    }
+
+    /**
+     * @return A detail as Firebase reports the raw value of its snapshot.
+     */
+    static Map<String, Object> createDetailValue(int i) {
+        Map<String, Object> location = new HashMap<>();
+        location.put(JsonKeys.LATITUDE, i + 0.5);
+        location.put(JsonKeys.LONGITUDE, -i - 0.5);
+        location.put(JsonKeys.TILT, 10L);
+        location.put(JsonKeys.BEARING, 90.5);
+        Map<String, Object> value = new HashMap<>();
+        value.put(JsonKeys.TITLE, "title" + i);
+        value.put(JsonKeys.DESCRIPTION, "description" + i);
+        value.put(JsonKeys.LOCATION, location);
+        return value;
+    }
+}
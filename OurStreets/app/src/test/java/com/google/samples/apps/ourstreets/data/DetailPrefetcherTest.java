@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import androidx.annotation.NonNull;
+import androidx.test.filters.SmallTest;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.samples.apps.ourstreets.model.Detail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@SmallTest
+public class DetailPrefetcherTest {
+
+    private static final int MAX_CONCURRENT_FETCHES = 2;
+    private static final int CACHE_SIZE = 3;
+
+    private DetailPrefetcher mPrefetcherUnderTest;
+    private FakeFetcher mFetcher;
+
+    @Before
+    public void alloc() {
+        mFetcher = new FakeFetcher();
+        mPrefetcherUnderTest = new DetailPrefetcher(mFetcher, MAX_CONCURRENT_FETCHES, CACHE_SIZE);
+    }
+
+    @After
+    public void release() {
+        mPrefetcherUnderTest = null;
+        mFetcher = null;
+    }
+
+    @Test
+    public void testPrefetch_limitsConcurrentFetches() {
+        mPrefetcherUnderTest.prefetch(Arrays.asList("a", "b", "c", "d"));
+        assertThat(mFetcher.mStarted, is(Arrays.asList("a", "b")));
+
+        mFetcher.complete("a");
+        assertThat(mFetcher.mStarted, is(Arrays.asList("a", "b", "c")));
+        assertThat(mPrefetcherUnderTest.getFetchingGalleryIds(), containsInAnyOrder("b", "c"));
+    }
+
+    @Test
+    public void testPrefetch_skipsCachedAndFetching() {
+        mPrefetcherUnderTest.prefetch(Arrays.asList("a", "b"));
+        mFetcher.complete("a");
+        mPrefetcherUnderTest.prefetch(Arrays.asList("a", "b"));
+        assertThat(mFetcher.mStarted, is(Arrays.asList("a", "b")));
+    }
+
+    @Test
+    public void testPrefetch_errorStartsNext() {
+        mPrefetcherUnderTest.prefetch(Arrays.asList("a", "b", "c"));
+        mFetcher.fail("a");
+        assertThat(mFetcher.mStarted, is(Arrays.asList("a", "b", "c")));
+        assertThat(mPrefetcherUnderTest.get("a"), is(nullValue()));
+    }
+
+    @Test
+    public void testPrefetch_synchronousFetcher() {
+        mFetcher.mSynchronous = true;
+        mPrefetcherUnderTest.prefetch(Arrays.asList("a", "b", "c", "d"));
+        assertThat(mFetcher.mStarted, is(Arrays.asList("a", "b", "c", "d")));
+        assertThat(mPrefetcherUnderTest.getFetchingGalleryIds(), is(empty()));
+        assertThat(mPrefetcherUnderTest.get("d"), is(notNullValue()));
+    }
+
+    @Test
+    public void testRetain_cancelsScrolledAway() {
+        mPrefetcherUnderTest.prefetch(Arrays.asList("a", "b", "c", "d"));
+        mPrefetcherUnderTest.retain(Arrays.asList("b", "d"));
+        assertThat(mFetcher.mCancelled, is(Collections.singletonList("a")));
+        // The queued "c" is dropped, "d" takes the freed slot.
+        assertThat(mFetcher.mStarted, is(Arrays.asList("a", "b", "d")));
+
+        // Details that arrive after cancelling are not kept.
+        mFetcher.complete("a");
+        assertThat(mPrefetcherUnderTest.get("a"), is(nullValue()));
+    }
+
+    @Test
+    public void testRetain_empty() {
+        mPrefetcherUnderTest.prefetch(Arrays.asList("a", "b", "c"));
+        mPrefetcherUnderTest.retain(Collections.<String>emptyList());
+        assertThat(mFetcher.mCancelled, containsInAnyOrder("a", "b"));
+        assertThat(mPrefetcherUnderTest.getFetchingGalleryIds(), is(empty()));
+        assertThat(mFetcher.mStarted.size(), is(2));
+    }
+
+    @Test
+    public void testGet_evictsLeastRecentlyUsed() {
+        mFetcher.mSynchronous = true;
+        mPrefetcherUnderTest.prefetch(Arrays.asList("a", "b", "c"));
+        mPrefetcherUnderTest.get("a");
+        mPrefetcherUnderTest.prefetch(Collections.singletonList("d"));
+        assertThat(mPrefetcherUnderTest.get("b"), is(nullValue()));
+        assertThat(mPrefetcherUnderTest.get("a"), is(notNullValue()));
+        assertThat(mPrefetcherUnderTest.get("d"), is(notNullValue()));
+    }
+
+    @Test
+    public void testGet_hitRate() {
+        mPrefetcherUnderTest.prefetch(Arrays.asList("a", "b"));
+        mFetcher.complete("a");
+        assertThat(mPrefetcherUnderTest.get("a").size(), is(1));
+        assertThat(mPrefetcherUnderTest.get("b"), is(nullValue()));
+        assertThat(mPrefetcherUnderTest.get("a"), is(notNullValue()));
+        assertThat(mPrefetcherUnderTest.get("c"), is(nullValue()));
+        assertThat(mPrefetcherUnderTest.getHitCount(), is(2));
+        assertThat(mPrefetcherUnderTest.getMissCount(), is(2));
+        assertThat(mPrefetcherUnderTest.getHitRate(), is(0.5f));
+    }
+
+    @Test
+    public void testOnMarkersShown() {
+        assertThat(mPrefetcherUnderTest.onMarkersShown("a"), is(-1L));
+        mPrefetcherUnderTest.onGalleryTapped("a");
+        assertThat(mPrefetcherUnderTest.onMarkersShown("b"), is(-1L));
+        assertThat(mPrefetcherUnderTest.onMarkersShown("a") >= 0, is(true));
+        // Only the first markers after a tap are measured.
+        assertThat(mPrefetcherUnderTest.onMarkersShown("a"), is(-1L));
+    }
+
+    private static final class FakeFetcher implements DetailPrefetcher.Fetcher {
+
+        private final List<String> mStarted = new ArrayList<>();
+        private final List<String> mCancelled = new ArrayList<>();
+        private final Map<String, DataView<Detail>> mViews = new LinkedHashMap<>();
+        private boolean mSynchronous;
+
+        @NonNull
+        @Override
+        public DetailPrefetcher.Fetch fetch(@NonNull final String galleryId,
+                                            @NonNull DataView<Detail> dataView) {
+            mStarted.add(galleryId);
+            mViews.put(galleryId, dataView);
+            if (mSynchronous) {
+                complete(galleryId);
+            }
+            return new DetailPrefetcher.Fetch() {
+                @Override
+                public void cancel() {
+                    // The view is kept, to deliver details after cancelling.
+                    if (mViews.containsKey(galleryId)) {
+                        mCancelled.add(galleryId);
+                    }
+                }
+            };
+        }
+
+        void complete(String galleryId) {
+            DataView<Detail> view = mViews.remove(galleryId);
+            if (view != null) {
+                view.showData(Collections.singletonList(new Detail(galleryId, galleryId,
+                        new LatLng(0, 0), 0, 0)));
+            }
+        }
+
+        void fail(String galleryId) {
+            DataView<Detail> view = mViews.remove(galleryId);
+            if (view != null) {
+                view.showError();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory stand-in for a Firebase reference. Mutations are reported to a
+ * {@link KeyedIndex} as the child events Firebase would raise for them, with the key of the
+ * preceding child.
+ */
+class InMemoryReference<T> {
+
+    private final List<String> mKeys = new ArrayList<>();
+    private final Map<String, T> mValues = new HashMap<>();
+    private final KeyedIndex<T> mIndex;
+
+    InMemoryReference(KeyedIndex<T> index) {
+        mIndex = index;
+    }
+
+    int size() {
+        return mKeys.size();
+    }
+
+    String getKey(int position) {
+        return mKeys.get(position);
+    }
+
+    T get(String key) {
+        return mValues.get(key);
+    }
+
+    List<T> getValues() {
+        List<T> values = new ArrayList<>(mKeys.size());
+        for (String key : mKeys) {
+            values.add(mValues.get(key));
+        }
+        return values;
+    }
+
+    DataChange add(int position, String key, T value) {
+        mKeys.add(position, key);
+        mValues.put(key, value);
+        return mIndex.onChildAdded(key, value, getPreviousKey(position));
+    }
+
+    DataChange set(String key, T value) {
+        mValues.put(key, value);
+        return mIndex.onChildChanged(key, value);
+    }
+
+    DataChange remove(String key) {
+        mKeys.remove(key);
+        mValues.remove(key);
+        return mIndex.onChildRemoved(key);
+    }
+
+    DataChange move(String key, int position) {
+        mKeys.remove(key);
+        mKeys.add(position, key);
+        return mIndex.onChildMoved(key, getPreviousKey(position));
+    }
+
+    private String getPreviousKey(int position) {
+        return position == 0 ? null : mKeys.get(position - 1);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import androidx.test.filters.SmallTest;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.samples.apps.ourstreets.model.Gallery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@SmallTest
+public class KeyedIndexTest {
+
+    private static final int GALLERY_COUNT = 10000;
+    private static final int MUTATION_COUNT = 2000;
+
+    private KeyedIndex<Gallery> mIndexUnderTest;
+    private InMemoryReference<Gallery> mReference;
+    private int mNextId;
+
+    @Before
+    public void alloc() {
+        mIndexUnderTest = new KeyedIndex<>();
+        mReference = new InMemoryReference<>(mIndexUnderTest);
+        for (int i = 0; i < GALLERY_COUNT; i++) {
+            mReference.add(i, nextKey(), createGallery(i));
+        }
+    }
+
+    @After
+    public void release() {
+        mIndexUnderTest = null;
+        mReference = null;
+    }
+
+    @Test
+    public void testOnChildAdded_keepsOrder() {
+        assertThat(mIndexUnderTest.getData(), is(mReference.getValues()));
+        assertThat(mIndexUnderTest.getPosition(mReference.getKey(1234)), is(1234));
+    }
+
+    @Test
+    public void testOnChildAdded_first() {
+        assertThat(mReference.add(0, nextKey(), createGallery(0)), is(DataChange.inserted(0)));
+        assertThat(mIndexUnderTest.getData(), is(mReference.getValues()));
+    }
+
+    @Test
+    public void testOnChildChanged() {
+        String key = mReference.getKey(42);
+        assertThat(mReference.set(key, createGallery(-1)), is(DataChange.changed(42)));
+        assertThat(mIndexUnderTest.getData().get(42), is(createGallery(-1)));
+    }
+
+    @Test
+    public void testOnChildChanged_equalIsSkipped() {
+        String key = mReference.getKey(42);
+        assertThat(mReference.set(key, createGallery(42)), nullValue());
+    }
+
+    @Test
+    public void testOnChildRemoved() {
+        assertThat(mReference.remove(mReference.getKey(7)), is(DataChange.removed(7)));
+        assertThat(mIndexUnderTest.getData(), is(mReference.getValues()));
+    }
+
+    @Test
+    public void testOnChildRemoved_unknown() {
+        assertThat(mIndexUnderTest.onChildRemoved("unknown"), nullValue());
+        assertThat(mIndexUnderTest.getData().size(), is(GALLERY_COUNT));
+    }
+
+    @Test
+    public void testOnChildMoved() {
+        String key = mReference.getKey(10);
+        assertThat(mReference.move(key, 5000), is(DataChange.moved(10, 5000)));
+        assertThat(mIndexUnderTest.getData(), is(mReference.getValues()));
+    }
+
+    @Test
+    public void testOnChildMoved_samePositionIsSkipped() {
+        assertThat(mReference.move(mReference.getKey(10), 10), nullValue());
+    }
+
+    @Test
+    public void testScriptedMutations_changesReplayOntoAdapterData() {
+        // Stands in for the adapter's view of the data, which only learns of changes through
+        // the notifyItem* calls that DataChanges map onto.
+        List<Gallery> adapterData = new ArrayList<>(mIndexUnderTest.getData());
+        Random random = new Random(2016);
+        for (int i = 0; i < MUTATION_COUNT; i++) {
+            int position = random.nextInt(mReference.size());
+            String key = mReference.getKey(position);
+            DataChange change;
+            switch (random.nextInt(5)) {
+                case 0:
+                    change = mReference.add(random.nextInt(mReference.size() + 1), nextKey(),
+                            createGallery(mNextId));
+                    break;
+                case 1:
+                    change = mReference.set(key, createGallery(-i));
+                    break;
+                case 2:
+                    // Unchanged values are reported by Firebase when a sibling field changes.
+                    change = mReference.set(key, mReference.get(key));
+                    assertThat(change, nullValue());
+                    break;
+                case 3:
+                    change = mReference.remove(key);
+                    break;
+                default:
+                    change = mReference.move(key, random.nextInt(mReference.size()));
+                    break;
+            }
+            apply(change, adapterData, mIndexUnderTest.getData());
+        }
+        assertThat(mIndexUnderTest.getData(), is(mReference.getValues()));
+        assertThat(adapterData, is(mReference.getValues()));
+        for (int i = 0; i < mReference.size(); i += 97) {
+            assertThat(mIndexUnderTest.getPosition(mReference.getKey(i)), is(i));
+        }
+    }
+
+    private static void apply(DataChange change, List<Gallery> adapterData, List<Gallery> data) {
+        if (change == null) {
+            return;
+        }
+        switch (change.getType()) {
+            case DataChange.INSERTED:
+                adapterData.add(change.getPosition(), data.get(change.getPosition()));
+                break;
+            case DataChange.CHANGED:
+                adapterData.set(change.getPosition(), data.get(change.getPosition()));
+                break;
+            case DataChange.REMOVED:
+                adapterData.remove(change.getPosition());
+                break;
+            case DataChange.MOVED:
+                adapterData.add(change.getToPosition(),
+                        adapterData.remove(change.getPosition()));
+                break;
+        }
+    }
+
+    private String nextKey() {
+        return "gallery" + mNextId++;
+    }
+
+    private static Gallery createGallery(int i) {
+        return new Gallery("Title " + i, "Description " + i, "galleryId" + i,
+                new LatLng(51.5014, -0.1419));
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import androidx.test.filters.SmallTest;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.samples.apps.ourstreets.model.Detail;
+import com.google.samples.apps.ourstreets.model.Gallery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+@SmallTest
+public class ModelStoreTest {
+
+    private static final String GALLERY_ID = "-KFgallery0";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private ModelStore mStoreUnderTest;
+    private List<Gallery> mGalleries;
+    private List<Detail> mDetails;
+
+    @Before
+    public void alloc() {
+        mStoreUnderTest = new ModelStore(mFolder.getRoot());
+        mGalleries = new ArrayList<>();
+        mDetails = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            mGalleries.add(new Gallery("title" + i, "description" + i, "-KFgallery" + i,
+                    new LatLng(i, -i)));
+            mDetails.add(new Detail("title" + i, "description" + i, new LatLng(-i, i),
+                    i * 10f, i * 20f));
+        }
+        mGalleries.add(new Gallery("t\u00eftle", "", "-KFgallery3", new LatLng(1.5, 2.5)));
+    }
+
+    @After
+    public void release() {
+        mStoreUnderTest = null;
+        mGalleries = null;
+        mDetails = null;
+    }
+
+    @Test
+    public void testReadGalleries_empty() {
+        assertThat(mStoreUnderTest.readGalleries(), is(nullValue()));
+        assertThat(mStoreUnderTest.readDetails(GALLERY_ID), is(nullValue()));
+    }
+
+    @Test
+    public void testReadGalleries_roundTrip() {
+        assertThat(mStoreUnderTest.writeGalleries(mGalleries), is(true));
+        // A new store only sees what is on disk.
+        assertThat(new ModelStore(mFolder.getRoot()).readGalleries(), is(mGalleries));
+    }
+
+    @Test
+    public void testReadDetails_roundTrip() {
+        assertThat(mStoreUnderTest.writeDetails(GALLERY_ID, mDetails), is(true));
+        List<Detail> details = new ModelStore(mFolder.getRoot()).readDetails(GALLERY_ID);
+        //noinspection ConstantConditions
+        assertThat(details.size(), is(mDetails.size()));
+        for (int i = 0; i < details.size(); i++) {
+            Detail expected = mDetails.get(i);
+            Detail actual = details.get(i);
+            assertThat(actual.getTitle(), is(expected.getTitle()));
+            assertThat(actual.getDescription(), is(expected.getDescription()));
+            assertThat(actual.getPosition(), is(expected.getPosition()));
+            assertThat(actual.getTilt(), is(expected.getTilt()));
+            assertThat(actual.getBearing(), is(expected.getBearing()));
+        }
+    }
+
+    @Test
+    public void testWriteGalleries_unchanged() {
+        mStoreUnderTest.writeGalleries(mGalleries);
+        long version = mStoreUnderTest.getGalleriesVersion();
+        assertThat(mStoreUnderTest.writeGalleries(new ArrayList<>(mGalleries)), is(false));
+        assertThat(mStoreUnderTest.getGalleriesVersion(), is(version));
+    }
+
+    @Test
+    public void testWriteGalleries_unchangedAfterRead() {
+        mStoreUnderTest.writeGalleries(mGalleries);
+        ModelStore store = new ModelStore(mFolder.getRoot());
+        store.readGalleries();
+        assertThat(store.writeGalleries(mGalleries), is(false));
+    }
+
+    @Test
+    public void testWriteGalleries_changed() {
+        mStoreUnderTest.writeGalleries(mGalleries);
+        long version = mStoreUnderTest.getGalleriesVersion();
+        mGalleries.remove(0);
+        assertThat(mStoreUnderTest.writeGalleries(mGalleries), is(true));
+        assertThat(mStoreUnderTest.getGalleriesVersion(), is(not(version)));
+        assertThat(new ModelStore(mFolder.getRoot()).readGalleries(), is(mGalleries));
+    }
+
+    @Test
+    public void testWriteDetails_versionedPerGallery() {
+        mStoreUnderTest.writeDetails(GALLERY_ID, mDetails);
+        long version = mStoreUnderTest.getDetailsVersion(GALLERY_ID);
+        assertThat(mStoreUnderTest.writeDetails("-KFgallery1", mDetails.subList(0, 1)),
+                is(true));
+        assertThat(mStoreUnderTest.getDetailsVersion(GALLERY_ID), is(version));
+        assertThat(mStoreUnderTest.writeDetails(GALLERY_ID, mDetails), is(false));
+        assertThat(mStoreUnderTest.readDetails("-KFgallery2"), is(nullValue()));
+    }
+
+    @Test
+    public void testReadGalleries_otherFormat() throws IOException {
+        FileOutputStream out = new FileOutputStream(new File(mFolder.getRoot(), "galleries"));
+        out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        out.close();
+        assertThat(mStoreUnderTest.readGalleries(), is(nullValue()));
+    }
+
+    @Test
+    public void testReadGalleries_truncated() throws IOException {
+        mStoreUnderTest.writeGalleries(mGalleries);
+        File file = new File(mFolder.getRoot(), "galleries");
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(bytes, 0, bytes.length - 4);
+        out.close();
+        ModelStore store = new ModelStore(mFolder.getRoot());
+        assertThat(store.readGalleries(), is(nullValue()));
+        // The broken file is replaced by the next write.
+        assertThat(store.writeGalleries(mGalleries), is(true));
+        assertThat(store.readGalleries(), is(mGalleries));
+    }
+
+    @Test
+    public void testReadGalleries_corrupted() throws IOException {
+        mStoreUnderTest.writeGalleries(mGalleries);
+        File file = new File(mFolder.getRoot(), "galleries");
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        // Still parses, as the last byte belongs to a longitude.
+        bytes[bytes.length - 1] ^= 1;
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(bytes);
+        out.close();
+        ModelStore store = new ModelStore(mFolder.getRoot());
+        assertThat(store.readGalleries(), is(nullValue()));
+        assertThat(store.getGalleriesVersion(), is(0L));
+        assertThat(store.writeGalleries(mGalleries), is(true));
+    }
+
+    @Test
+    public void testReadDetails_trailingBytes() throws IOException {
+        mStoreUnderTest.writeDetails(GALLERY_ID, mDetails);
+        FileOutputStream out = new FileOutputStream(
+                new File(new File(mFolder.getRoot(), "details"), GALLERY_ID), true);
+        out.write(0);
+        out.close();
+        assertThat(new ModelStore(mFolder.getRoot()).readDetails(GALLERY_ID), is(nullValue()));
+    }
+}
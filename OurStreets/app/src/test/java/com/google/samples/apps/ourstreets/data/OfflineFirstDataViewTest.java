@@ -0,0 +1,348 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.data;
+
+import androidx.annotation.NonNull;
+import androidx.test.filters.SmallTest;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.samples.apps.ourstreets.model.Gallery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Measures the time to content on a cold start, with nothing stored, and on a warm start,
+ * against a remote that answers after {@link #REMOTE_LATENCY_MS}.
+ */
+@SmallTest
+public class OfflineFirstDataViewTest {
+
+    private static final long REMOTE_LATENCY_MS = 300;
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            command.run();
+        }
+    };
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private ScheduledExecutorService mRemote;
+    private List<Gallery> mGalleries;
+
+    @Before
+    public void alloc() {
+        mRemote = Executors.newSingleThreadScheduledExecutor();
+        mGalleries = createGalleries(20);
+    }
+
+    @After
+    public void release() throws InterruptedException {
+        mRemote.shutdownNow();
+        mRemote.awaitTermination(1, TimeUnit.SECONDS);
+        mRemote = null;
+        mGalleries = null;
+    }
+
+    @Test
+    public void testTimeToContent_coldStart() throws InterruptedException {
+        RecordingDataView view = new RecordingDataView();
+        long start = System.nanoTime();
+        OfflineFirstDataView<Gallery> dataView = OfflineFirstDataView.forGalleries(view,
+                new ModelStore(mFolder.getRoot()), DIRECT);
+        assertThat(dataView.showStoredData(), is(false));
+        deliverRemote(dataView, mGalleries);
+        view.awaitData();
+        long timeToContentMs = TimeUnit.NANOSECONDS.toMillis(view.mFirstDataNanos - start);
+        assertThat(timeToContentMs, is(greaterThanOrEqualTo(REMOTE_LATENCY_MS)));
+        assertThat(view.mData, is(mGalleries));
+    }
+
+    @Test
+    public void testTimeToContent_warmStart() throws InterruptedException {
+        new ModelStore(mFolder.getRoot()).writeGalleries(mGalleries);
+
+        RecordingDataView view = new RecordingDataView();
+        long start = System.nanoTime();
+        OfflineFirstDataView<Gallery> dataView = OfflineFirstDataView.forGalleries(view,
+                new ModelStore(mFolder.getRoot()), DIRECT);
+        assertThat(dataView.showStoredData(), is(true));
+        long timeToContentMs = TimeUnit.NANOSECONDS.toMillis(view.mFirstDataNanos - start);
+        assertThat(timeToContentMs, is(lessThan(REMOTE_LATENCY_MS / 2)));
+        assertThat(view.mData, is(mGalleries));
+
+        // The unchanged remote data is not shown again.
+        deliverRemote(dataView, createGalleries(20)).await();
+        assertThat(view.mDataCount, is(1));
+    }
+
+    @Test
+    public void testShowData_remoteChanged() throws InterruptedException {
+        new ModelStore(mFolder.getRoot()).writeGalleries(mGalleries);
+        RecordingDataView view = new RecordingDataView();
+        OfflineFirstDataView<Gallery> dataView = OfflineFirstDataView.forGalleries(view,
+                new ModelStore(mFolder.getRoot()), DIRECT);
+        dataView.showStoredData();
+
+        List<Gallery> remote = createGalleries(21);
+        deliverRemote(dataView, remote).await();
+        assertThat(view.mDataCount, is(2));
+        assertThat(view.mData, is(remote));
+        assertThat(new ModelStore(mFolder.getRoot()).readGalleries(), is(remote));
+    }
+
+    @Test
+    public void testShowError_afterStoredData() {
+        new ModelStore(mFolder.getRoot()).writeGalleries(mGalleries);
+        RecordingDataView view = new RecordingDataView();
+        OfflineFirstDataView<Gallery> dataView = OfflineFirstDataView.forGalleries(view,
+                new ModelStore(mFolder.getRoot()), DIRECT);
+        dataView.showStoredData();
+        dataView.showError();
+        assertThat(view.mErrorCount, is(0));
+    }
+
+    @Test
+    public void testShowError_nothingStored() {
+        RecordingDataView view = new RecordingDataView();
+        OfflineFirstDataView<Gallery> dataView = OfflineFirstDataView.forGalleries(view,
+                new ModelStore(mFolder.getRoot()), DIRECT);
+        dataView.showStoredData();
+        dataView.showError();
+        assertThat(view.mErrorCount, is(1));
+    }
+
+    @Test
+    public void testShowFetchedData_reconciled() throws InterruptedException {
+        RecordingDataView view = new RecordingDataView();
+        OfflineFirstDataView<Gallery> dataView = OfflineFirstDataView.forGalleries(view,
+                new ModelStore(mFolder.getRoot()), DIRECT);
+        dataView.showFetchedData(mGalleries);
+        assertThat(view.mDataCount, is(1));
+        assertThat(new ModelStore(mFolder.getRoot()).readGalleries(), is(mGalleries));
+
+        // The same remote data is not shown again, changed remote data is.
+        deliverRemote(dataView, createGalleries(20)).await();
+        assertThat(view.mDataCount, is(1));
+        List<Gallery> remote = createGalleries(21);
+        deliverRemote(dataView, remote).await();
+        assertThat(view.mDataCount, is(2));
+        assertThat(view.mData, is(remote));
+
+        dataView.showError();
+        assertThat(view.mErrorCount, is(0));
+    }
+
+    @Test
+    public void testShowDataChange_storedOnFlush() {
+        CountingStore store = new CountingStore();
+        OfflineFirstDataView<Gallery> dataView = OfflineFirstDataView.create(
+                new RecordingIncrementalDataView(), store, store);
+        List<Gallery> remote = createGalleries(20);
+        dataView.showData(remote);
+        assertThat(store.mWriteCount, is(1));
+
+        IncrementalDataView<Gallery> incremental = (IncrementalDataView<Gallery>) dataView;
+        for (int i = 0; i < 10; i++) {
+            remote.remove(0);
+            incremental.showDataChange(DataChange.removed(0));
+        }
+        // Changes are only stored once they are flushed, and then only once.
+        assertThat(store.mWriteCount, is(1));
+        dataView.flush();
+        dataView.flush();
+        assertThat(store.mWriteCount, is(2));
+        assertThat(store.mData, is(remote));
+
+        // The stored data is a copy, which later changes don't reach.
+        remote.remove(0);
+        assertThat(store.mData.size(), is(10));
+    }
+
+    @Test
+    public void testShowData_incrementalAlwaysShown() {
+        CountingStore store = new CountingStore();
+        store.mData = createGalleries(20);
+        RecordingIncrementalDataView view = new RecordingIncrementalDataView();
+        OfflineFirstDataView<Gallery> dataView = OfflineFirstDataView.create(view, store, store);
+        dataView.showStoredData();
+        List<Gallery> remote = createGalleries(20);
+        dataView.showData(remote);
+        // The view needs the live list, even if it equals the stored one.
+        assertThat(view.mDataCount, is(2));
+        assertThat(view.mData == remote, is(true));
+    }
+
+    @Test
+    public void testShowData_storedInBackground() {
+        CountingStore store = new CountingStore();
+        QueuedExecutor writes = new QueuedExecutor();
+        RecordingDataView view = new RecordingDataView();
+        OfflineFirstDataView<Gallery> dataView = OfflineFirstDataView.create(view, store, writes);
+        // Plain views get whole snapshots instead of child events.
+        assertThat(dataView instanceof IncrementalDataView, is(false));
+
+        dataView.showData(mGalleries);
+        assertThat(view.mDataCount, is(1));
+        assertThat(store.mWriteCount, is(0));
+        writes.mQueue.get(0).run();
+        assertThat(store.mData, is(mGalleries));
+
+        // Equal data is stored again, but not shown again.
+        dataView.showData(createGalleries(20));
+        assertThat(view.mDataCount, is(1));
+        assertThat(writes.mQueue.size(), is(2));
+        dataView.showData(createGalleries(21));
+        assertThat(view.mDataCount, is(2));
+    }
+
+    @Test
+    public void testShowFetchedData_storedInBackground() {
+        CountingStore store = new CountingStore();
+        QueuedExecutor writes = new QueuedExecutor();
+        OfflineFirstDataView<Gallery> dataView = OfflineFirstDataView.create(
+                new RecordingDataView(), store, writes);
+        dataView.showFetchedData(mGalleries);
+        assertThat(store.mWriteCount, is(0));
+        writes.mQueue.get(0).run();
+        assertThat(store.mData, is(mGalleries));
+    }
+
+    /**
+     * Delivers data to a view after the remote latency.
+     *
+     * @return A latch that is released once the data was delivered.
+     */
+    private CountDownLatch deliverRemote(@NonNull final DataView<Gallery> dataView,
+                                         @NonNull final List<Gallery> data) {
+        final CountDownLatch delivered = new CountDownLatch(1);
+        mRemote.schedule(new Runnable() {
+            @Override
+            public void run() {
+                dataView.showData(data);
+                delivered.countDown();
+            }
+        }, REMOTE_LATENCY_MS, TimeUnit.MILLISECONDS);
+        return delivered;
+    }
+
+    private static List<Gallery> createGalleries(int count) {
+        List<Gallery> galleries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            galleries.add(new Gallery("title" + i, "description" + i, "-KFgallery" + i,
+                    new LatLng(i, i)));
+        }
+        return galleries;
+    }
+
+    /**
+     * Keeps the data in memory and writes it on the calling thread.
+     */
+    private static final class CountingStore implements OfflineFirstDataView.Store<Gallery>,
+            Executor {
+
+        private List<Gallery> mData;
+        private int mWriteCount;
+
+        @Override
+        public List<Gallery> read() {
+            return mData;
+        }
+
+        @Override
+        public boolean write(@NonNull List<Gallery> data) {
+            mWriteCount++;
+            boolean changed = !data.equals(mData);
+            mData = data;
+            return changed;
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            command.run();
+        }
+    }
+
+    /**
+     * Keeps the commands to run them when the test chooses.
+     */
+    private static final class QueuedExecutor implements Executor {
+
+        private final List<Runnable> mQueue = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mQueue.add(command);
+        }
+    }
+
+    private static class RecordingIncrementalDataView extends RecordingDataView
+            implements IncrementalDataView<Gallery> {
+
+        @Override
+        public void showDataChange(@NonNull DataChange change) {
+            // Only the data is recorded.
+        }
+    }
+
+    private static class RecordingDataView implements DataView<Gallery> {
+
+        private final CountDownLatch mFirstData = new CountDownLatch(1);
+        volatile List<Gallery> mData;
+        volatile long mFirstDataNanos;
+        volatile int mDataCount;
+        volatile int mErrorCount;
+
+        @Override
+        public void showData(List<Gallery> data) {
+            if (mDataCount++ == 0) {
+                mFirstDataNanos = System.nanoTime();
+            }
+            mData = data;
+            mFirstData.countDown();
+        }
+
+        @Override
+        public void showError() {
+            mErrorCount++;
+        }
+
+        void awaitData() throws InterruptedException {
+            assertThat(mFirstData.await(REMOTE_LATENCY_MS * 10, TimeUnit.MILLISECONDS),
+                    is(true));
+        }
+    }
+}
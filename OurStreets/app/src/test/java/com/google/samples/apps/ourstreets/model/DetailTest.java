@@ -79,4 +79,14 @@ public class DetailTest {
     public void testGetBearing() {
         assertThat( Math.abs(mDetailUnderTest.getBearing() - mBearing) < MAX_FLOAT_DELTA, is(true));
     }
+
+    @Test
+    public void testEquals() {
+        Detail same = new Detail(mTitle, mDescription, new LatLng(51.5014, -0.1419), mTilt,
+                mBearing);
+        assertThat(mDetailUnderTest.equals(same), is(true));
+        assertThat(mDetailUnderTest.hashCode(), is(same.hashCode()));
+        assertThat(mDetailUnderTest.equals(new Detail(mTitle, mDescription, mLocation, mTilt,
+                90f)), is(false));
+    }
 }
@@ -30,6 +30,7 @@ import java.util.List;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 
 @SmallTest
 public class GalleryTest {
@@ -111,4 +112,48 @@ public class GalleryTest {
         mGalleryUnderTest.replaceDetails(testList);
         assertThat(mGalleryUnderTest.getBounds(), notNullValue());
     }
+
+    @Test
+    public void testGetBounds_afterReplaceDetails() {
+        List<Detail> testList = new ArrayList<>();
+        testList.add(new Detail(mTitle, mDescription, mPosition, 0, 0));
+        mGalleryUnderTest.replaceDetails(testList);
+        mGalleryUnderTest.getBounds();
+        LatLng north = new LatLng(52.5, -0.1419);
+        testList.add(new Detail(mTitle, mDescription, north, 0, 0));
+        mGalleryUnderTest.replaceDetails(testList);
+        assertThat(mGalleryUnderTest.getBounds().northeast, is(north));
+        assertThat(mGalleryUnderTest.getBounds().southwest, is(mPosition));
+    }
+
+    @Test
+    public void testGetDetailsWithin() {
+        List<Detail> testList = createDetails();
+        mGalleryUnderTest.replaceDetails(testList);
+        List<Detail> details = mGalleryUnderTest.getDetailsWithin(51, -1, 52, 0);
+        assertThat(details.size(), is(1));
+        assertThat(details.get(0), is(testList.get(0)));
+        assertThat(mGalleryUnderTest.getDetailsWithin(-90, -180, 90, 180).size(), is(3));
+    }
+
+    @Test
+    public void testGetNearestDetail() {
+        List<Detail> testList = createDetails();
+        mGalleryUnderTest.replaceDetails(testList);
+        assertThat(mGalleryUnderTest.getNearestDetail(new LatLng(48, 2)), is(testList.get(1)));
+    }
+
+    @Test
+    public void testGetNearestDetail_none() {
+        mGalleryUnderTest.replaceDetails(null);
+        assertThat(mGalleryUnderTest.getNearestDetail(mPosition), nullValue());
+    }
+
+    private List<Detail> createDetails() {
+        List<Detail> testList = new ArrayList<>();
+        testList.add(new Detail(mTitle, mDescription, mPosition, 0, 0));
+        testList.add(new Detail(mTitle, mDescription, new LatLng(48.8584, 2.2945), 0, 0));
+        testList.add(new Detail(mTitle, mDescription, new LatLng(40.6892, -74.0445), 0, 0));
+        return testList;
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.samples.apps.ourstreets.model;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@SmallTest
+public class LatLngIndexTest {
+
+    private static final int POINT_COUNT = 1000000;
+    private static final int QUERY_COUNT = 100;
+
+    private double[] mLatitudes;
+    private double[] mLongitudes;
+    private LatLngIndex mIndexUnderTest;
+    private Random mRandom;
+
+    @Before
+    public void alloc() {
+        mRandom = new Random(42);
+        mLatitudes = new double[POINT_COUNT];
+        mLongitudes = new double[POINT_COUNT];
+        for (int i = 0; i < POINT_COUNT; i++) {
+            mLatitudes[i] = mRandom.nextDouble() * 170 - 85;
+            mLongitudes[i] = mRandom.nextDouble() * 360 - 180;
+        }
+        mIndexUnderTest = new LatLngIndex(mLatitudes, mLongitudes);
+    }
+
+    @After
+    public void release() {
+        mIndexUnderTest = null;
+        mLatitudes = null;
+        mLongitudes = null;
+    }
+
+    @Test
+    public void testBounds() {
+        double south = 90;
+        double west = 180;
+        double north = -90;
+        double east = -180;
+        for (int i = 0; i < POINT_COUNT; i++) {
+            south = Math.min(south, mLatitudes[i]);
+            north = Math.max(north, mLatitudes[i]);
+            west = Math.min(west, mLongitudes[i]);
+            east = Math.max(east, mLongitudes[i]);
+        }
+        assertThat(mIndexUnderTest.size(), is(POINT_COUNT));
+        assertThat(mIndexUnderTest.getSouth(), is(south));
+        assertThat(mIndexUnderTest.getWest(), is(west));
+        assertThat(mIndexUnderTest.getNorth(), is(north));
+        assertThat(mIndexUnderTest.getEast(), is(east));
+    }
+
+    @Test
+    public void testQuery() {
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            double south = mRandom.nextDouble() * 170 - 85;
+            double west = mRandom.nextDouble() * 360 - 180;
+            double north = Math.min(90, south + mRandom.nextDouble() * 5);
+            double east = Math.min(180, west + mRandom.nextDouble() * 5);
+            assertThat(query(south, west, north, east),
+                    is(scan(south, west, north, east)));
+        }
+    }
+
+    @Test
+    public void testQuery_acrossAntimeridian() {
+        assertThat(query(-10, 175, 10, -175), is(scan(-10, 175, 10, -175)));
+    }
+
+    @Test
+    public void testQuery_everything() {
+        assertThat(query(-90, -180, 90, 180).size(), is(POINT_COUNT));
+    }
+
+    @Test
+    public void testNearest() {
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            double latitude = mRandom.nextDouble() * 170 - 85;
+            double longitude = mRandom.nextDouble() * 360 - 180;
+            double longitudeScale = Math.cos(Math.toRadians(latitude));
+            int nearest = mIndexUnderTest.nearest(latitude, longitude);
+            // Compared by distance, in case two points are equally near.
+            assertThat(getDistance(nearest, latitude, longitude, longitudeScale),
+                    is(getDistance(scanNearest(latitude, longitude, longitudeScale), latitude,
+                            longitude, longitudeScale)));
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        LatLngIndex index = new LatLngIndex(new double[0], new double[0]);
+        assertThat(index.size(), is(0));
+        assertThat(index.nearest(0, 0), is(-1));
+        final List<Integer> found = new ArrayList<>();
+        index.query(-90, -180, 90, 180, new LatLngIndex.Visitor() {
+            @Override
+            public void visit(int index) {
+                found.add(index);
+            }
+        });
+        assertThat(found.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testSinglePoint() {
+        LatLngIndex index = new LatLngIndex(new double[]{51.5}, new double[]{-0.14});
+        assertThat(index.nearest(0, 0), is(0));
+        assertThat(index.getSouth(), is(51.5));
+        assertThat(index.getEast(), is(-0.14));
+    }
+
+    private List<Integer> query(double south, double west, double north, double east) {
+        final List<Integer> found = new ArrayList<>();
+        mIndexUnderTest.query(south, west, north, east, new LatLngIndex.Visitor() {
+            @Override
+            public void visit(int index) {
+                found.add(index);
+            }
+        });
+        Collections.sort(found);
+        return found;
+    }
+
+    private List<Integer> scan(double south, double west, double north, double east) {
+        List<Integer> found = new ArrayList<>();
+        for (int i = 0; i < POINT_COUNT; i++) {
+            boolean withinLongitude = west <= east
+                    ? mLongitudes[i] >= west && mLongitudes[i] <= east
+                    : mLongitudes[i] >= west || mLongitudes[i] <= east;
+            if (withinLongitude && mLatitudes[i] >= south && mLatitudes[i] <= north) {
+                found.add(i);
+            }
+        }
+        return found;
+    }
+
+    private int scanNearest(double latitude, double longitude, double longitudeScale) {
+        int nearest = -1;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < POINT_COUNT; i++) {
+            double distance = getDistance(i, latitude, longitude, longitudeScale);
+            if (distance < nearestDistance) {
+                nearest = i;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    private double getDistance(int i, double latitude, double longitude,
+                               double longitudeScale) {
+        double dx = (mLongitudes[i] - longitude) * longitudeScale;
+        double dy = mLatitudes[i] - latitude;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.example.android.unsplash;
+
+import android.content.Intent;
+import android.os.Parcel;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.example.android.unsplash.data.model.Photo;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Compares the size and parceling time of detail intents for a short and a long feed.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class IntentUtilBenchmarkTest {
+
+    private static final int SMALL_FEED = 12;
+    private static final int LARGE_FEED = 10000;
+    private static final int RUNS = 20;
+
+    @Test
+    public void testPutCompactPhotos_benchmark() {
+        final Result small = measure(SMALL_FEED);
+        final Result large = measure(LARGE_FEED);
+
+        final String result = String.format(Locale.US,
+                "detailIntent smallPhotos=%d smallBytes=%d smallUs=%d "
+                        + "largePhotos=%d largeBytes=%d largeUs=%d",
+                small.photoCount, small.bytes, TimeUnit.NANOSECONDS.toMicros(small.nanos),
+                large.photoCount, large.bytes, TimeUnit.NANOSECONDS.toMicros(large.nanos));
+        assertThat(result, small.photoCount, is(SMALL_FEED));
+        assertThat(result, large.photoCount, is(IntentUtil.COMPACT_PHOTO_WINDOW));
+        assertThat(result, large.bytes, lessThan(small.bytes * 10));
+        System.out.println(result);
+    }
+
+    /**
+     * Puts the photos around the middle of a feed into an intent, parcels it and reads the
+     * photos back, the way the detail activity does after process death.
+     */
+    private static Result measure(int feedSize) {
+        final List<Photo> photos = new ArrayList<>(feedSize);
+        for (int i = 0; i < feedSize; i++) {
+            photos.add(new Photo("jpeg", 5616, 3744, i + ".jpeg", i, "Author " + i, null, null));
+        }
+        final Result result = new Result();
+        result.nanos = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            final long start = System.nanoTime();
+            final Intent intent = new Intent(Intent.ACTION_VIEW);
+            IntentUtil.putCompactPhotos(intent, photos, feedSize / 2);
+            final Parcel parcel = Parcel.obtain();
+            intent.writeToParcel(parcel, 0);
+            result.bytes = parcel.dataSize();
+            parcel.setDataPosition(0);
+            final Intent read = Intent.CREATOR.createFromParcel(parcel);
+            parcel.recycle();
+            //noinspection ConstantConditions
+            result.photoCount = IntentUtil.getCompactPhotos(read).size();
+            result.nanos = Math.min(result.nanos, System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private static class Result {
+        int photoCount;
+        int bytes;
+        long nanos;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.example.android.unsplash.transition;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Debug;
+import android.view.Gravity;
+import android.widget.TextView;
+
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Compares the draw cost and allocations of {@link TextResize#MODE_VECTOR} and
+ * {@link TextResize#MODE_BITMAP} over the frames of a font size animation.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TextResizeDrawableBenchmarkTest {
+
+    private static final int FRAME_COUNT = 120;
+    private static final int RUNS = 5;
+    private static final float START_FONT_SIZE = 20f;
+    private static final float END_FONT_SIZE = 40f;
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 80;
+
+    private TextView view;
+    private Canvas canvas;
+    private Bitmap target;
+
+    @Before
+    public void alloc() {
+        view = new TextView(InstrumentationRegistry.getInstrumentation().getTargetContext());
+        view.setText("Photo by Alice Example");
+        target = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(target);
+    }
+
+    @After
+    public void release() {
+        target.recycle();
+        target = null;
+        canvas = null;
+        view = null;
+    }
+
+    @Test
+    @UiThreadTest
+    public void testDraw_benchmark() {
+        TextResize.TextLayoutDrawable vector = new TextResize.TextLayoutDrawable(view,
+                Gravity.LEFT | Gravity.TOP, START_FONT_SIZE, WIDTH / 2, WIDTH / 2,
+                END_FONT_SIZE, WIDTH, WIDTH);
+        TextResize.SwitchBitmapDrawable bitmap = new TextResize.SwitchBitmapDrawable(view,
+                Gravity.LEFT | Gravity.TOP,
+                Bitmap.createBitmap(WIDTH / 2, HEIGHT / 2, Bitmap.Config.ARGB_8888),
+                START_FONT_SIZE, WIDTH / 2,
+                Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888),
+                END_FONT_SIZE, WIDTH);
+        setUp(vector);
+        setUp(bitmap);
+
+        // The first vector run lays out the text once per font size step.
+        final int vectorFirstRunAllocations = countAllocations(vector);
+        final int vectorAllocations = countAllocations(vector);
+        final int bitmapAllocations = countAllocations(bitmap);
+
+        long vectorNanos = Long.MAX_VALUE;
+        long bitmapNanos = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            vectorNanos = Math.min(vectorNanos, timeRun(vector));
+            bitmapNanos = Math.min(bitmapNanos, timeRun(bitmap));
+        }
+        bitmap.release();
+
+        final String result = String.format(Locale.US,
+                "textResize frames=%d vectorUsPerFrame=%d bitmapUsPerFrame=%d "
+                        + "vectorFirstRunAllocs=%d vectorAllocs=%d bitmapAllocs=%d",
+                FRAME_COUNT, TimeUnit.NANOSECONDS.toMicros(vectorNanos / FRAME_COUNT),
+                TimeUnit.NANOSECONDS.toMicros(bitmapNanos / FRAME_COUNT),
+                vectorFirstRunAllocations, vectorAllocations, bitmapAllocations);
+        // Later runs reuse the cached layouts and their line bounds.
+        assertThat(result, vectorAllocations, lessThan(vectorFirstRunAllocations));
+        assertThat(result, bitmapAllocations, is(0));
+        System.out.println(result);
+    }
+
+    private static void setUp(TextResize.TextResizeDrawable drawable) {
+        drawable.setProperty(TextResize.TextResizeDrawable.PROPERTY_RIGHT, WIDTH);
+        drawable.setProperty(TextResize.TextResizeDrawable.PROPERTY_BOTTOM, HEIGHT);
+        drawable.setTextColors(Color.BLACK, Color.WHITE);
+    }
+
+    /**
+     * @return The number of objects that drawing all frames allocated on this thread.
+     */
+    @SuppressWarnings("deprecation")
+    private int countAllocations(TextResize.TextResizeDrawable drawable) {
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        drawFrames(drawable);
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocCount();
+    }
+
+    private long timeRun(TextResize.TextResizeDrawable drawable) {
+        final long start = System.nanoTime();
+        drawFrames(drawable);
+        return System.nanoTime() - start;
+    }
+
+    private void drawFrames(TextResize.TextResizeDrawable drawable) {
+        for (int i = 0; i <= FRAME_COUNT; i++) {
+            final float fraction = (float) i / FRAME_COUNT;
+            drawable.setProperty(TextResize.TextResizeDrawable.PROPERTY_FONT_SIZE,
+                    START_FONT_SIZE + (END_FONT_SIZE - START_FONT_SIZE) * fraction);
+            drawable.setProperty(TextResize.TextResizeDrawable.PROPERTY_TEXT_COLOR_FRACTION,
+                    fraction);
+            drawable.draw(canvas);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.example.android.unsplash.transition;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Debug;
+import android.view.Gravity;
+import android.widget.TextView;
+
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class TextResizeDrawableTest {
+
+    private static final int FRAME_COUNT = 60;
+    private static final float START_FONT_SIZE = 20f;
+    private static final float END_FONT_SIZE = 40f;
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 80;
+
+    private TextView view;
+    private Canvas canvas;
+    private Bitmap target;
+
+    @Before
+    public void alloc() {
+        view = new TextView(InstrumentationRegistry.getInstrumentation().getTargetContext());
+        view.setText("Photo by Alice");
+        target = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(target);
+    }
+
+    @After
+    public void release() {
+        target.recycle();
+        target = null;
+        canvas = null;
+        view = null;
+    }
+
+    @Test
+    @UiThreadTest
+    public void testDraw_argbAnimatedColorAllocationFree() {
+        TextResize.SwitchBitmapDrawable drawable = createBitmapDrawable(Bitmap.Config.ARGB_8888);
+        drawable.setTextColors(Color.BLACK, Color.WHITE);
+        assertThat(countFrameAllocations(drawable), is(0));
+        drawable.release();
+    }
+
+    @Test
+    @UiThreadTest
+    public void testDraw_argbSameColorAllocationFree() {
+        TextResize.SwitchBitmapDrawable drawable = createBitmapDrawable(Bitmap.Config.ARGB_8888);
+        drawable.setTextColors(Color.WHITE, Color.WHITE);
+        assertThat(countFrameAllocations(drawable), is(0));
+        drawable.release();
+    }
+
+    @Test
+    @UiThreadTest
+    public void testDraw_alphaAllocationFree() {
+        TextResize.SwitchBitmapDrawable drawable = createBitmapDrawable(Bitmap.Config.ALPHA_8);
+        drawable.setTextColors(Color.BLACK, Color.WHITE);
+        assertThat(countFrameAllocations(drawable), is(0));
+        drawable.release();
+    }
+
+    private TextResize.SwitchBitmapDrawable createBitmapDrawable(Bitmap.Config config) {
+        TextResize.SwitchBitmapDrawable drawable = new TextResize.SwitchBitmapDrawable(view,
+                Gravity.LEFT | Gravity.TOP,
+                Bitmap.createBitmap(WIDTH / 2, HEIGHT / 2, config), START_FONT_SIZE, WIDTH / 2,
+                Bitmap.createBitmap(WIDTH, HEIGHT, config), END_FONT_SIZE, WIDTH);
+        drawable.setProperty(TextResize.TextResizeDrawable.PROPERTY_RIGHT, WIDTH);
+        drawable.setProperty(TextResize.TextResizeDrawable.PROPERTY_BOTTOM, HEIGHT);
+        return drawable;
+    }
+
+    /**
+     * Draws the frames of an animation after a first one, which may set up state.
+     *
+     * @return The number of objects the frames allocated on this thread.
+     */
+    @SuppressWarnings("deprecation")
+    private int countFrameAllocations(TextResize.TextResizeDrawable drawable) {
+        drawFrame(drawable, 0f);
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 1; i <= FRAME_COUNT; i++) {
+            drawFrame(drawable, (float) i / FRAME_COUNT);
+        }
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocCount();
+    }
+
+    private void drawFrame(TextResize.TextResizeDrawable drawable, float fraction) {
+        // Set directly, as the animator would through a FloatProperty, to avoid boxing.
+        drawable.setProperty(TextResize.TextResizeDrawable.PROPERTY_FONT_SIZE,
+                START_FONT_SIZE + (END_FONT_SIZE - START_FONT_SIZE) * fraction);
+        drawable.setProperty(TextResize.TextResizeDrawable.PROPERTY_TEXT_COLOR_FRACTION,
+                fraction);
+        drawable.draw(canvas);
+    }
+}
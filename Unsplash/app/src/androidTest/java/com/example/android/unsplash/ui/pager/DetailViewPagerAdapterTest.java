@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.example.android.unsplash.ui.pager;
+
+import android.content.Intent;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.viewpager.widget.ViewPager;
+
+import com.example.android.unsplash.DetailActivity;
+import com.example.android.unsplash.IntentUtil;
+import com.example.android.unsplash.R;
+import com.example.android.unsplash.data.PhotoSessions;
+import com.example.android.unsplash.data.model.Photo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Pages through a long detail pager and checks that destroyed pages are reused.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class DetailViewPagerAdapterTest {
+
+    private static final int PAGE_COUNT = 500;
+
+    private String session;
+
+    @Before
+    public void alloc() {
+        final List<Photo> photos = new ArrayList<>(PAGE_COUNT);
+        for (int i = 0; i < PAGE_COUNT; i++) {
+            photos.add(new Photo("jpeg", 5616, 3744, i + ".jpeg", i, "Author " + i, null, null));
+        }
+        session = PhotoSessions.put(photos);
+    }
+
+    @After
+    public void release() {
+        PhotoSessions.remove(session);
+        session = null;
+    }
+
+    @Test
+    public void testFling_reusesPages() {
+        final Intent intent = new Intent(ApplicationProvider.getApplicationContext(),
+                DetailActivity.class);
+        intent.putExtra(IntentUtil.PHOTO_SESSION, session);
+        try (ActivityScenario<DetailActivity> scenario = ActivityScenario.launch(intent)) {
+            scenario.onActivity(new ActivityScenario.ActivityAction<DetailActivity>() {
+                @Override
+                public void perform(DetailActivity activity) {
+                    final ViewPager pager = (ViewPager) activity.findViewById(R.id.pager);
+                    for (int i = 1; i < PAGE_COUNT; i++) {
+                        pager.setCurrentItem(i, false);
+                    }
+                    final DetailViewPagerAdapter adapter =
+                            (DetailViewPagerAdapter) pager.getAdapter();
+                    //noinspection ConstantConditions
+                    final String counts = "inflated " + adapter.getInflationCount()
+                            + " pages for " + adapter.getBindCount() + " bound";
+                    // Every page was bound once, but only the pages the pager keeps at a time
+                    // and the recycled ones were ever inflated.
+                    assertThat(counts, adapter.getBindCount(), is(PAGE_COUNT));
+                    assertThat(counts, adapter.getInflationCount(), lessThanOrEqualTo(
+                            2 * pager.getOffscreenPageLimit() + 1
+                                    + DetailViewPagerAdapter.MAX_RECYCLED_BINDINGS));
+                }
+            });
+        }
+    }
+}
@@ -29,17 +29,26 @@ import android.widget.Toolbar;
 
 import androidx.viewpager.widget.ViewPager;
 
+import com.example.android.unsplash.data.PhotoSessions;
 import com.example.android.unsplash.data.model.Photo;
+import com.example.android.unsplash.databinding.DetailViewBinding;
+import com.example.android.unsplash.transition.TransitionMetrics;
 import com.example.android.unsplash.ui.DetailSharedElementEnterCallback;
+import com.example.android.unsplash.ui.HardwareLayerCallback;
 import com.example.android.unsplash.ui.pager.DetailViewPagerAdapter;
 
-import java.util.ArrayList;
+import java.util.List;
 
 public class DetailActivity extends Activity {
 
     private static final String STATE_INITIAL_ITEM = "initial";
     private ViewPager viewPager;
     private int initialItem;
+    /**
+     * The position in the grid's photos of the first page. It is only set when the photos
+     * are restored from the Intent, which only holds those around the selected one.
+     */
+    private int photoOffset;
     private final View.OnClickListener navigationOnClickListener =
             new View.OnClickListener() {
                 @Override
@@ -48,12 +57,19 @@ public class DetailActivity extends Activity {
                 }
             };
     private DetailSharedElementEnterCallback sharedElementCallback;
+    private final HardwareLayerCallback layerCallback = new HardwareLayerCallback();
+    private Toolbar toolbar;
+    private TransitionMetrics sharedElementMetrics;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         setContentView(R.layout.activity_detail);
 
         postponeEnterTransition();
+        // Also measures the shared element return transition, which defaults to the same one.
+        sharedElementMetrics = new TransitionMetrics(this, "detail_shared_element");
+        sharedElementMetrics.attach(getWindow().getSharedElementEnterTransition());
+        sharedElementMetrics.onPostponeEnterTransition();
 
         TransitionSet transitions = new TransitionSet();
         Slide slide = new Slide(Gravity.BOTTOM);
@@ -62,24 +78,39 @@ public class DetailActivity extends Activity {
         slide.setDuration(getResources().getInteger(android.R.integer.config_shortAnimTime));
         transitions.addTransition(slide);
         transitions.addTransition(new Fade());
+        // Also used as the return transition.
+        transitions.addListener(layerCallback);
         getWindow().setEnterTransition(transitions);
 
         Intent intent = getIntent();
         sharedElementCallback = new DetailSharedElementEnterCallback(intent);
         setEnterSharedElementCallback(sharedElementCallback);
         initialItem = intent.getIntExtra(IntentUtil.SELECTED_ITEM_POSITION, 0);
-        setUpViewPager(intent.<Photo>getParcelableArrayListExtra(IntentUtil.PHOTO));
+        viewPager = (ViewPager) findViewById(R.id.pager);
+        List<Photo> photos = PhotoSessions.get(intent.getStringExtra(IntentUtil.PHOTO_SESSION));
+        if (photos == null) {
+            // The process has been restarted since the grid handed the photos over.
+            photos = IntentUtil.getCompactPhotos(intent);
+            photoOffset = IntentUtil.getCompactPhotosOffset(intent);
+        }
+        if (photos != null) {
+            setUpViewPager(photos);
+        } else {
+            sharedElementMetrics.onStartPostponedEnterTransition();
+            startPostponedEnterTransition();
+        }
 
-        Toolbar toolbar = (Toolbar) findViewById(R.id.toolbar);
+        toolbar = (Toolbar) findViewById(R.id.toolbar);
         toolbar.setNavigationOnClickListener(navigationOnClickListener);
 
         super.onCreate(savedInstanceState);
     }
 
-    private void setUpViewPager(ArrayList<Photo> photos) {
-        viewPager = (ViewPager) findViewById(R.id.pager);
-        viewPager.setAdapter(new DetailViewPagerAdapter(this, photos, sharedElementCallback));
-        viewPager.setCurrentItem(initialItem);
+    private void setUpViewPager(List<Photo> photos) {
+        viewPager.setAdapter(new DetailViewPagerAdapter(this, photos,
+                getIntent().getIntExtra(IntentUtil.FEED_OFFSET, 0) + photoOffset,
+                sharedElementCallback));
+        viewPager.setCurrentItem(initialItem - photoOffset);
 
         viewPager.addOnLayoutChangeListener(new View.OnLayoutChangeListener() {
             @Override
@@ -87,6 +118,8 @@ public class DetailActivity extends Activity {
                                        int oldLeft, int oldTop, int oldRight, int oldBottom) {
                 if (viewPager.getChildCount() > 0) {
                     viewPager.removeOnLayoutChangeListener(this);
+                    updateLayerParticipants();
+                    sharedElementMetrics.onStartPostponedEnterTransition();
                     startPostponedEnterTransition();
                 }
             }
@@ -120,13 +153,20 @@ public class DetailActivity extends Activity {
         super.finishAfterTransition();
     }
 
+    private void updateLayerParticipants() {
+        final DetailViewBinding binding = sharedElementCallback.getDetailBinding();
+        layerCallback.setParticipants(toolbar, binding != null ? binding.body : null);
+    }
+
     private void setActivityResult() {
-        if (initialItem == viewPager.getCurrentItem()) {
+        updateLayerParticipants();
+        final int selectedItem = viewPager.getCurrentItem() + photoOffset;
+        if (initialItem == selectedItem) {
             setResult(RESULT_OK);
             return;
         }
         Intent intent = new Intent();
-        intent.putExtra(IntentUtil.SELECTED_ITEM_POSITION, viewPager.getCurrentItem());
+        intent.putExtra(IntentUtil.SELECTED_ITEM_POSITION, selectedItem);
         setResult(RESULT_OK, intent);
     }
 
@@ -18,18 +18,35 @@ package com.example.android.unsplash;
 
 import android.content.Intent;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.android.unsplash.data.model.Photo;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Holding intent extra names and utility methods for intent handling.
  */
 public class IntentUtil {
     public static final String FONT_SIZE = "fontSize";
     public static final String PADDING = "padding";
-    public static final String PHOTO = "photo";
+    public static final String PHOTO_SESSION = "photoSession";
+    public static final String FEED_OFFSET = "feedOffset";
+    public static final String PHOTO_IDS = "photoIds";
+    public static final String PHOTO_AUTHORS = "photoAuthors";
+    public static final String PHOTO_IDS_OFFSET = "photoIdsOffset";
     public static final String TEXT_COLOR = "color";
-    public static final String RELEVANT_PHOTOS = "relevant";
     public static final String SELECTED_ITEM_POSITION = "selected";
     public static final int REQUEST_CODE = R.id.requestCode;
 
+    /**
+     * The most photos {@link #putCompactPhotos(Intent, List, int)} puts into an intent, centered
+     * on the selected one.
+     */
+    public static final int COMPACT_PHOTO_WINDOW = 51;
+
     /**
      * Checks if all extras are present in an intent.
      *
@@ -61,4 +78,58 @@ public class IntentUtil {
         }
         return false;
     }
+
+    /**
+     * Puts the ids and authors of the photos around a selected one into an intent. That is all
+     * a detail page shows of a photo, and it takes far less space than parceling the photos.
+     * At most {@link #COMPACT_PHOTO_WINDOW} photos are put, so that the intent stays small
+     * however many photos were loaded.
+     *
+     * @param intent The intent to put the photos into.
+     * @param photos The photos.
+     * @param position The position of the selected photo.
+     */
+    public static void putCompactPhotos(Intent intent, List<Photo> photos, int position) {
+        final int start = Math.max(0, Math.min(position - COMPACT_PHOTO_WINDOW / 2,
+                photos.size() - COMPACT_PHOTO_WINDOW));
+        final int end = Math.min(photos.size(), start + COMPACT_PHOTO_WINDOW);
+        final long[] ids = new long[end - start];
+        final String[] authors = new String[end - start];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = photos.get(start + i).id;
+            authors[i] = photos.get(start + i).author;
+        }
+        intent.putExtra(PHOTO_IDS, ids);
+        intent.putExtra(PHOTO_AUTHORS, authors);
+        intent.putExtra(PHOTO_IDS_OFFSET, start);
+    }
+
+    /**
+     * Reads photos put into an intent with {@link #putCompactPhotos(Intent, List, int)}. Only
+     * their ids and authors are set, their URLs are built from the ids.
+     *
+     * @param intent The intent to read the photos from.
+     * @return The photos, or <code>null</code> if the intent has none.
+     */
+    @Nullable
+    public static List<Photo> getCompactPhotos(@NonNull Intent intent) {
+        final long[] ids = intent.getLongArrayExtra(PHOTO_IDS);
+        final String[] authors = intent.getStringArrayExtra(PHOTO_AUTHORS);
+        if (ids == null || authors == null || ids.length != authors.length) {
+            return null;
+        }
+        final List<Photo> photos = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            photos.add(new Photo(null, 0, 0, null, ids[i], authors[i], null, null));
+        }
+        return photos;
+    }
+
+    /**
+     * @param intent An intent with photos put with {@link #putCompactPhotos(Intent, List, int)}.
+     * @return The position of the first of these photos in the list they were put from.
+     */
+    public static int getCompactPhotosOffset(@NonNull Intent intent) {
+        return intent.getIntExtra(PHOTO_IDS_OFFSET, 0);
+    }
 }
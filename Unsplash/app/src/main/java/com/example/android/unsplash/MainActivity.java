@@ -32,28 +32,32 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.example.android.unsplash.data.UnsplashService;
+import com.example.android.unsplash.data.FeedCache;
+import com.example.android.unsplash.data.FeedRepository;
+import com.example.android.unsplash.data.PhotoSessions;
 import com.example.android.unsplash.data.model.Photo;
 import com.example.android.unsplash.databinding.PhotoItemBinding;
+import com.example.android.unsplash.transition.TransitionMetrics;
 import com.example.android.unsplash.ui.DetailSharedElementEnterCallback;
+import com.example.android.unsplash.ui.HardwareLayerCallback;
 import com.example.android.unsplash.ui.TransitionCallback;
 import com.example.android.unsplash.ui.grid.GridMarginDecoration;
 import com.example.android.unsplash.ui.grid.OnItemSelectedListener;
+import com.example.android.unsplash.ui.grid.PagedPhotoList;
 import com.example.android.unsplash.ui.grid.PhotoAdapter;
+import com.example.android.unsplash.ui.grid.PhotoSpanSizeLookup;
 import com.example.android.unsplash.ui.grid.PhotoViewHolder;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import retrofit.Callback;
-import retrofit.RestAdapter;
-import retrofit.RetrofitError;
-import retrofit.client.Response;
-
 public class MainActivity extends Activity {
 
-    private static final int PHOTO_COUNT = 12;
+    private static final int PAGE_SIZE = 30;
+    private static final int PREFETCH_DISTANCE = 24;
+    private static final int RETAINED_PAGES = 3;
     private static final String TAG = "MainActivity";
+    private static final String STATE_DETAIL_OFFSET = "detailOffset";
+    private static final String STATE_DETAIL_SESSION = "detailSession";
 
     private final Transition.TransitionListener sharedExitListener =
             new TransitionCallback() {
@@ -63,9 +67,23 @@ public class MainActivity extends Activity {
                 }
             };
 
+    private final HardwareLayerCallback gridLayerCallback = new HardwareLayerCallback();
+    private TransitionMetrics reenterMetrics;
+
     private RecyclerView grid;
     private ProgressBar empty;
-    private ArrayList<Photo> relevantPhotos;
+    private FeedRepository feedRepository;
+    private PagedPhotoList photos;
+    /**
+     * The feed the grid shows.
+     */
+    private FeedCache.Info shownFeed;
+    private OnItemSelectedListener itemSelectedListener;
+    /**
+     * The grid position of the first photo handed to the detail activity.
+     */
+    private int detailOffset;
+    private String detailSession;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -74,6 +92,12 @@ public class MainActivity extends Activity {
         postponeEnterTransition();
         // Listener to reset shared element exit transition callbacks.
         getWindow().getSharedElementExitTransition().addListener(sharedExitListener);
+        // The grid items are exploded out and slid back in without changing their content.
+        getWindow().getExitTransition().addListener(gridLayerCallback);
+        getWindow().getReenterTransition().addListener(gridLayerCallback);
+        new TransitionMetrics(this, "grid_exit").attach(getWindow().getExitTransition());
+        reenterMetrics = new TransitionMetrics(this, "grid_reenter");
+        reenterMetrics.attach(getWindow().getReenterTransition());
 
         grid = (RecyclerView) findViewById(R.id.image_grid);
         empty = (ProgressBar) findViewById(android.R.id.empty);
@@ -81,69 +105,118 @@ public class MainActivity extends Activity {
         setupRecyclerView();
 
         if (savedInstanceState != null) {
-            relevantPhotos = savedInstanceState.getParcelableArrayList(IntentUtil.RELEVANT_PHOTOS);
+            detailOffset = savedInstanceState.getInt(STATE_DETAIL_OFFSET);
+            detailSession = savedInstanceState.getString(STATE_DETAIL_SESSION);
         }
         displayData();
     }
 
     private void displayData() {
-        if (relevantPhotos != null) {
-            populateGrid();
-        } else {
-            UnsplashService unsplashApi = new RestAdapter.Builder()
-                    .setEndpoint(UnsplashService.ENDPOINT)
-                    .build()
-                    .create(UnsplashService.class);
-            unsplashApi.getFeed(new Callback<List<Photo>>() {
-                @Override
-                public void success(List<Photo> photos, Response response) {
-                    // the first items not interesting to us, get the last <n>
-                    relevantPhotos = new ArrayList<>(photos.subList(photos.size() - PHOTO_COUNT,
-                            photos.size()));
-                    populateGrid();
+        feedRepository = FeedRepository.create(this);
+        feedRepository.getFeed(new FeedRepository.FeedCallback() {
+            @Override
+            public void onFeedLoaded(@NonNull FeedCache.Info feed, boolean fromCache) {
+                if (!isDestroyed()) {
+                    showFeed(feed);
                 }
+            }
 
-                @Override
-                public void failure(RetrofitError error) {
-                    Log.e(TAG, "Error retrieving Unsplash feed:", error);
-                }
-            });
+            @Override
+            public void onFeedError(@NonNull Exception error) {
+                Log.e(TAG, "Error retrieving Unsplash feed:", error);
+            }
+        });
+    }
+
+    private void showFeed(final FeedCache.Info info) {
+        if (shownFeed != null && shownFeed.hasSameContent(info)) {
+            // The refreshed feed has the same photos, the grid keeps reading the shown one.
+            return;
+        }
+        final int count = info.count;
+        final PagedPhotoList feed = new PagedPhotoList(feedRepository.getPages(info), count,
+                PAGE_SIZE, PREFETCH_DISTANCE, RETAINED_PAGES);
+        if (photos == null || count == 0) {
+            shownFeed = info;
+            photos = feed;
+            populateGrid();
+            return;
         }
+        // The feed was refreshed. Keep showing the current photos until the visible
+        // page of the new feed is loaded, so the grid doesn't flash placeholders.
+        final GridLayoutManager layoutManager = (GridLayoutManager) grid.getLayoutManager();
+        final int firstVisible = Math.max(0, layoutManager.findFirstVisibleItemPosition());
+        feed.setListener(new PagedPhotoList.Listener() {
+            @Override
+            public void onRangeLoaded(int positionStart, int itemCount) {
+                shownFeed = info;
+                photos = feed;
+                populateGrid();
+            }
+        });
+        feed.get(Math.min(firstVisible, count - 1));
     }
 
     private void populateGrid() {
-        grid.setAdapter(new PhotoAdapter(this, relevantPhotos));
-        grid.addOnItemTouchListener(new OnItemSelectedListener(MainActivity.this) {
+        grid.setAdapter(new PhotoAdapter(this, photos));
+        if (itemSelectedListener != null) {
+            // The grid is being refreshed with a newer feed.
+            return;
+        }
+        itemSelectedListener = new OnItemSelectedListener(MainActivity.this) {
             public void onItemSelected(RecyclerView.ViewHolder holder, int position) {
                 if (!(holder instanceof PhotoViewHolder)) {
                     return;
                 }
+                if (photos.peek(position) == null) {
+                    return; // Still loading.
+                }
                 PhotoItemBinding binding = ((PhotoViewHolder) holder).getBinding();
+                // Hand the loaded photos around the selection to the detail pager.
+                detailOffset = photos.getLoadedRangeStart(position);
+                final List<Photo> detailPhotos = photos.getLoadedRange(position);
+                PhotoSessions.remove(detailSession);
+                detailSession = PhotoSessions.put(detailPhotos);
                 final Intent intent = getDetailActivityStartIntent(MainActivity.this,
-                        relevantPhotos, position, binding);
+                        detailSession, detailOffset, detailPhotos, position - detailOffset,
+                        binding);
                 final ActivityOptions activityOptions = getActivityOptions(binding);
+                setGridLayerParticipants();
 
                 MainActivity.this.startActivityForResult(intent, IntentUtil.REQUEST_CODE,
                         activityOptions.toBundle());
             }
-        });
+        };
+        grid.addOnItemTouchListener(itemSelectedListener);
         empty.setVisibility(View.GONE);
     }
 
     @Override
     protected void onSaveInstanceState(Bundle outState) {
-        outState.putParcelableArrayList(IntentUtil.RELEVANT_PHOTOS, relevantPhotos);
+        outState.putInt(STATE_DETAIL_OFFSET, detailOffset);
+        outState.putString(STATE_DETAIL_SESSION, detailSession);
         super.onSaveInstanceState(outState);
     }
 
+    @Override
+    protected void onDestroy() {
+        if (isFinishing()) {
+            PhotoSessions.remove(detailSession);
+        }
+        super.onDestroy();
+    }
+
     @Override
     public void onActivityReenter(int resultCode, Intent data) {
         postponeEnterTransition();
+        reenterMetrics.onPostponeEnterTransition();
         // Start the postponed transition when the recycler view is ready to be drawn.
         grid.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
             @Override
             public boolean onPreDraw() {
                 grid.getViewTreeObserver().removeOnPreDrawListener(this);
+                setGridLayerParticipants();
+                reenterMetrics.onStartPostponedEnterTransition();
                 startPostponedEnterTransition();
                 return true;
             }
@@ -153,7 +226,8 @@ public class MainActivity extends Activity {
             return;
         }
 
-        final int selectedItem = data.getIntExtra(IntentUtil.SELECTED_ITEM_POSITION, 0);
+        final int selectedItem =
+                detailOffset + data.getIntExtra(IntentUtil.SELECTED_ITEM_POSITION, 0);
         grid.scrollToPosition(selectedItem);
 
         PhotoViewHolder holder = (PhotoViewHolder) grid.
@@ -168,22 +242,17 @@ public class MainActivity extends Activity {
         setExitSharedElementCallback(callback);
     }
 
+    private void setGridLayerParticipants() {
+        final View[] children = new View[grid.getChildCount()];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = grid.getChildAt(i);
+        }
+        gridLayerCallback.setParticipants(children);
+    }
+
     private void setupRecyclerView() {
         GridLayoutManager gridLayoutManager = (GridLayoutManager) grid.getLayoutManager();
-        gridLayoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
-            @Override
-            public int getSpanSize(int position) {
-                /* emulating https://material-design.storage.googleapis.com/publish/material_v_4/material_ext_publish/0B6Okdz75tqQsck9lUkgxNVZza1U/style_imagery_integration_scale1.png */
-                switch (position % 6) {
-                    case 5:
-                        return 3;
-                    case 3:
-                        return 2;
-                    default:
-                        return 1;
-                }
-            }
-        });
+        gridLayoutManager.setSpanSizeLookup(new PhotoSpanSizeLookup());
         grid.addItemDecoration(new GridMarginDecoration(
                 getResources().getDimensionPixelSize(R.dimen.grid_item_spacing)));
         grid.setHasFixedSize(true);
@@ -191,11 +260,16 @@ public class MainActivity extends Activity {
     }
 
     @NonNull
-    private static Intent getDetailActivityStartIntent(Activity host, ArrayList<Photo> photos,
+    private static Intent getDetailActivityStartIntent(Activity host, String session,
+                                                       int feedOffset, List<Photo> photos,
                                                        int position, PhotoItemBinding binding) {
         final Intent intent = new Intent(host, DetailActivity.class);
         intent.setAction(Intent.ACTION_VIEW);
-        intent.putParcelableArrayListExtra(IntentUtil.PHOTO, photos);
+        // The photos themselves stay in this process. The ids and authors of those around the
+        // selection are enough to show them again after process death.
+        intent.putExtra(IntentUtil.PHOTO_SESSION, session);
+        IntentUtil.putCompactPhotos(intent, photos, position);
+        intent.putExtra(IntentUtil.FEED_OFFSET, feedOffset);
         intent.putExtra(IntentUtil.SELECTED_ITEM_POSITION, position);
         intent.putExtra(IntentUtil.FONT_SIZE, binding.author.getTextSize());
         intent.putExtra(IntentUtil.PADDING,
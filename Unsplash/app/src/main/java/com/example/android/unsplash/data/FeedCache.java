@@ -0,0 +1,332 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.android.unsplash.data.model.Photo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the photo feed in a compact binary file, together with the validators needed to
+ * ask the server whether the feed has changed. The feed is written and read one photo at a
+ * time, so neither needs to hold the whole feed in memory.
+ * <p>
+ * Each committed feed gets a new version of the file, so that lists still reading the
+ * previous feed don't see the new one. The file ends with the positions of all photos, so a
+ * page is read without going through the photos before it.
+ */
+public class FeedCache {
+
+    private static final int VERSION = 3;
+
+    /**
+     * The bytes of a photo position in the index.
+     */
+    private static final int INDEX_ENTRY_SIZE = 8;
+
+    private final File file;
+
+    /**
+     * @param file The file to store the feed in. Versions are stored next to it, with the
+     *             version appended to its name.
+     */
+    public FeedCache(@NonNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the validators and size of the newest cached feed. Must not be called on the
+     * main thread.
+     *
+     * @return The cached feed's info, or <code>null</code> if there is none or it can't be read.
+     */
+    @Nullable
+    public Info readInfo() {
+        final int version = getNewestVersion();
+        if (version < 0) {
+            return null;
+        }
+        try (RandomAccessFile in = new RandomAccessFile(getFile(version), "r")) {
+            return readInfo(in, version);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a range of a cached feed. Must not be called on the main thread.
+     *
+     * @param feed The info of the feed to read, as returned by {@link #readInfo()} or
+     *             {@link Writer#commit()}.
+     * @param offset The position of the first photo to read.
+     * @param limit The maximum number of photos to read.
+     * @return The photos in the range.
+     * @throws IOException If the feed is no longer cached or it can't be read.
+     */
+    @NonNull
+    public List<Photo> read(@NonNull Info feed, int offset, int limit) throws IOException {
+        final int count = Math.max(0, Math.min(limit, feed.count - offset));
+        if (count == 0) {
+            return new ArrayList<>(0);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(getFile(feed.version), "r")) {
+            final Info info = readInfo(file, feed.version);
+            if (info == null) {
+                throw new IOException("Unsupported feed cache version");
+            }
+            file.seek(info.indexPosition + (long) offset * INDEX_ENTRY_SIZE);
+            file.seek(file.readLong());
+            // Reads from the position the file was seeked to.
+            final DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(file.getChannel())));
+            final List<Photo> photos = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                photos.add(readPhoto(in));
+            }
+            return photos;
+        }
+    }
+
+    /**
+     * Starts replacing the cached feed. The current feed stays readable until
+     * {@link Writer#commit()} is called, and lists reading it can keep doing so until the
+     * feed after the new one is committed. Must not be called on the main thread.
+     *
+     * @param etag The ETag the server sent with the feed.
+     * @param lastModified The Last-Modified date the server sent with the feed.
+     * @return A writer to append the photos of the feed to.
+     * @throws IOException If the file can't be created.
+     */
+    @NonNull
+    public Writer edit(@Nullable String etag, @Nullable String lastModified) throws IOException {
+        return new Writer(etag, lastModified);
+    }
+
+    private File getFile(int version) {
+        return new File(file.getPath() + "." + version);
+    }
+
+    /**
+     * @return The newest version of the file, or -1 if there is none.
+     */
+    private int getNewestVersion() {
+        final String prefix = file.getName() + ".";
+        final String[] names = file.getParentFile().list();
+        int newest = -1;
+        if (names == null) {
+            return newest;
+        }
+        for (String name : names) {
+            if (!name.startsWith(prefix)) {
+                continue;
+            }
+            try {
+                newest = Math.max(newest, Integer.parseInt(name.substring(prefix.length())));
+            } catch (NumberFormatException e) {
+                // The temporary file of a writer.
+            }
+        }
+        return newest;
+    }
+
+    @Nullable
+    private static Info readInfo(DataInput in, int version) throws IOException {
+        if (in.readInt() != VERSION) {
+            return null;
+        }
+        final String etag = readNullableString(in);
+        final String lastModified = readNullableString(in);
+        final int count = in.readInt();
+        final long checksum = in.readLong();
+        final long indexPosition = in.readLong();
+        return new Info(etag, lastModified, count, checksum, version, indexPosition);
+    }
+
+    private static Photo readPhoto(DataInput in) throws IOException {
+        return new Photo(readNullableString(in),
+                in.readInt(),
+                in.readInt(),
+                readNullableString(in),
+                in.readLong(),
+                readNullableString(in),
+                readNullableString(in),
+                readNullableString(in));
+    }
+
+    private static void writePhoto(DataOutputStream out, Photo photo) throws IOException {
+        writeNullableString(out, photo.format);
+        out.writeInt(photo.width);
+        out.writeInt(photo.height);
+        writeNullableString(out, photo.filename);
+        out.writeLong(photo.id);
+        writeNullableString(out, photo.author);
+        writeNullableString(out, photo.author_url);
+        writeNullableString(out, photo.post_url);
+    }
+
+    @Nullable
+    private static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullableString(DataOutputStream out, @Nullable String value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * The validators the server sent with a cached feed and the number of photos in it.
+     */
+    public static class Info {
+        @Nullable
+        public final String etag;
+        @Nullable
+        public final String lastModified;
+        public final int count;
+        /**
+         * The CRC32 of the photos of the feed.
+         */
+        public final long checksum;
+        final int version;
+        final long indexPosition;
+
+        Info(@Nullable String etag, @Nullable String lastModified, int count, long checksum,
+             int version, long indexPosition) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.count = count;
+            this.checksum = checksum;
+            this.version = version;
+            this.indexPosition = indexPosition;
+        }
+
+        /**
+         * @return <code>true</code> if both feeds have the same photos.
+         */
+        public boolean hasSameContent(@NonNull Info other) {
+            return count == other.count && checksum == other.checksum;
+        }
+    }
+
+    /**
+     * Writes a new feed to a temporary file that becomes the newest version of the cached
+     * feed on {@link #commit()}. Closing a writer that wasn't committed discards the new feed.
+     */
+    public class Writer implements Closeable {
+        private final File temp = new File(file.getPath() + ".tmp");
+        private final DataOutputStream out;
+        private final long countPosition;
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        private final DataOutputStream recordOut = new DataOutputStream(record);
+        private final CRC32 checksum = new CRC32();
+        private long[] positions = new long[64];
+        private int count;
+        private boolean closed;
+
+        Writer(@Nullable String etag, @Nullable String lastModified) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(VERSION);
+            writeNullableString(out, etag);
+            writeNullableString(out, lastModified);
+            countPosition = out.size();
+            // Count, checksum and index position, patched in commit().
+            out.writeInt(0);
+            out.writeLong(0);
+            out.writeLong(0);
+        }
+
+        /**
+         * Appends a photo to the new feed.
+         */
+        public void append(@NonNull Photo photo) throws IOException {
+            record.reset();
+            writePhoto(recordOut, photo);
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+            positions[count++] = out.size();
+            checksum.update(record.toByteArray(), 0, record.size());
+            record.writeTo(out);
+        }
+
+        /**
+         * Makes the new feed the newest version of the cached feed. The version before it
+         * is kept for lists that are still reading it, older ones are deleted.
+         *
+         * @return The info of the new feed.
+         */
+        @NonNull
+        public Info commit() throws IOException {
+            final long indexPosition = out.size();
+            for (int i = 0; i < count; i++) {
+                out.writeLong(positions[i]);
+            }
+            closed = true;
+            out.close();
+            try (RandomAccessFile patch = new RandomAccessFile(temp, "rw")) {
+                patch.seek(countPosition);
+                patch.writeInt(count);
+                patch.writeLong(checksum.getValue());
+                patch.writeLong(indexPosition);
+            }
+            final int version = getNewestVersion() + 1;
+            final Info info;
+            try (RandomAccessFile in = new RandomAccessFile(temp, "r")) {
+                info = readInfo(in, version);
+            }
+            if (info == null || !temp.renameTo(getFile(version))) {
+                temp.delete();
+                throw new IOException("Could not replace " + file);
+            }
+            // Older versions were deleted by earlier commits.
+            getFile(version - 2).delete();
+            // Written before the feed was versioned.
+            file.delete();
+            return info;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                out.close();
+                temp.delete();
+            }
+        }
+    }
+}
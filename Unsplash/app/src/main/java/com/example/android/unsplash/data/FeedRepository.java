@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.example.android.unsplash.data.model.Photo;
+import com.google.gson.stream.JsonReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import retrofit.RestAdapter;
+import retrofit.RetrofitError;
+import retrofit.client.Header;
+import retrofit.client.Response;
+
+/**
+ * Serves the photo feed from a {@link FeedCache} right away and then asks the
+ * {@link UnsplashService} whether the feed changed, using the validators stored with the
+ * cached copy. A changed feed is streamed straight into the cache by a
+ * {@link PhotoFeedParser}. The grid reads the feed back from the cache one page at a
+ * time, through {@link #getPages(FeedCache.Info)}.
+ */
+public class FeedRepository {
+
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    private static final int HTTP_NOT_MODIFIED = 304;
+    private static final String FEED_CACHE_FILE = "feed";
+
+    private static final Executor NETWORK_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Executor DISK_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * Receives the state of the feed on the main thread.
+     */
+    public interface FeedCallback {
+        /**
+         * Called with the cached feed first, if there is one, and again if the server
+         * sends a newer one.
+         *
+         * @param feed The loaded feed.
+         * @param fromCache <code>true</code> if the feed was already cached.
+         */
+        void onFeedLoaded(@NonNull FeedCache.Info feed, boolean fromCache);
+
+        /**
+         * Called if the feed could not be refreshed.
+         */
+        void onFeedError(@NonNull Exception error);
+    }
+
+    private final UnsplashService service;
+    private final FeedCache cache;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * @param service The service to refresh the feed from.
+     * @param cache The local copy of the feed.
+     */
+    public FeedRepository(@NonNull UnsplashService service, @NonNull FeedCache cache) {
+        this.service = service;
+        this.cache = cache;
+    }
+
+    /**
+     * Creates a repository for the unsplash.it feed, cached in the app's cache directory.
+     */
+    @NonNull
+    public static FeedRepository create(@NonNull Context context) {
+        UnsplashService unsplashApi = new RestAdapter.Builder()
+                .setEndpoint(UnsplashService.ENDPOINT)
+                .build()
+                .create(UnsplashService.class);
+        FeedCache feedCache = new FeedCache(new File(context.getCacheDir(), FEED_CACHE_FILE));
+        return new FeedRepository(unsplashApi, feedCache);
+    }
+
+    /**
+     * Loads the cached feed and refreshes it in the background.
+     *
+     * @param callback Receives the cached and the refreshed feed.
+     */
+    public void getFeed(@NonNull final FeedCallback callback) {
+        DISK_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final FeedCache.Info info = cache.readInfo();
+                if (info != null) {
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onFeedLoaded(info, true);
+                        }
+                    });
+                }
+                NETWORK_EXECUTOR.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        refresh(info, callback);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @param feed A feed passed to {@link FeedCallback#onFeedLoaded(FeedCache.Info, boolean)}.
+     * @return The pages of that feed, which stay readable after a newer feed was loaded.
+     */
+    @NonNull
+    public PhotoPageSource getPages(@NonNull final FeedCache.Info feed) {
+        return new PhotoPageSource() {
+            @Override
+            public void loadPage(int offset, int limit, @NonNull PageCallback callback) {
+                FeedRepository.this.loadPage(feed, offset, limit, callback);
+            }
+        };
+    }
+
+    private void loadPage(final FeedCache.Info feed, final int offset, final int limit,
+                          final PhotoPageSource.PageCallback callback) {
+        DISK_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final List<Photo> photos = cache.read(feed, offset, limit);
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onPageLoaded(offset, photos);
+                        }
+                    });
+                } catch (final IOException e) {
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onPageError(offset, e);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private void refresh(FeedCache.Info cached, final FeedCallback callback) {
+        final String etag = cached != null ? cached.etag : null;
+        final String lastModified = cached != null ? cached.lastModified : null;
+        try {
+            final Response response = service.getFeedStream(etag, lastModified);
+            final FeedCache.Info info = store(response);
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onFeedLoaded(info, false);
+                }
+            });
+        } catch (final RetrofitError error) {
+            final Response response = error.getResponse();
+            if (cached != null && response != null
+                    && response.getStatus() == HTTP_NOT_MODIFIED) {
+                return; // The cached feed is up to date.
+            }
+            postError(callback, error);
+        } catch (final IOException | IllegalStateException e) {
+            postError(callback, e);
+        }
+    }
+
+    private FeedCache.Info store(Response response) throws IOException {
+        try (FeedCache.Writer writer = cache.edit(getHeader(response, HEADER_ETAG),
+                getHeader(response, HEADER_LAST_MODIFIED));
+             InputStream in = response.getBody().in();
+             JsonReader reader = new JsonReader(new InputStreamReader(in, "UTF-8"))) {
+            PhotoFeedParser.read(reader, writer);
+            return writer.commit();
+        }
+    }
+
+    private void postError(final FeedCallback callback, final Exception error) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onFeedError(error);
+            }
+        });
+    }
+
+    private static String getHeader(Response response, String name) {
+        for (Header header : response.getHeaders()) {
+            if (name.equalsIgnoreCase(header.getName())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
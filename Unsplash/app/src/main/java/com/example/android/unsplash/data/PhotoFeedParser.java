@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.android.unsplash.data.model.Photo;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Reads the photo feed with a streaming parser. Photos are handed to a {@link FeedCache.Writer}
+ * as soon as they are read, so memory use doesn't depend on the size of the feed.
+ */
+public final class PhotoFeedParser {
+
+    private PhotoFeedParser() {
+    }
+
+    /**
+     * Reads a JSON array of photos into a cache writer. Photos with malformed numbers are
+     * skipped.
+     *
+     * @param reader A reader positioned before the array.
+     * @param writer The writer to append the photos to, in feed order.
+     * @return The number of photos read.
+     * @throws IOException If the JSON can't be read or the photos can't be written.
+     */
+    public static int read(@NonNull JsonReader reader, @NonNull FeedCache.Writer writer)
+            throws IOException {
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            final Photo photo = readPhoto(reader);
+            if (photo != null) {
+                writer.append(photo);
+                count++;
+            }
+        }
+        reader.endArray();
+        return count;
+    }
+
+    /**
+     * Reads a single photo object.
+     *
+     * @param reader A reader positioned before the object, which is read up to its end.
+     * @return The photo, or <code>null</code> if one of its numbers is malformed.
+     * @throws IOException If the JSON can't be read.
+     */
+    @Nullable
+    static Photo readPhoto(@NonNull JsonReader reader) throws IOException {
+        String format = null;
+        int width = 0;
+        int height = 0;
+        String filename = null;
+        long id = 0;
+        String author = null;
+        String authorUrl = null;
+        String postUrl = null;
+        boolean malformed = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            try {
+                switch (name) {
+                    case "format":
+                        format = reader.nextString();
+                        break;
+                    case "width":
+                        width = reader.nextInt();
+                        break;
+                    case "height":
+                        height = reader.nextInt();
+                        break;
+                    case "filename":
+                        filename = reader.nextString();
+                        break;
+                    case "id":
+                        id = reader.nextLong();
+                        break;
+                    case "author":
+                        author = reader.nextString();
+                        break;
+                    case "author_url":
+                        authorUrl = reader.nextString();
+                        break;
+                    case "post_url":
+                        postUrl = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            } catch (NumberFormatException e) {
+                // Such as a string or a number too large for the field.
+                reader.skipValue();
+                malformed = true;
+            }
+        }
+        reader.endObject();
+        if (malformed) {
+            return null;
+        }
+        return new Photo(format, width, height, filename, id, author, authorUrl, postUrl);
+    }
+}
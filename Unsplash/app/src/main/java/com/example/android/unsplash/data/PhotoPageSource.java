@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.data;
+
+import androidx.annotation.NonNull;
+
+import com.example.android.unsplash.data.model.Photo;
+
+import java.util.List;
+
+/**
+ * Loads ranges of the photo feed asynchronously.
+ */
+public interface PhotoPageSource {
+
+    /**
+     * Receives a loaded range on the main thread.
+     */
+    interface PageCallback {
+        void onPageLoaded(int offset, @NonNull List<Photo> photos);
+
+        void onPageError(int offset, @NonNull Exception error);
+    }
+
+    /**
+     * Loads up to <code>limit</code> photos starting at <code>offset</code>.
+     *
+     * @param offset The position of the first photo.
+     * @param limit The maximum number of photos.
+     * @param callback Receives the photos on the main thread.
+     */
+    void loadPage(int offset, int limit, @NonNull PageCallback callback);
+}
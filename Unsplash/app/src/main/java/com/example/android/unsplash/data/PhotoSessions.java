@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.android.unsplash.data.model.Photo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hands lists of photos between activities of this process without parceling them.
+ * Only the token returned by {@link #put(List)} needs to go into an Intent. Sessions
+ * don't survive process death, so readers must be able to load the photos again.
+ */
+public final class PhotoSessions {
+
+    private static final Map<String, List<Photo>> sessions = new HashMap<>();
+
+    private PhotoSessions() {
+    }
+
+    /**
+     * Stores photos for another activity.
+     *
+     * @param photos The photos to hand over.
+     * @return The token to look the photos up with.
+     */
+    @NonNull
+    public static synchronized String put(@NonNull List<Photo> photos) {
+        final String token = UUID.randomUUID().toString();
+        sessions.put(token, photos);
+        return token;
+    }
+
+    /**
+     * @param token A token returned by {@link #put(List)}.
+     * @return The stored photos, or <code>null</code> if the session is gone.
+     */
+    @Nullable
+    public static synchronized List<Photo> get(@Nullable String token) {
+        return token != null ? sessions.get(token) : null;
+    }
+
+    /**
+     * Drops a session that is no longer needed.
+     *
+     * @param token A token returned by {@link #put(List)}.
+     */
+    public static synchronized void remove(@Nullable String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+}
@@ -16,12 +16,10 @@
 
 package com.example.android.unsplash.data;
 
-import com.example.android.unsplash.data.model.Photo;
-
-import java.util.List;
-
-import retrofit.Callback;
+import retrofit.client.Response;
 import retrofit.http.GET;
+import retrofit.http.Header;
+import retrofit.http.Streaming;
 
 /**
  * Modeling the unsplash.it API.
@@ -30,7 +28,14 @@ public interface UnsplashService {
 
     String ENDPOINT = "https://unsplash.it";
 
+    /**
+     * Synchronously requests the feed only if it changed since it was last downloaded.
+     * Null validators are left out of the request. An unchanged feed fails with status 304.
+     * The body is not buffered, so it can be parsed while it is downloaded.
+     */
+    @Streaming
     @GET("/list")
-    void getFeed(Callback<List<Photo>> callback);
+    Response getFeedStream(@Header("If-None-Match") String etag,
+                           @Header("If-Modified-Since") String lastModified);
 
 }
@@ -50,6 +50,12 @@ public class Photo implements Parcelable {
 
     private static final String PHOTO_URL_BASE = "https://unsplash.it/%d?image=%d";
 
+    /**
+     * The widths photos are requested at. Keeping the set small lets screens with
+     * slightly different sizes share cached downloads.
+     */
+    private static final int[] WIDTH_BUCKETS = new int[] {240, 480, 720, 1080, 1440, 2160};
+
     public Photo(String format,
                  int width,
                  int height,
@@ -79,8 +85,26 @@ public class Photo implements Parcelable {
         post_url = in.readString();
     }
 
+    /**
+     * @param requestWidth The width the photo is displayed at.
+     * @return The URL of the photo at the smallest width bucket that covers the width.
+     */
     public String getPhotoUrl(int requestWidth) {
-        return String.format(Locale.getDefault(), PHOTO_URL_BASE, requestWidth, id);
+        return String.format(Locale.US, PHOTO_URL_BASE, getBucketWidth(requestWidth), id);
+    }
+
+    /**
+     * @param width The width a photo is displayed at.
+     * @return The smallest width bucket not narrower than <code>width</code>, or the widest
+     * bucket.
+     */
+    public static int getBucketWidth(int width) {
+        for (int bucket : WIDTH_BUCKETS) {
+            if (bucket >= width) {
+                return bucket;
+            }
+        }
+        return WIDTH_BUCKETS[WIDTH_BUCKETS.length - 1];
     }
 
     @Override
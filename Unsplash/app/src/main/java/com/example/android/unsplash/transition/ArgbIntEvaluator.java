@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.transition;
+
+/**
+ * Interpolates between two ARGB colors like {@link android.animation.ArgbEvaluator},
+ * but on primitive ints so that no values are boxed while animating.
+ */
+public final class ArgbIntEvaluator {
+
+    private ArgbIntEvaluator() {
+    }
+
+    /**
+     * Interpolates the color channels in linear space, the same way the platform
+     * ArgbEvaluator does.
+     *
+     * @param fraction The fraction from the start to the end color.
+     * @param startValue The start color.
+     * @param endValue The end color.
+     * @return The interpolated color.
+     */
+    public static int evaluate(float fraction, int startValue, int endValue) {
+        if (startValue == endValue) {
+            return startValue;
+        }
+        final float startA = ((startValue >> 24) & 0xff) / 255.0f;
+        float startR = ((startValue >> 16) & 0xff) / 255.0f;
+        float startG = ((startValue >> 8) & 0xff) / 255.0f;
+        float startB = (startValue & 0xff) / 255.0f;
+
+        final float endA = ((endValue >> 24) & 0xff) / 255.0f;
+        float endR = ((endValue >> 16) & 0xff) / 255.0f;
+        float endG = ((endValue >> 8) & 0xff) / 255.0f;
+        float endB = (endValue & 0xff) / 255.0f;
+
+        // Convert from sRGB to linear
+        startR = (float) Math.pow(startR, 2.2);
+        startG = (float) Math.pow(startG, 2.2);
+        startB = (float) Math.pow(startB, 2.2);
+
+        endR = (float) Math.pow(endR, 2.2);
+        endG = (float) Math.pow(endG, 2.2);
+        endB = (float) Math.pow(endB, 2.2);
+
+        // Compute the interpolated color in linear space
+        float a = startA + fraction * (endA - startA);
+        float r = startR + fraction * (endR - startR);
+        float g = startG + fraction * (endG - startG);
+        float b = startB + fraction * (endB - startB);
+
+        // Convert back to sRGB in the [0..255] range
+        a = a * 255.0f;
+        r = (float) Math.pow(r, 1.0 / 2.2) * 255.0f;
+        g = (float) Math.pow(g, 1.0 / 2.2) * 255.0f;
+        b = (float) Math.pow(b, 1.0 / 2.2) * 255.0f;
+
+        return Math.round(a) << 24 | Math.round(r) << 16 | Math.round(g) << 8 | Math.round(b);
+    }
+}
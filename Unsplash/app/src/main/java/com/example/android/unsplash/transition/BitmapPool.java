@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.transition;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * A small pool of mutable bitmaps that can be reused through
+ * {@link Bitmap#reconfigure(int, int, Bitmap.Config)}.
+ * <p>
+ * Released bitmaps are kept in a {@link SizeBucketPool}, so a bitmap is only reused for a
+ * size close to the one it was allocated for, and the least recently released bitmaps are
+ * dropped when the pool grows over its byte budget.
+ */
+public class BitmapPool {
+
+    private final SizeBucketPool<Bitmap> pool;
+
+    /**
+     * @param maxBytes The maximum number of bytes held by released bitmaps.
+     */
+    public BitmapPool(long maxBytes) {
+        pool = new SizeBucketPool<Bitmap>(maxBytes) {
+            @Override
+            protected int getByteCount(@NonNull Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Returns a cleared bitmap with the requested size and config. The bitmap is taken from
+     * the pool if a suitable one is available, otherwise a new one is allocated.
+     *
+     * @param width The width of the bitmap in pixels.
+     * @param height The height of the bitmap in pixels.
+     * @param config The config of the bitmap.
+     * @return A mutable, transparent bitmap.
+     */
+    @NonNull
+    public Bitmap acquire(int width, int height, @NonNull Bitmap.Config config) {
+        final Bitmap bitmap = pool.take(width * height * getBytesPerPixel(config));
+        if (bitmap == null) {
+            return Bitmap.createBitmap(width, height, config);
+        }
+        bitmap.reconfigure(width, height, config);
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * Hands a bitmap back to the pool. The caller must not use the bitmap afterwards.
+     *
+     * @param bitmap The bitmap to release. May be <code>null</code>.
+     */
+    public void release(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        pool.put(bitmap);
+    }
+
+    /**
+     * Drops all pooled bitmaps.
+     */
+    public void clear() {
+        pool.clear();
+    }
+
+    /**
+     * @return The number of {@link #acquire(int, int, Bitmap.Config)} calls served from the pool.
+     */
+    public int getHitCount() {
+        return pool.getHitCount();
+    }
+
+    /**
+     * @return The number of {@link #acquire(int, int, Bitmap.Config)} calls that allocated.
+     */
+    public int getMissCount() {
+        return pool.getMissCount();
+    }
+
+    /**
+     * @return The number of bitmaps dropped to stay within the byte budget.
+     */
+    public int getEvictionCount() {
+        return pool.getEvictionCount();
+    }
+
+    /**
+     * @return The number of bytes currently held by the pool.
+     */
+    public long getSize() {
+        return pool.getSize();
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        switch (config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            case ARGB_8888:
+            default:
+                return 4;
+        }
+    }
+}
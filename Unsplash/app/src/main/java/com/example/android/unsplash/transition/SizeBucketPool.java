@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.transition;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.TreeMap;
+
+/**
+ * Keeps released items by their allocation size for {@link BitmapPool}.
+ * <p>
+ * Items are grouped in buckets keyed by the largest power of two that is not larger than
+ * their allocation size. A request looks at its own bucket and the next larger one, so an
+ * item is never reused for a size more than about four times smaller than the one it was
+ * allocated for. When the pool grows over its byte budget, the least recently released
+ * items are dropped.
+ *
+ * @param <T> The type of the pooled items.
+ */
+abstract class SizeBucketPool<T> {
+
+    private final long maxBytes;
+    private final TreeMap<Integer, ArrayDeque<T>> buckets = new TreeMap<>();
+    private final ArrayDeque<T> leastRecentlyReleased = new ArrayDeque<>();
+    private long currentBytes;
+    private int hitCount;
+    private int missCount;
+    private int evictionCount;
+
+    /**
+     * @param maxBytes The maximum number of bytes held by released items.
+     */
+    SizeBucketPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return The number of bytes allocated for an item.
+     */
+    protected abstract int getByteCount(@NonNull T item);
+
+    /**
+     * Takes an item that is large enough out of the pool.
+     *
+     * @param requiredBytes The number of bytes the item must have been allocated with.
+     * @return The item, or <code>null</code> if the caller has to allocate one.
+     */
+    @Nullable
+    public synchronized T take(int requiredBytes) {
+        final int key = Integer.highestOneBit(requiredBytes);
+        T item = takeFromBucket(key, requiredBytes);
+        if (item == null) {
+            item = takeFromBucket(key << 1, requiredBytes);
+        }
+        if (item == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        leastRecentlyReleased.removeFirstOccurrence(item);
+        currentBytes -= getByteCount(item);
+        return item;
+    }
+
+    /**
+     * Hands an item back to the pool. Items larger than the whole budget are dropped.
+     */
+    public synchronized void put(@NonNull T item) {
+        final int size = getByteCount(item);
+        if (size > maxBytes) {
+            return;
+        }
+        final int key = Integer.highestOneBit(size);
+        ArrayDeque<T> bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets.put(key, bucket);
+        }
+        bucket.addLast(item);
+        leastRecentlyReleased.addLast(item);
+        currentBytes += size;
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * Drops all pooled items.
+     */
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * @return The number of {@link #take(int)} calls served from the pool.
+     */
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return The number of {@link #take(int)} calls that found nothing.
+     */
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return The number of items dropped to stay within the byte budget.
+     */
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return The number of bytes currently held by the pool.
+     */
+    public synchronized long getSize() {
+        return currentBytes;
+    }
+
+    @Nullable
+    private T takeFromBucket(int key, int requiredBytes) {
+        final ArrayDeque<T> bucket = buckets.get(key);
+        if (bucket == null) {
+            return null;
+        }
+        final Iterator<T> iterator = bucket.descendingIterator();
+        while (iterator.hasNext()) {
+            final T candidate = iterator.next();
+            if (getByteCount(candidate) >= requiredBytes) {
+                iterator.remove();
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void trimToSize(long size) {
+        while (currentBytes > size && !leastRecentlyReleased.isEmpty()) {
+            final T eldest = leastRecentlyReleased.removeFirst();
+            final int allocationSize = getByteCount(eldest);
+            final int key = Integer.highestOneBit(allocationSize);
+            final ArrayDeque<T> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.removeFirstOccurrence(eldest);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+            currentBytes -= allocationSize;
+            evictionCount++;
+        }
+    }
+}
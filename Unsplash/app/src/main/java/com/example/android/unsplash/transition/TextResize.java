@@ -18,11 +18,12 @@ package com.example.android.unsplash.transition;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
-import android.animation.ArgbEvaluator;
 import android.animation.ObjectAnimator;
 import android.animation.PropertyValuesHolder;
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -30,16 +31,34 @@ import android.graphics.ColorFilter;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.PorterDuffXfermode;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Layout;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.StaticLayout;
+import android.text.TextPaint;
 import android.transition.Transition;
 import android.transition.TransitionValues;
 import android.util.AttributeSet;
+import android.util.FloatProperty;
+import android.util.Property;
+import android.util.SparseArray;
 import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import com.example.android.unsplash.R;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
 /**
  * Transitions a TextView from one font size to another. This does not
  * do any animation of TextView content and if the text changes, this
@@ -53,18 +72,81 @@ import android.widget.TextView;
  * or end of the animation. This transition does not work well with
  * cropped text. TextResize also does not work with changes in
  * TextView gravity.
+ * <p>
+ * The start and end bitmaps are borrowed from a shared {@link BitmapPool}
+ * and handed back when the animation ends, so repeated transitions do
+ * not allocate new snapshots.
+ * <p>
+ * With {@link #MODE_VECTOR} no bitmaps are captured at all. The text is
+ * laid out again at the animated font size and drawn straight into the
+ * overlay, which keeps scaled-up text sharp.
+ * <p>
+ * With {@link #MODE_BITMAP_ASYNC} the bitmaps are drawn from a detached
+ * copy of the text layout on a background thread. The TextView is not
+ * measured or drawn in {@link #createAnimator}, and nothing is shown in
+ * the overlay until both bitmaps are ready.
  */
-public class TextResize extends Transition {
+public class TextResize extends Transition implements TransitionMetrics.Timed {
     private static final String FONT_SIZE = "TextResize:fontSize";
     private static final String DATA = "TextResize:data";
 
+    /**
+     * Text snapshots are small, so a budget of a few full-width author lines is enough
+     * to serve every shared element enter and return without allocating.
+     */
+    private static final long BITMAP_POOL_SIZE = 4 * 1024 * 1024;
+    private static final BitmapPool BITMAP_POOL = new BitmapPool(BITMAP_POOL_SIZE);
+
+    /**
+     * Scales captured bitmaps of the start and end text. This is the default.
+     */
+    public static final int MODE_BITMAP = 0;
+
+    /**
+     * Draws the text layout at the animated font size without capturing bitmaps.
+     */
+    public static final int MODE_VECTOR = 1;
+
+    /**
+     * Like {@link #MODE_BITMAP}, but the bitmaps are drawn on a background thread.
+     */
+    public static final int MODE_BITMAP_ASYNC = 2;
+
+    private static final Executor SNAPSHOT_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
     private static final String[] PROPERTIES = {
             // We only care about FONT_SIZE. If anything else changes, we don't
             // want this transition to be called to create an Animator.
             FONT_SIZE,
     };
 
+    private final int renderMode;
+    private final Bitmap.Config snapshotConfig;
+    private long createAnimatorTimeNanos;
+
     public TextResize() {
+        this(MODE_BITMAP);
+    }
+
+    /**
+     * @param renderMode One of {@link #MODE_BITMAP}, {@link #MODE_VECTOR} or
+     *                   {@link #MODE_BITMAP_ASYNC}.
+     */
+    public TextResize(int renderMode) {
+        this(renderMode, false);
+    }
+
+    /**
+     * @param renderMode One of {@link #MODE_BITMAP}, {@link #MODE_VECTOR} or
+     *                   {@link #MODE_BITMAP_ASYNC}.
+     * @param alphaSnapshots <code>true</code> to capture {@link Bitmap.Config#ALPHA_8}
+     *                       snapshots. They take a quarter of the memory, but text drawn in
+     *                       several colors, like color emoji, is drawn in the text color.
+     */
+    public TextResize(int renderMode, boolean alphaSnapshots) {
+        this.renderMode = renderMode;
+        this.snapshotConfig = alphaSnapshots ? Bitmap.Config.ALPHA_8 : Bitmap.Config.ARGB_8888;
         addTarget(TextView.class);
     }
 
@@ -73,14 +155,43 @@ public class TextResize extends Transition {
      */
     public TextResize(Context context, AttributeSet attrs) {
         super(context, attrs);
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.TextResize);
+        renderMode = a.getInt(R.styleable.TextResize_renderMode, MODE_BITMAP);
+        snapshotConfig = a.getBoolean(R.styleable.TextResize_alphaSnapshots, false)
+                ? Bitmap.Config.ALPHA_8 : Bitmap.Config.ARGB_8888;
+        a.recycle();
         addTarget(TextView.class);
     }
 
+    /**
+     * @return The pool that start and end snapshots are borrowed from.
+     */
+    public static BitmapPool getBitmapPool() {
+        return BITMAP_POOL;
+    }
+
+    /**
+     * @return The time in nanoseconds that the calls to {@link #createAnimator} of this run
+     * spent on the calling thread.
+     */
+    @Override
+    public long getCreateAnimatorTimeNanos() {
+        return createAnimatorTimeNanos;
+    }
+
     @Override
     public String[] getTransitionProperties() {
         return PROPERTIES;
     }
 
+    @Override
+    public Transition clone() {
+        // Transitions are cloned for each run, so every run starts its own measurement.
+        final TextResize clone = (TextResize) super.clone();
+        clone.createAnimatorTimeNanos = 0;
+        return clone;
+    }
+
     @Override
     public void captureStartValues(TransitionValues transitionValues) {
         captureValues(transitionValues);
@@ -105,6 +216,15 @@ public class TextResize extends Transition {
     @Override
     public Animator createAnimator(ViewGroup sceneRoot, TransitionValues startValues,
                                    TransitionValues endValues) {
+        final long startTime = System.nanoTime();
+        final Animator animator = createTextResizeAnimator(startValues, endValues);
+        // Called once per target, so the time of a run is the sum of all calls.
+        createAnimatorTimeNanos += System.nanoTime() - startTime;
+        return animator;
+    }
+
+    private Animator createTextResizeAnimator(TransitionValues startValues,
+                                              TransitionValues endValues) {
         if (startValues == null || endValues == null) {
             return null;
         }
@@ -116,31 +236,55 @@ public class TextResize extends Transition {
         }
 
         final TextView textView = (TextView) endValues.view;
+        final boolean captureBitmaps = renderMode == MODE_BITMAP;
         float startFontSize = (Float) startValues.values.get(FONT_SIZE);
-        // Capture the start bitmap -- we need to set the values to the start values first
-        setTextViewData(textView, startData, startFontSize);
-        final float startWidth = textView.getPaint().measureText(textView.getText().toString());
-
-        final Bitmap startBitmap = captureTextBitmap(textView);
+        float endFontSize = (Float) endValues.values.get(FONT_SIZE);
+        final float startWidth;
+        final float endWidth;
+        final Bitmap startBitmap;
+        final Bitmap endBitmap;
+        if (renderMode == MODE_BITMAP_ASYNC) {
+            // Measure with a copy of the paint. The TextView is left as it is.
+            final TextPaint paint = new TextPaint(textView.getPaint());
+            final CharSequence text = textView.getText();
+            paint.setTextSize(startFontSize);
+            startWidth = Layout.getDesiredWidth(text, paint);
+            paint.setTextSize(endFontSize);
+            endWidth = Layout.getDesiredWidth(text, paint);
+            startBitmap = null;
+            endBitmap = null;
+            if (!startData.hasTextArea()) {
+                startFontSize = 0;
+            }
+            if (!endData.hasTextArea()) {
+                endFontSize = 0;
+            }
+        } else {
+            // Capture the start bitmap -- we need to set the values to the start values first
+            setTextViewData(textView, startData, startFontSize);
+            startWidth = Layout.getDesiredWidth(textView.getText(), textView.getPaint());
 
-        if (startBitmap == null) {
-            startFontSize = 0;
-        }
+            startBitmap = captureBitmaps ? captureTextBitmap(textView, snapshotConfig) : null;
 
-        float endFontSize = (Float) endValues.values.get(FONT_SIZE);
+            if (captureBitmaps ? startBitmap == null : !startData.hasTextArea()) {
+                startFontSize = 0;
+            }
 
-        // Set the values to the end values
-        setTextViewData(textView, endData, endFontSize);
+            // Set the values to the end values
+            setTextViewData(textView, endData, endFontSize);
 
-        final float endWidth = textView.getPaint().measureText(textView.getText().toString());
+            endWidth = Layout.getDesiredWidth(textView.getText(), textView.getPaint());
 
-        // Capture the end bitmap
-        final Bitmap endBitmap = captureTextBitmap(textView);
-        if (endBitmap == null) {
-            endFontSize = 0;
+            // Capture the end bitmap
+            endBitmap = captureBitmaps ? captureTextBitmap(textView, snapshotConfig) : null;
+            if (captureBitmaps ? endBitmap == null : !endData.hasTextArea()) {
+                endFontSize = 0;
+            }
         }
 
         if (startFontSize == 0 && endFontSize == 0) {
+            BITMAP_POOL.release(startBitmap);
+            BITMAP_POOL.release(endBitmap);
             return null; // Can't animate null bitmaps
         }
 
@@ -157,37 +301,69 @@ public class TextResize extends Transition {
 
         // Create the drawable that will be animated in the TextView's overlay.
         // Ensure that it is showing the start state now.
-        final SwitchBitmapDrawable drawable = new SwitchBitmapDrawable(textView, startData.gravity,
-                startBitmap, startFontSize, startWidth, endBitmap, endFontSize, endWidth);
+        final TextResizeDrawable drawable;
+        final SnapshotTask snapshotTask;
+        if (captureBitmaps) {
+            drawable = new SwitchBitmapDrawable(textView, startData.gravity,
+                    startBitmap, startFontSize, startWidth, endBitmap, endFontSize, endWidth);
+            snapshotTask = null;
+        } else if (renderMode == MODE_BITMAP_ASYNC) {
+            final SwitchBitmapDrawable bitmapDrawable = new SwitchBitmapDrawable(textView,
+                    startData.gravity, startFontSize, startWidth, endFontSize, endWidth);
+            snapshotTask = new SnapshotTask(textView, bitmapDrawable, snapshotConfig,
+                    startData, startFontSize, endData, endFontSize);
+            SNAPSHOT_EXECUTOR.execute(snapshotTask);
+            drawable = bitmapDrawable;
+        } else {
+            snapshotTask = null;
+            drawable = new TextLayoutDrawable(textView, startData.gravity,
+                    startFontSize, startWidth, startData.getTextAreaWidth(),
+                    endFontSize, endWidth, endData.getTextAreaWidth());
+        }
+        drawable.setTextColors(startData.textColor, endData.textColor);
         textView.getOverlay().add(drawable);
+        // The overlay redraws every frame, so the view must not be cached in a layer.
+        textView.setTag(R.id.content_animating, Boolean.TRUE);
 
-        // Properties: left, top, font size, text color
-        final PropertyValuesHolder leftProp =
-                PropertyValuesHolder.ofFloat("left", startData.paddingLeft, endData.paddingLeft);
-        final PropertyValuesHolder topProp =
-                PropertyValuesHolder.ofFloat("top", startData.paddingTop, endData.paddingTop);
-        final PropertyValuesHolder rightProp = PropertyValuesHolder.ofFloat("right",
+        // Properties: left, top, font size, text color. The typed properties set the
+        // drawable's fields without reflection or boxing, and the drawable invalidates
+        // itself once per frame from its update listener.
+        final PropertyValuesHolder leftProp = PropertyValuesHolder.ofFloat(
+                TextResizeDrawable.LEFT, startData.paddingLeft, endData.paddingLeft);
+        final PropertyValuesHolder topProp = PropertyValuesHolder.ofFloat(
+                TextResizeDrawable.TOP, startData.paddingTop, endData.paddingTop);
+        final PropertyValuesHolder rightProp = PropertyValuesHolder.ofFloat(
+                TextResizeDrawable.RIGHT,
                 startData.width - startData.paddingRight, endData.width - endData.paddingRight);
-        final PropertyValuesHolder bottomProp = PropertyValuesHolder.ofFloat("bottom",
+        final PropertyValuesHolder bottomProp = PropertyValuesHolder.ofFloat(
+                TextResizeDrawable.BOTTOM,
                 startData.height - startData.paddingBottom, endData.height - endData.paddingBottom);
-        final PropertyValuesHolder fontSizeProp =
-                PropertyValuesHolder.ofFloat("fontSize", startFontSize, endFontSize);
+        final PropertyValuesHolder fontSizeProp = PropertyValuesHolder.ofFloat(
+                TextResizeDrawable.FONT_SIZE, startFontSize, endFontSize);
         final ObjectAnimator animator;
         if (startData.textColor != endData.textColor) {
-            final PropertyValuesHolder textColorProp = PropertyValuesHolder.ofObject("textColor",
-                    new ArgbEvaluator(), startData.textColor, endData.textColor);
+            final PropertyValuesHolder textColorProp = PropertyValuesHolder.ofFloat(
+                    TextResizeDrawable.TEXT_COLOR_FRACTION, 0f, 1f);
             animator = ObjectAnimator.ofPropertyValuesHolder(drawable,
                     leftProp, topProp, rightProp, bottomProp, fontSizeProp, textColorProp);
         } else {
             animator = ObjectAnimator.ofPropertyValuesHolder(drawable,
                     leftProp, topProp, rightProp, bottomProp, fontSizeProp);
         }
+        animator.addUpdateListener(drawable);
 
         final float finalFontSize = endFontSize;
         AnimatorListenerAdapter listener = new AnimatorListenerAdapter() {
             @Override
             public void onAnimationEnd(Animator animation) {
+                // Also called after onAnimationCancel, so this is the only place the
+                // bitmaps need to be handed back.
                 textView.getOverlay().remove(drawable);
+                textView.setTag(R.id.content_animating, null);
+                if (snapshotTask != null) {
+                    snapshotTask.cancel();
+                }
+                drawable.release();
                 textView.setTextColor(textColors);
                 textView.setHintTextColor(hintColors);
                 textView.setHighlightColor(highlightColor);
@@ -233,7 +409,7 @@ public class TextResize extends Transition {
         view.layout(view.getLeft(), view.getTop(), view.getRight(), view.getBottom());
     }
 
-    private static Bitmap captureTextBitmap(TextView textView) {
+    private static Bitmap captureTextBitmap(TextView textView, Bitmap.Config config) {
         Drawable background = textView.getBackground();
         textView.setBackground(null);
         int width = textView.getWidth() - textView.getPaddingLeft() - textView.getPaddingRight();
@@ -241,7 +417,7 @@ public class TextResize extends Transition {
         if (width == 0 || height == 0) {
             return null;
         }
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Bitmap bitmap = BITMAP_POOL.acquire(width, height, config);
         Canvas canvas = new Canvas(bitmap);
         canvas.translate(-textView.getPaddingLeft(), -textView.getPaddingTop());
         textView.draw(canvas);
@@ -249,110 +425,328 @@ public class TextResize extends Transition {
         return bitmap;
     }
 
+    /**
+     * Draws the text into a bitmap the same way
+     * {@link #captureTextBitmap(TextView, Bitmap.Config)} would,
+     * without touching the TextView. This is safe to call from a background thread.
+     */
+    private static Bitmap drawTextBitmap(CharSequence text, TextPaint sourcePaint,
+                                         TextResizeData data, float fontSize,
+                                         float spacingMultiplier, float spacingAdd,
+                                         boolean includePad, Bitmap.Config config) {
+        if (fontSize == 0 || !data.hasTextArea()) {
+            return null;
+        }
+        final int width = data.getTextAreaWidth();
+        final int height = data.getTextAreaHeight();
+        final TextPaint paint = new TextPaint(sourcePaint);
+        paint.setTextSize(fontSize);
+        paint.setColor(data.textColor);
+        final Layout.Alignment alignment;
+        switch (data.gravity & Gravity.HORIZONTAL_GRAVITY_MASK) {
+            case Gravity.CENTER_HORIZONTAL:
+                alignment = Layout.Alignment.ALIGN_CENTER;
+                break;
+            case Gravity.RIGHT:
+                alignment = Layout.Alignment.ALIGN_OPPOSITE;
+                break;
+            default:
+                alignment = Layout.Alignment.ALIGN_NORMAL;
+                break;
+        }
+        final StaticLayout layout = createLayout(text, paint, width, alignment,
+                spacingMultiplier, spacingAdd, includePad);
+        final float verticalOffset;
+        switch (data.gravity & Gravity.VERTICAL_GRAVITY_MASK) {
+            case Gravity.CENTER_VERTICAL:
+                verticalOffset = (height - layout.getHeight()) / 2f;
+                break;
+            case Gravity.BOTTOM:
+                verticalOffset = height - layout.getHeight();
+                break;
+            default:
+                verticalOffset = 0;
+                break;
+        }
+        final Bitmap bitmap = BITMAP_POOL.acquire(width, height, config);
+        final Canvas canvas = new Canvas(bitmap);
+        canvas.translate(0, verticalOffset);
+        layout.draw(canvas);
+        return bitmap;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static StaticLayout createLayout(CharSequence text, TextPaint paint, int width,
+                                             Layout.Alignment alignment,
+                                             float spacingMultiplier, float spacingAdd,
+                                             boolean includePad) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            return StaticLayout.Builder.obtain(text, 0, text.length(), paint, width)
+                    .setAlignment(alignment)
+                    .setLineSpacing(spacingAdd, spacingMultiplier)
+                    .setIncludePad(includePad)
+                    .build();
+        }
+        return new StaticLayout(text, paint, width, alignment,
+                spacingMultiplier, spacingAdd, includePad);
+    }
+
     private static float interpolate(float start, float end, float fraction) {
         return start + (fraction * (end - start));
     }
 
     /**
-     * This Drawable is used to scale the start and end bitmaps and switch between them
-     * at the appropriate progress.
+     * Draws the start and end bitmaps for {@link #MODE_BITMAP_ASYNC} on
+     * {@link #SNAPSHOT_EXECUTOR} and hands them to the drawable on the main thread.
      */
-    private static class SwitchBitmapDrawable extends Drawable {
-        private final TextView view;
-        private final int horizontalGravity;
-        private final int verticalGravity;
-        private final Bitmap startBitmap;
-        private final Bitmap endBitmap;
-        private final Paint paint = new Paint();
+    private static class SnapshotTask implements Runnable {
+        private final SwitchBitmapDrawable drawable;
+        private final Bitmap.Config config;
+        private final CharSequence text;
+        private final TextPaint paint;
+        private final TextResizeData startData;
+        private final TextResizeData endData;
         private final float startFontSize;
         private final float endFontSize;
-        private final float startWidth;
-        private final float endWidth;
-        private float fontSize;
-        private float left;
-        private float top;
-        private float right;
-        private float bottom;
-        private int textColor;
+        private final float spacingMultiplier;
+        private final float spacingAdd;
+        private final boolean includePad;
+        private boolean cancelled;
 
-        public SwitchBitmapDrawable(TextView view, int gravity,
-                                    Bitmap startBitmap, float startFontSize, float startWidth,
-                                    Bitmap endBitmap, float endFontSize, float endWidth) {
-            this.view = view;
-            this.horizontalGravity = gravity & Gravity.HORIZONTAL_GRAVITY_MASK;
-            this.verticalGravity = gravity & Gravity.VERTICAL_GRAVITY_MASK;
-            this.startBitmap = startBitmap;
-            this.endBitmap = endBitmap;
+        SnapshotTask(TextView textView, SwitchBitmapDrawable drawable, Bitmap.Config config,
+                     TextResizeData startData, float startFontSize,
+                     TextResizeData endData, float endFontSize) {
+            this.drawable = drawable;
+            this.config = config;
+            // A copy keeps the spans, and the TextView may change its text meanwhile.
+            final CharSequence text = textView.getText();
+            this.text = text instanceof Spanned ? new SpannableString(text) : text.toString();
+            this.paint = new TextPaint(textView.getPaint());
+            this.startData = startData;
+            this.endData = endData;
             this.startFontSize = startFontSize;
             this.endFontSize = endFontSize;
-            this.startWidth = startWidth;
-            this.endWidth = endWidth;
+            this.spacingMultiplier = textView.getLineSpacingMultiplier();
+            this.spacingAdd = textView.getLineSpacingExtra();
+            this.includePad = textView.getIncludeFontPadding();
         }
 
         @Override
-        public void invalidateSelf() {
-            super.invalidateSelf();
-            view.invalidate();
+        public void run() {
+            final Bitmap startBitmap = drawTextBitmap(text, paint, startData, startFontSize,
+                    spacingMultiplier, spacingAdd, includePad, config);
+            final Bitmap endBitmap = drawTextBitmap(text, paint, endData, endFontSize,
+                    spacingMultiplier, spacingAdd, includePad, config);
+            MAIN_HANDLER.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (cancelled) {
+                        BITMAP_POOL.release(startBitmap);
+                        BITMAP_POOL.release(endBitmap);
+                    } else {
+                        drawable.setBitmaps(startBitmap, endBitmap);
+                    }
+                }
+            });
         }
 
         /**
-         * Sets the font size that the text should be displayed at.
-         *
-         * @param fontSize The font size in pixels of the scaled bitmap text.
+         * Must be called on the main thread. Bitmaps that arrive afterwards go straight
+         * back to the pool.
          */
-        public void setFontSize(float fontSize) {
-            this.fontSize = fontSize;
-            invalidateSelf();
+        void cancel() {
+            cancelled = true;
         }
+    }
+
+    /**
+     * Base class of the Drawables animated in the TextView's overlay. It holds the
+     * animated properties and leaves drawing the text at the current font size to
+     * subclasses.
+     * <p>
+     * Everything in the draw path that does not change during the animation is
+     * computed once in the constructor.
+     */
+    abstract static class TextResizeDrawable extends Drawable
+            implements ValueAnimator.AnimatorUpdateListener {
+
+        static final int PROPERTY_LEFT = 0;
+        static final int PROPERTY_TOP = 1;
+        static final int PROPERTY_RIGHT = 2;
+        static final int PROPERTY_BOTTOM = 3;
+        static final int PROPERTY_FONT_SIZE = 4;
+        static final int PROPERTY_TEXT_COLOR_FRACTION = 5;
+
+        static final Property<TextResizeDrawable, Float> LEFT =
+                createProperty("left", PROPERTY_LEFT);
+        static final Property<TextResizeDrawable, Float> TOP =
+                createProperty("top", PROPERTY_TOP);
+        static final Property<TextResizeDrawable, Float> RIGHT =
+                createProperty("right", PROPERTY_RIGHT);
+        static final Property<TextResizeDrawable, Float> BOTTOM =
+                createProperty("bottom", PROPERTY_BOTTOM);
+        static final Property<TextResizeDrawable, Float> FONT_SIZE =
+                createProperty("fontSize", PROPERTY_FONT_SIZE);
 
         /**
-         * Sets the color of the text to be displayed.
-         *
-         * @param textColor The color of the text to be displayed.
+         * Animates the text color from the start to the end color set in
+         * {@link #setTextColors(int, int)}, going from 0 to 1.
          */
-        public void setTextColor(int textColor) {
-            this.textColor = textColor;
-            setColorFilter(textColor, PorterDuff.Mode.SRC_IN);
-            invalidateSelf();
+        static final Property<TextResizeDrawable, Float> TEXT_COLOR_FRACTION =
+                createProperty("textColorFraction", PROPERTY_TEXT_COLOR_FRACTION);
+
+        protected final TextView view;
+        protected final float horizontalBias;
+        protected final float verticalBias;
+        protected final float startFontSize;
+        protected final float endFontSize;
+        protected final float startWidth;
+        protected final float endWidth;
+        /**
+         * The progress at which scaled-up text starts to look worse than scaled-down text.
+         */
+        protected final float threshold;
+        private final float fontSizeRange;
+        private float fontSize;
+        protected float left;
+        protected float top;
+        protected float right;
+        protected float bottom;
+        private int textColor;
+        private int startTextColor;
+        private int endTextColor;
+        private float textColorFraction;
+
+        TextResizeDrawable(TextView view, int gravity, float startFontSize, float startWidth,
+                           float endFontSize, float endWidth) {
+            this.view = view;
+            this.horizontalBias = getBias(gravity & Gravity.HORIZONTAL_GRAVITY_MASK);
+            this.verticalBias = getBias(gravity & Gravity.VERTICAL_GRAVITY_MASK);
+            this.startFontSize = startFontSize;
+            this.endFontSize = endFontSize;
+            this.startWidth = startWidth;
+            this.endWidth = endWidth;
+            this.threshold = startFontSize / (startFontSize + endFontSize);
+            this.fontSizeRange = endFontSize - startFontSize;
         }
 
         /**
-         * Sets the left side of the text. This should be the same as the left padding.
-         *
-         * @param left The left side of the text in pixels.
+         * Creates a property that animators set without boxing on N and above, where
+         * {@link FloatProperty} is public API. Below N it is a plain {@link Property}.
          */
-        public void setLeft(float left) {
-            this.left = left;
-            invalidateSelf();
+        private static Property<TextResizeDrawable, Float> createProperty(String name,
+                                                                           final int id) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                return new FloatProperty<TextResizeDrawable>(name) {
+                    @Override
+                    public void setValue(TextResizeDrawable drawable, float value) {
+                        drawable.setProperty(id, value);
+                    }
+
+                    @Override
+                    public Float get(TextResizeDrawable drawable) {
+                        return drawable.getProperty(id);
+                    }
+                };
+            }
+            return new Property<TextResizeDrawable, Float>(Float.class, name) {
+                @Override
+                public void set(TextResizeDrawable drawable, Float value) {
+                    drawable.setProperty(id, value);
+                }
+
+                @Override
+                public Float get(TextResizeDrawable drawable) {
+                    return drawable.getProperty(id);
+                }
+            };
         }
 
         /**
-         * Sets the top of the text. This should be the same as the top padding.
+         * Sets one of the animated properties.
          *
-         * @param top The top of the text in pixels.
+         * @param id One of the <code>PROPERTY_</code> constants.
+         */
+        void setProperty(int id, float value) {
+            switch (id) {
+                case PROPERTY_LEFT:
+                    left = value;
+                    break;
+                case PROPERTY_TOP:
+                    top = value;
+                    break;
+                case PROPERTY_RIGHT:
+                    right = value;
+                    break;
+                case PROPERTY_BOTTOM:
+                    bottom = value;
+                    break;
+                case PROPERTY_FONT_SIZE:
+                    fontSize = value;
+                    break;
+                case PROPERTY_TEXT_COLOR_FRACTION:
+                    textColorFraction = value;
+                    textColor = ArgbIntEvaluator.evaluate(value, startTextColor, endTextColor);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown property " + id);
+            }
+        }
+
+        /**
+         * @param id One of the <code>PROPERTY_</code> constants.
+         * @return The current value of the property.
          */
-        public void setTop(float top) {
-            this.top = top;
+        float getProperty(int id) {
+            switch (id) {
+                case PROPERTY_LEFT:
+                    return left;
+                case PROPERTY_TOP:
+                    return top;
+                case PROPERTY_RIGHT:
+                    return right;
+                case PROPERTY_BOTTOM:
+                    return bottom;
+                case PROPERTY_FONT_SIZE:
+                    return fontSize;
+                case PROPERTY_TEXT_COLOR_FRACTION:
+                    return textColorFraction;
+                default:
+                    throw new IllegalArgumentException("Unknown property " + id);
+            }
+        }
+
+        @Override
+        public void invalidateSelf() {
+            super.invalidateSelf();
+            view.invalidate();
+        }
+
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
             invalidateSelf();
         }
 
         /**
-         * Sets the right of the drawable.
+         * Sets the colors that {@link #TEXT_COLOR_FRACTION} interpolates between and
+         * shows the start color.
          *
-         * @param right The right pixel of the drawn area.
+         * @param startTextColor The color of the text at the start.
+         * @param endTextColor The color of the text at the end.
          */
-        public void setRight(float right) {
-            this.right = right;
-            invalidateSelf();
+        public void setTextColors(int startTextColor, int endTextColor) {
+            this.startTextColor = startTextColor;
+            this.endTextColor = endTextColor;
+            setTextColor(startTextColor);
         }
 
         /**
-         * Sets the bottom of the drawable.
+         * Sets the color of the text to be displayed.
          *
-         * @param bottom The bottom pixel of the drawn area.
+         * @param textColor The color of the text to be displayed.
          */
-        public void setBottom(float bottom) {
-            this.bottom = bottom;
+        public void setTextColor(int textColor) {
+            this.textColor = textColor;
             invalidateSelf();
         }
 
@@ -398,50 +792,28 @@ public class TextResize extends Transition {
             return textColor;
         }
 
-        @Override
-        public void draw(Canvas canvas) {
-            int saveCount = canvas.save();
-            // The threshold changes depending on the target font sizes. Because scaled-up
-            // fonts look bad, we want to switch when closer to the smaller font size. This
-            // algorithm ensures that null bitmaps (font size = 0) are never used.
-            final float threshold = startFontSize / (startFontSize + endFontSize);
-            final float fontSize = getFontSize();
-            final float progress = (fontSize - startFontSize)/(endFontSize - startFontSize);
+        /**
+         * @return <code>true</code> if the text color changes during the animation.
+         */
+        protected boolean isTextColorAnimated() {
+            return startTextColor != endTextColor;
+        }
 
-            // The drawn text width is a more accurate scale than font size. This avoids
-            // jump when switching bitmaps.
-            final float expectedWidth = interpolate(startWidth, endWidth, progress);
-            if (progress < threshold) {
-                // draw start bitmap
-                final float scale = expectedWidth / startWidth;
-                float tx = getTranslationPoint(horizontalGravity, left, right,
-                        startBitmap.getWidth(), scale);
-                float ty = getTranslationPoint(verticalGravity, top, bottom,
-                        startBitmap.getHeight(), scale);
-                canvas.translate(tx, ty);
-                canvas.scale(scale, scale);
-                canvas.drawBitmap(startBitmap, 0, 0, paint);
-            } else {
-                // draw end bitmap
-                final float scale = expectedWidth / endWidth;
-                float tx = getTranslationPoint(horizontalGravity, left, right,
-                        endBitmap.getWidth(), scale);
-                float ty = getTranslationPoint(verticalGravity, top, bottom,
-                        endBitmap.getHeight(), scale);
-                canvas.translate(tx, ty);
-                canvas.scale(scale, scale);
-                canvas.drawBitmap(endBitmap, 0, 0, paint);
-            }
-            canvas.restoreToCount(saveCount);
+        /**
+         * @return The progress of the font size from the start to the end font size.
+         */
+        protected float getProgress() {
+            return (fontSize - startFontSize) / fontSizeRange;
         }
 
-        @Override
-        public void setAlpha(int alpha) {
+        /**
+         * Hands back any resources held for drawing. Called once the animation ends.
+         */
+        public void release() {
         }
 
         @Override
-        public void setColorFilter(ColorFilter colorFilter) {
-            paint.setColorFilter(colorFilter);
+        public void setAlpha(int alpha) {
         }
 
         @Override
@@ -449,19 +821,266 @@ public class TextResize extends Transition {
             return PixelFormat.TRANSLUCENT;
         }
 
-        private float getTranslationPoint(int gravity, float start, float end, float dim,
-                                          float scale) {
+        /**
+         * @return The position of content with the size <code>dim * scale</code> placed
+         * between <code>start</code> and <code>end</code> according to <code>bias</code>.
+         */
+        protected static float getTranslationPoint(float bias, float start, float end,
+                                                   float dim, float scale) {
+            return start + ((end - start) - (dim * scale)) * bias;
+        }
+
+        private static float getBias(int gravity) {
             switch (gravity) {
                 case Gravity.CENTER_HORIZONTAL:
                 case Gravity.CENTER_VERTICAL:
-                    return ((start + end) - (dim * scale))/2f;
+                    return 0.5f;
                 case Gravity.RIGHT:
                 case Gravity.BOTTOM:
-                    return end - (dim * scale);
+                    return 1f;
                 case Gravity.LEFT:
                 case Gravity.TOP:
                 default:
-                    return start;
+                    return 0f;
+            }
+        }
+    }
+
+    /**
+     * This Drawable is used to scale the start and end bitmaps and switch between them
+     * at the appropriate progress. The bitmaps are tinted with the current text color.
+     */
+    static class SwitchBitmapDrawable extends TextResizeDrawable {
+        private final Paint paint = new Paint();
+        /**
+         * Replaces the color of an ARGB bitmap drawn below it with the text color, keeping
+         * its alpha, while the text color is animated.
+         */
+        private final Paint tintPaint = new Paint();
+        /**
+         * The color of the color filter of {@link #paint}, which tints ARGB bitmaps while the
+         * text color stays the same.
+         */
+        private int filterColor;
+        private boolean hasFilter;
+        private Bitmap startBitmap;
+        private Bitmap endBitmap;
+        private boolean hasBitmaps;
+
+        public SwitchBitmapDrawable(TextView view, int gravity,
+                                    Bitmap startBitmap, float startFontSize, float startWidth,
+                                    Bitmap endBitmap, float endFontSize, float endWidth) {
+            this(view, gravity, startFontSize, startWidth, endFontSize, endWidth);
+            this.startBitmap = startBitmap;
+            this.endBitmap = endBitmap;
+            this.hasBitmaps = true;
+        }
+
+        /**
+         * Creates a drawable that draws nothing until {@link #setBitmaps(Bitmap, Bitmap)}
+         * is called.
+         */
+        public SwitchBitmapDrawable(TextView view, int gravity,
+                                    float startFontSize, float startWidth,
+                                    float endFontSize, float endWidth) {
+            super(view, gravity, startFontSize, startWidth, endFontSize, endWidth);
+            tintPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_IN));
+        }
+
+        /**
+         * Sets the bitmaps of the start and end text.
+         *
+         * @param startBitmap The start bitmap, or <code>null</code> if the start font size is 0.
+         * @param endBitmap The end bitmap, or <code>null</code> if the end font size is 0.
+         */
+        public void setBitmaps(Bitmap startBitmap, Bitmap endBitmap) {
+            this.startBitmap = startBitmap;
+            this.endBitmap = endBitmap;
+            hasBitmaps = true;
+            invalidateSelf();
+        }
+
+        @Override
+        public void release() {
+            BITMAP_POOL.release(startBitmap);
+            BITMAP_POOL.release(endBitmap);
+            startBitmap = null;
+            endBitmap = null;
+            hasBitmaps = false;
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            if (!hasBitmaps) {
+                return;
+            }
+            // The threshold changes depending on the target font sizes. Because scaled-up
+            // fonts look bad, we want to switch when closer to the smaller font size. This
+            // algorithm ensures that null bitmaps (font size = 0) are never used.
+            final float progress = getProgress();
+            final Bitmap bitmap;
+            final float width;
+            if (progress < threshold) {
+                bitmap = startBitmap;
+                width = startWidth;
+            } else {
+                bitmap = endBitmap;
+                width = endWidth;
+            }
+
+            // The drawn text width is a more accurate scale than font size. This avoids
+            // jump when switching bitmaps.
+            final float scale = interpolate(startWidth, endWidth, progress) / width;
+            int saveCount = canvas.save();
+            float tx = getTranslationPoint(horizontalBias, left, right,
+                    bitmap.getWidth(), scale);
+            float ty = getTranslationPoint(verticalBias, top, bottom,
+                    bitmap.getHeight(), scale);
+            canvas.translate(tx, ty);
+            canvas.scale(scale, scale);
+            drawTinted(canvas, bitmap);
+            canvas.restoreToCount(saveCount);
+        }
+
+        /**
+         * Draws a bitmap in the current text color without allocating, so that it can be
+         * called every frame.
+         */
+        private void drawTinted(Canvas canvas, Bitmap bitmap) {
+            final int textColor = getTextColor();
+            if (bitmap.getConfig() == Bitmap.Config.ALPHA_8) {
+                // The bitmap only holds the text's coverage, so the paint color tints it.
+                paint.setColor(textColor);
+                canvas.drawBitmap(bitmap, 0, 0, paint);
+            } else if (!isTextColorAnimated()) {
+                // A single color filter serves the whole animation.
+                if (!hasFilter || filterColor != textColor) {
+                    filterColor = textColor;
+                    hasFilter = true;
+                    paint.setColorFilter(
+                            new PorterDuffColorFilter(textColor, PorterDuff.Mode.SRC_IN));
+                }
+                canvas.drawBitmap(bitmap, 0, 0, paint);
+            } else {
+                // Color filters can't be changed, so the text color is painted over the
+                // bitmap's pixels in a layer instead of creating a filter every frame.
+                final int width = bitmap.getWidth();
+                final int height = bitmap.getHeight();
+                int layerCount = canvas.saveLayer(0, 0, width, height, null);
+                canvas.drawBitmap(bitmap, 0, 0, paint);
+                tintPaint.setColor(textColor);
+                canvas.drawRect(0, 0, width, height, tintPaint);
+                canvas.restoreToCount(layerCount);
+            }
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter colorFilter) {
+            paint.setColorFilter(colorFilter);
+        }
+    }
+
+    /**
+     * This Drawable draws the TextView's text directly at the animated font size.
+     * Layouts are cached per quantized font size and the canvas is scaled for the
+     * remainder, so only the first frame at each size step creates a layout.
+     */
+    static class TextLayoutDrawable extends TextResizeDrawable {
+        /**
+         * Font sizes are rounded to steps of this many pixels before laying out text.
+         */
+        private static final float FONT_SIZE_STEP = 0.5f;
+
+        private final SparseArray<CachedLayout> layouts = new SparseArray<>();
+        private final CharSequence text;
+        private final TextPaint sourcePaint;
+        private final int startTextAreaWidth;
+        private final int endTextAreaWidth;
+        private final float spacingMultiplier;
+        private final float spacingAdd;
+        private final boolean includePad;
+
+        public TextLayoutDrawable(TextView view, int gravity,
+                                  float startFontSize, float startWidth, int startTextAreaWidth,
+                                  float endFontSize, float endWidth, int endTextAreaWidth) {
+            super(view, gravity, startFontSize, startWidth, endFontSize, endWidth);
+            this.text = view.getText();
+            this.sourcePaint = new TextPaint(view.getPaint());
+            this.startTextAreaWidth = startTextAreaWidth;
+            this.endTextAreaWidth = endTextAreaWidth;
+            this.spacingMultiplier = view.getLineSpacingMultiplier();
+            this.spacingAdd = view.getLineSpacingExtra();
+            this.includePad = view.getIncludeFontPadding();
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            final float fontSize = getFontSize();
+            final int step = Math.round(fontSize / FONT_SIZE_STEP);
+            if (step <= 0) {
+                return;
+            }
+            final CachedLayout cached = getLayout(step);
+            final StaticLayout layout = cached.layout;
+            final float scale = fontSize / (step * FONT_SIZE_STEP);
+            layout.getPaint().setColor(getTextColor());
+
+            int saveCount = canvas.save();
+            float tx = getTranslationPoint(horizontalBias, left, right,
+                    cached.lineRight - cached.lineLeft, scale);
+            float ty = getTranslationPoint(verticalBias, top, bottom,
+                    layout.getHeight(), scale);
+            canvas.translate(tx, ty);
+            canvas.scale(scale, scale);
+            canvas.translate(-cached.lineLeft, 0);
+            layout.draw(canvas);
+            canvas.restoreToCount(saveCount);
+        }
+
+        private CachedLayout getLayout(int step) {
+            CachedLayout cached = layouts.get(step);
+            if (cached == null) {
+                final float stepFontSize = step * FONT_SIZE_STEP;
+                final float progress =
+                        (stepFontSize - startFontSize) / (endFontSize - startFontSize);
+                final int width = Math.max(1, Math.round(
+                        interpolate(startTextAreaWidth, endTextAreaWidth, progress)));
+                final TextPaint paint = new TextPaint(sourcePaint);
+                paint.setTextSize(stepFontSize);
+                cached = new CachedLayout(createLayout(text, paint, width,
+                        Layout.Alignment.ALIGN_NORMAL, spacingMultiplier, spacingAdd, includePad));
+                layouts.put(step, cached);
+            }
+            return cached;
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter colorFilter) {
+            sourcePaint.setColorFilter(colorFilter);
+            for (int i = 0, size = layouts.size(); i < size; i++) {
+                layouts.valueAt(i).layout.getPaint().setColorFilter(colorFilter);
+            }
+        }
+
+        /**
+         * A layout at one font size step, with the horizontal bounds of its lines, which
+         * don't change from frame to frame.
+         */
+        private static class CachedLayout {
+            final StaticLayout layout;
+            final float lineLeft;
+            final float lineRight;
+
+            CachedLayout(StaticLayout layout) {
+                this.layout = layout;
+                float lineLeft = Float.MAX_VALUE;
+                float lineRight = 0;
+                for (int i = 0, lineCount = layout.getLineCount(); i < lineCount; i++) {
+                    lineLeft = Math.min(lineLeft, layout.getLineLeft(i));
+                    lineRight = Math.max(lineRight, layout.getLineRight(i));
+                }
+                this.lineLeft = lineLeft;
+                this.lineRight = lineRight;
             }
         }
     }
@@ -492,5 +1111,26 @@ public class TextResize extends Transition {
             this.gravity = textView.getGravity();
             this.textColor = textView.getCurrentTextColor();
         }
+
+        /**
+         * @return The width available to the text inside the padding.
+         */
+        public int getTextAreaWidth() {
+            return width - paddingLeft - paddingRight;
+        }
+
+        /**
+         * @return The height available to the text inside the padding.
+         */
+        public int getTextAreaHeight() {
+            return height - paddingTop - paddingBottom;
+        }
+
+        /**
+         * @return <code>true</code> if there is room for text inside the padding.
+         */
+        public boolean hasTextArea() {
+            return getTextAreaWidth() > 0 && getTextAreaHeight() > 0;
+        }
     }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.transition;
+
+import android.content.Context;
+import android.os.Build;
+import android.transition.Transition;
+import android.transition.TransitionSet;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.WindowManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how smoothly a transition runs.
+ * <p>
+ * While the transition runs, the interval between frames is recorded through
+ * {@link Choreographer} frame callbacks, and every interval longer than a display refresh
+ * counts the missed refreshes as dropped frames. The time between
+ * {@link #onPostponeEnterTransition()} and {@link #onStartPostponedEnterTransition()} and
+ * the time spent in {@link Timed} transitions' <code>createAnimator</code> are reported
+ * with the frame statistics as a {@link TransitionReport} logged under {@link #TAG}.
+ */
+public class TransitionMetrics implements Transition.TransitionListener,
+        Choreographer.FrameCallback {
+
+    public static final String TAG = "TransitionMetrics";
+
+    /**
+     * Implemented by transitions that measure their own <code>createAnimator</code> calls.
+     */
+    public interface Timed {
+
+        /**
+         * @return The time in nanoseconds spent creating animators for the last run.
+         */
+        long getCreateAnimatorTimeNanos();
+    }
+
+    private final String name;
+    private final long frameIntervalNanos;
+    private long[] frameIntervals = new long[64];
+    private int frameCount;
+    private int droppedFrames;
+    private long lastFrameTimeNanos;
+    private long startTimeNanos;
+    private long postponedAtNanos = -1;
+    private long postponedNanos = -1;
+    private boolean running;
+    private TransitionReport lastReport;
+
+    /**
+     * @param context The context to read the display refresh rate from.
+     * @param name The name the transition is reported under.
+     */
+    public TransitionMetrics(@NonNull Context context, @NonNull String name) {
+        this.name = name;
+        frameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / getRefreshRate(context));
+    }
+
+    /**
+     * Starts listening to a transition.
+     *
+     * @param transition The transition to measure.
+     * @return The transition.
+     */
+    public Transition attach(@NonNull Transition transition) {
+        transition.addListener(this);
+        return transition;
+    }
+
+    /**
+     * Marks that the enter transition has been postponed.
+     */
+    public void onPostponeEnterTransition() {
+        postponedAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks that the postponed enter transition has been started.
+     */
+    public void onStartPostponedEnterTransition() {
+        if (postponedAtNanos >= 0) {
+            postponedNanos = System.nanoTime() - postponedAtNanos;
+            postponedAtNanos = -1;
+        }
+    }
+
+    /**
+     * @return The report of the last completed run, or <code>null</code>.
+     */
+    @Nullable
+    public TransitionReport getLastReport() {
+        return lastReport;
+    }
+
+    @Override
+    public void onTransitionStart(Transition transition) {
+        if (running) {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+        running = true;
+        frameCount = 0;
+        droppedFrames = 0;
+        lastFrameTimeNanos = 0;
+        startTimeNanos = System.nanoTime();
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        if (lastFrameTimeNanos != 0) {
+            final long interval = frameTimeNanos - lastFrameTimeNanos;
+            if (frameCount == frameIntervals.length) {
+                frameIntervals = Arrays.copyOf(frameIntervals, frameCount * 2);
+            }
+            frameIntervals[frameCount++] = interval;
+            droppedFrames += Math.max(0,
+                    Math.round((double) interval / frameIntervalNanos) - 1);
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void onTransitionEnd(Transition transition) {
+        finish(transition);
+    }
+
+    @Override
+    public void onTransitionCancel(Transition transition) {
+        finish(transition);
+    }
+
+    @Override
+    public void onTransitionPause(Transition transition) {
+        // no-op
+    }
+
+    @Override
+    public void onTransitionResume(Transition transition) {
+        // no-op
+    }
+
+    private void finish(Transition transition) {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        Arrays.sort(frameIntervals, 0, frameCount);
+        lastReport = new TransitionReport(name,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos),
+                frameCount, droppedFrames,
+                getPercentileMillis(0.5f), getPercentileMillis(0.9f), getPercentileMillis(1f),
+                postponedNanos >= 0 ? TimeUnit.NANOSECONDS.toMillis(postponedNanos)
+                        : TransitionReport.NOT_POSTPONED,
+                TimeUnit.NANOSECONDS.toMicros(getCreateAnimatorTimeNanos(transition)));
+        postponedNanos = -1;
+        Log.i(TAG, lastReport.toString());
+    }
+
+    private float getPercentileMillis(float percentile) {
+        if (frameCount == 0) {
+            return 0;
+        }
+        final int index = Math.min(frameCount - 1, (int) Math.ceil(percentile * frameCount) - 1);
+        return frameIntervals[Math.max(0, index)] / (float) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return The refresh rate of the context's display, or 60 if it is unknown.
+     */
+    private static float getRefreshRate(@NonNull Context context) {
+        Display display = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            try {
+                display = context.getDisplay();
+            } catch (UnsupportedOperationException e) {
+                // Not a visual context, such as the application context.
+            }
+        }
+        if (display == null) {
+            display = getDefaultDisplay(context);
+        }
+        final float refreshRate = display.getRefreshRate();
+        return refreshRate > 0 ? refreshRate : 60;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Display getDefaultDisplay(@NonNull Context context) {
+        final WindowManager windowManager =
+                (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        return windowManager.getDefaultDisplay();
+    }
+
+    private static long getCreateAnimatorTimeNanos(Transition transition) {
+        if (transition instanceof Timed) {
+            return ((Timed) transition).getCreateAnimatorTimeNanos();
+        }
+        long time = 0;
+        if (transition instanceof TransitionSet) {
+            final TransitionSet set = (TransitionSet) transition;
+            for (int i = 0; i < set.getTransitionCount(); i++) {
+                time += getCreateAnimatorTimeNanos(set.getTransitionAt(i));
+            }
+        }
+        return time;
+    }
+}
@@ -26,26 +26,29 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.example.android.unsplash.IntentUtil;
 import com.example.android.unsplash.databinding.DetailViewBinding;
 import com.example.android.unsplash.databinding.PhotoItemBinding;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 public class DetailSharedElementEnterCallback extends SharedElementCallback {
 
-    private final Intent intent;
+    @Nullable
+    private final StartStyle startStyle;
     private float targetTextSize;
     private ColorStateList targetTextColors;
     private DetailViewBinding currentDetailBinding;
-    private PhotoItemBinding currentPhotoBinding;
-    private Rect targetPadding;
+    private TextView author;
+    private ImageView photo;
+    private final Rect targetPadding = new Rect();
+    private boolean hasTargetPadding;
 
     public DetailSharedElementEnterCallback(Intent intent) {
-        this.intent = intent;
+        startStyle = StartStyle.from(intent);
     }
 
     @Override
@@ -55,17 +58,16 @@ public class DetailSharedElementEnterCallback extends SharedElementCallback {
         TextView author = getAuthor();
         targetTextSize = author.getTextSize();
         targetTextColors = author.getTextColors();
-        targetPadding = new Rect(author.getPaddingLeft(),
+        targetPadding.set(author.getPaddingLeft(),
                 author.getPaddingTop(),
                 author.getPaddingRight(),
                 author.getPaddingBottom());
-        if (IntentUtil.hasAll(intent,
-                IntentUtil.TEXT_COLOR, IntentUtil.FONT_SIZE, IntentUtil.PADDING)) {
-            author.setTextColor(intent.getIntExtra(IntentUtil.TEXT_COLOR, Color.BLACK));
-            float textSize = intent.getFloatExtra(IntentUtil.FONT_SIZE, targetTextSize);
-            author.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize);
-            Rect padding = intent.getParcelableExtra(IntentUtil.PADDING);
-            author.setPadding(padding.left, padding.top, padding.right, padding.bottom);
+        hasTargetPadding = true;
+        if (startStyle != null) {
+            author.setTextColor(startStyle.textColor);
+            author.setTextSize(TypedValue.COMPLEX_UNIT_PX, startStyle.textSize);
+            author.setPadding(startStyle.paddingLeft, startStyle.paddingTop,
+                    startStyle.paddingRight, startStyle.paddingBottom);
         }
     }
 
@@ -78,7 +80,7 @@ public class DetailSharedElementEnterCallback extends SharedElementCallback {
         if (targetTextColors != null) {
             author.setTextColor(targetTextColors);
         }
-        if (targetPadding != null) {
+        if (hasTargetPadding) {
             author.setPadding(targetPadding.left, targetPadding.top,
                     targetPadding.right, targetPadding.bottom);
         }
@@ -89,73 +91,69 @@ public class DetailSharedElementEnterCallback extends SharedElementCallback {
 
     @Override
     public void onMapSharedElements(List<String> names, Map<String, View> sharedElements) {
-        removeObsoleteElements(names, sharedElements, mapObsoleteElements(names));
+        removeObsoleteElements(names, sharedElements);
         mapSharedElement(names, sharedElements, getAuthor());
         mapSharedElement(names, sharedElements, getPhoto());
     }
 
     public void setBinding(@NonNull DetailViewBinding binding) {
         currentDetailBinding = binding;
-        currentPhotoBinding = null;
+        author = binding.author;
+        photo = binding.photo;
+    }
+
+    /**
+     * @return The detail page taking part in the transition, if a detail page is bound.
+     */
+    @Nullable
+    public DetailViewBinding getDetailBinding() {
+        return currentDetailBinding;
     }
 
     public void setBinding(@NonNull PhotoItemBinding binding) {
-        currentPhotoBinding = binding;
         currentDetailBinding = null;
+        author = binding.author;
+        photo = binding.photo;
     }
 
     private TextView getAuthor() {
-        if (currentPhotoBinding != null) {
-            return currentPhotoBinding.author;
-        } else if (currentDetailBinding != null) {
-            return currentDetailBinding.author;
-        } else {
+        if (author == null) {
             throw new NullPointerException("Must set a binding before transitioning.");
         }
+        return author;
     }
 
     private ImageView getPhoto() {
-        if (currentPhotoBinding != null) {
-            return currentPhotoBinding.photo;
-        } else if (currentDetailBinding != null) {
-            return currentDetailBinding.photo;
-        } else {
+        if (photo == null) {
             throw new NullPointerException("Must set a binding before transitioning.");
         }
+        return photo;
     }
 
     /**
-     * Maps all views that don't start with "android" namespace.
-     *
-     * @param names All shared element names.
-     * @return The obsolete shared element names.
-     */
-    @NonNull
-    private List<String> mapObsoleteElements(List<String> names) {
-        List<String> elementsToRemove = new ArrayList<>(names.size());
-        for (String name : names) {
-            if (name.startsWith("android")) continue;
-            elementsToRemove.add(name);
-        }
-        return elementsToRemove;
-    }
-
-    /**
-     * Removes obsolete elements from names and shared elements.
+     * Removes all elements that don't start with "android" namespace from names and shared
+     * elements. The names are compacted in place in a single pass.
      *
      * @param names Shared element names.
      * @param sharedElements Shared elements.
-     * @param elementsToRemove The elements that should be removed.
      */
-    private void removeObsoleteElements(List<String> names,
-                                        Map<String, View> sharedElements,
-                                        List<String> elementsToRemove) {
-        if (elementsToRemove.size() > 0) {
-            names.removeAll(elementsToRemove);
-            for (String elementToRemove : elementsToRemove) {
-                sharedElements.remove(elementToRemove);
+    private void removeObsoleteElements(List<String> names, Map<String, View> sharedElements) {
+        final int size = names.size();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            final String name = names.get(i);
+            if (name.startsWith("android")) {
+                if (kept != i) {
+                    names.set(kept, name);
+                }
+                kept++;
+            } else {
+                sharedElements.remove(name);
             }
         }
+        for (int i = size - 1; i >= kept; i--) {
+            names.remove(i);
+        }
     }
 
     /**
@@ -180,4 +178,44 @@ public class DetailSharedElementEnterCallback extends SharedElementCallback {
         view.layout(view.getLeft(), view.getTop(), view.getRight(), view.getBottom());
     }
 
+    /**
+     * The author text style of the calling screen, decoded once from the start intent.
+     */
+    private static final class StartStyle {
+
+        final float textSize;
+        final int textColor;
+        final int paddingLeft;
+        final int paddingTop;
+        final int paddingRight;
+        final int paddingBottom;
+
+        private StartStyle(float textSize, int textColor, Rect padding) {
+            this.textSize = textSize;
+            this.textColor = textColor;
+            paddingLeft = padding.left;
+            paddingTop = padding.top;
+            paddingRight = padding.right;
+            paddingBottom = padding.bottom;
+        }
+
+        /**
+         * @param intent The intent that started the screen.
+         * @return The style, or <code>null</code> if the intent does not carry one.
+         */
+        @Nullable
+        static StartStyle from(Intent intent) {
+            if (!IntentUtil.hasAll(intent,
+                    IntentUtil.TEXT_COLOR, IntentUtil.FONT_SIZE, IntentUtil.PADDING)) {
+                return null;
+            }
+            final Rect padding = intent.getParcelableExtra(IntentUtil.PADDING);
+            if (padding == null) {
+                return null;
+            }
+            return new StartStyle(intent.getFloatExtra(IntentUtil.FONT_SIZE, 0f),
+                    intent.getIntExtra(IntentUtil.TEXT_COLOR, Color.BLACK), padding);
+        }
+    }
+
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.ui;
+
+import android.os.SystemClock;
+import android.transition.Transition;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+
+import com.example.android.unsplash.R;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders the participants of a transition into hardware layers while it runs, so that
+ * moving and fading them doesn't redraw their content every frame.
+ * <p>
+ * Views whose content is animated themselves, marked with the
+ * {@link R.id#content_animating} tag, are skipped: their layer would have to be redrawn
+ * every frame on top of the regular drawing. The previous layer types are restored when
+ * the transition ends or is cancelled.
+ */
+public class HardwareLayerCallback extends TransitionCallback {
+
+    private final List<View> participants = new ArrayList<>();
+    private final List<View> promotedViews = new ArrayList<>();
+    /**
+     * The layer types of {@link #promotedViews} before they were promoted, by index.
+     */
+    private int[] previousLayerTypes = new int[4];
+    private long startTime;
+    private int layerCount;
+    private long layerTimeMillis;
+
+    /**
+     * Sets the views to promote the next time a transition starts.
+     *
+     * @param views The views that are moved or faded by the transition.
+     */
+    public void setParticipants(@NonNull View... views) {
+        participants.clear();
+        for (View view : views) {
+            if (view != null) {
+                participants.add(view);
+            }
+        }
+    }
+
+    @Override
+    public void onTransitionStart(Transition transition) {
+        restoreLayers();
+        startTime = SystemClock.elapsedRealtime();
+        for (int i = 0; i < participants.size(); i++) {
+            final View view = participants.get(i);
+            if (view.getLayerType() == View.LAYER_TYPE_HARDWARE
+                    || view.getWidth() == 0 || view.getHeight() == 0
+                    || isContentAnimating(view)) {
+                continue;
+            }
+            final int index = promotedViews.size();
+            if (index == previousLayerTypes.length) {
+                previousLayerTypes = Arrays.copyOf(previousLayerTypes, index * 2);
+            }
+            previousLayerTypes[index] = view.getLayerType();
+            promotedViews.add(view);
+            view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            if (view.isAttachedToWindow()) {
+                view.buildLayer();
+            }
+        }
+    }
+
+    @Override
+    public void onTransitionEnd(Transition transition) {
+        restoreLayers();
+    }
+
+    @Override
+    public void onTransitionCancel(Transition transition) {
+        restoreLayers();
+    }
+
+    /**
+     * @return The number of layers created since this callback was created.
+     */
+    public int getLayerCount() {
+        return layerCount;
+    }
+
+    /**
+     * @return The total time the created layers were alive, in milliseconds.
+     */
+    public long getLayerTimeMillis() {
+        return layerTimeMillis;
+    }
+
+    private void restoreLayers() {
+        final int promoted = promotedViews.size();
+        if (promoted == 0) {
+            return;
+        }
+        for (int i = 0; i < promoted; i++) {
+            promotedViews.get(i).setLayerType(previousLayerTypes[i], null);
+        }
+        final long duration = SystemClock.elapsedRealtime() - startTime;
+        layerCount += promoted;
+        layerTimeMillis += promoted * duration;
+        promotedViews.clear();
+    }
+
+    private static boolean isContentAnimating(View view) {
+        if (view.getTag(R.id.content_animating) != null) {
+            return true;
+        }
+        if (view instanceof ViewGroup) {
+            final ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                if (isContentAnimating(group.getChildAt(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -16,8 +16,40 @@
 
 package com.example.android.unsplash.ui;
 
+import android.content.Context;
+import android.content.res.Resources;
+
+import com.example.android.unsplash.R;
+import com.example.android.unsplash.ui.grid.PhotoSpanSizeLookup;
+
 public class ImageSize {
 
     public static final int[] NORMAL = new int[] {480, 400};
     public static final int[] LARGE = new int[] {960, 800};
+
+    /**
+     * Returns the size a grid photo is displayed at. The grid and detail screens both use
+     * this, so the detail screen can show the grid's decoded photo as its thumbnail.
+     *
+     * @param context The context to read the grid dimensions from.
+     * @param position The position of the photo in the grid.
+     * @return The width and height of the photo in pixels.
+     */
+    public static int[] getGridSize(Context context, int position) {
+        final Resources resources = context.getResources();
+        final int columns = resources.getInteger(R.integer.photo_grid_columns);
+        final int spanSize = PhotoSpanSizeLookup.getSpanSizeOf(position);
+        return new int[] {
+                resources.getDisplayMetrics().widthPixels * spanSize / columns,
+                resources.getDimensionPixelSize(R.dimen.image_height)};
+    }
+
+    /**
+     * @param context The context to read the screen dimensions from.
+     * @return The width and height of a photo on the detail screen in pixels.
+     */
+    public static int[] getDetailSize(Context context) {
+        final int width = context.getResources().getDisplayMetrics().widthPixels;
+        return new int[] {width, width * 2 / 3};
+    }
 }
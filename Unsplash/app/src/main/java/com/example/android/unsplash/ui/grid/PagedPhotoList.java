@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.ui.grid;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.SparseArrayCompat;
+
+import com.example.android.unsplash.data.PhotoPageSource;
+import com.example.android.unsplash.data.model.Photo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of photos that is loaded from a {@link PhotoPageSource} one page at a time.
+ * <p>
+ * Reading a position loads every page within the prefetch distance of it. Pages further
+ * than the retained distance from the last read page are dropped and loaded again when
+ * they are needed, so only a bounded window of the feed is kept in memory.
+ */
+public class PagedPhotoList {
+
+    private static final String TAG = "PagedPhotoList";
+
+    /**
+     * Notified on the main thread when a page has been loaded.
+     */
+    public interface Listener {
+        void onRangeLoaded(int positionStart, int itemCount);
+    }
+
+    private final PhotoPageSource source;
+    private final int size;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final int retainedPages;
+    private final SparseArrayCompat<List<Photo>> pages = new SparseArrayCompat<>();
+    private final SparseArrayCompat<Boolean> loadingPages = new SparseArrayCompat<>();
+    private Listener listener;
+    private int lastAccessedPage;
+
+    /**
+     * @param source The source to load pages from.
+     * @param size The total number of photos.
+     * @param pageSize The number of photos per page.
+     * @param prefetchDistance How many positions ahead of and behind a read position
+     *                         should be loaded.
+     * @param retainedPages How many pages on either side of the last read page to keep.
+     */
+    public PagedPhotoList(@NonNull PhotoPageSource source, int size, int pageSize,
+                          int prefetchDistance, int retainedPages) {
+        this.source = source;
+        this.size = size;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.retainedPages = Math.max(retainedPages,
+                (prefetchDistance + pageSize - 1) / pageSize);
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the photo at a position and loads the pages around it.
+     *
+     * @param position The position of the photo.
+     * @return The photo, or <code>null</code> if its page hasn't been loaded yet.
+     */
+    @Nullable
+    public Photo get(int position) {
+        final int page = position / pageSize;
+        lastAccessedPage = page;
+        final int firstPage = Math.max(0, position - prefetchDistance) / pageSize;
+        final int lastPage = Math.min(size - 1, position + prefetchDistance) / pageSize;
+        for (int i = firstPage; i <= lastPage; i++) {
+            loadPage(i);
+        }
+        return peek(position);
+    }
+
+    /**
+     * Returns the photo at a position without loading anything.
+     *
+     * @param position The position of the photo.
+     * @return The photo, or <code>null</code> if its page isn't loaded.
+     */
+    @Nullable
+    public Photo peek(int position) {
+        final List<Photo> photos = pages.get(position / pageSize);
+        final int index = position % pageSize;
+        return photos != null && index < photos.size() ? photos.get(index) : null;
+    }
+
+    /**
+     * @param position A position with a loaded photo.
+     * @return The position of the first photo in the contiguous loaded range around it.
+     */
+    public int getLoadedRangeStart(int position) {
+        int page = position / pageSize;
+        while (page > 0 && pages.get(page - 1) != null) {
+            page--;
+        }
+        return page * pageSize;
+    }
+
+    /**
+     * @param position A position with a loaded photo.
+     * @return All photos in the contiguous loaded range around the position, starting at
+     * {@link #getLoadedRangeStart(int)}.
+     */
+    @NonNull
+    public ArrayList<Photo> getLoadedRange(int position) {
+        final ArrayList<Photo> photos = new ArrayList<>();
+        List<Photo> page;
+        for (int i = getLoadedRangeStart(position) / pageSize;
+             (page = pages.get(i)) != null; i++) {
+            photos.addAll(page);
+        }
+        return photos;
+    }
+
+    private void loadPage(final int page) {
+        if (pages.containsKey(page) || loadingPages.containsKey(page)) {
+            return;
+        }
+        loadingPages.put(page, Boolean.TRUE);
+        source.loadPage(page * pageSize, pageSize, new PhotoPageSource.PageCallback() {
+            @Override
+            public void onPageLoaded(int offset, @NonNull List<Photo> photos) {
+                loadingPages.remove(page);
+                if (Math.abs(page - lastAccessedPage) > retainedPages) {
+                    return; // Scrolled away while loading.
+                }
+                pages.put(page, photos);
+                evictDistantPages();
+                if (listener != null) {
+                    listener.onRangeLoaded(offset, photos.size());
+                }
+            }
+
+            @Override
+            public void onPageError(int offset, @NonNull Exception error) {
+                loadingPages.remove(page);
+                Log.e(TAG, "Error loading photos at " + offset, error);
+            }
+        });
+    }
+
+    private void evictDistantPages() {
+        for (int i = pages.size() - 1; i >= 0; i--) {
+            if (Math.abs(pages.keyAt(i) - lastAccessedPage) > retainedPages) {
+                pages.removeAt(i);
+            }
+        }
+    }
+}
@@ -30,18 +30,21 @@ import com.example.android.unsplash.data.model.Photo;
 import com.example.android.unsplash.databinding.PhotoItemBinding;
 import com.example.android.unsplash.ui.ImageSize;
 
-import java.util.ArrayList;
+public class PhotoAdapter extends RecyclerView.Adapter<PhotoViewHolder>
+        implements PagedPhotoList.Listener {
 
-public class PhotoAdapter extends RecyclerView.Adapter<PhotoViewHolder> {
-
-    private final ArrayList<Photo> photos;
-    private final int requestedPhotoWidth;
+    private final PagedPhotoList photos;
     private final LayoutInflater layoutInflater;
 
-    public PhotoAdapter(@NonNull Context context, @NonNull ArrayList<Photo> photos) {
+    public PhotoAdapter(@NonNull Context context, @NonNull PagedPhotoList photos) {
         this.photos = photos;
-        requestedPhotoWidth = context.getResources().getDisplayMetrics().widthPixels;
         layoutInflater = LayoutInflater.from(context);
+        photos.setListener(this);
+    }
+
+    @Override
+    public void onRangeLoaded(int positionStart, int itemCount) {
+        notifyItemRangeChanged(positionStart, itemCount);
     }
 
     @Override
@@ -56,11 +59,19 @@ public class PhotoAdapter extends RecyclerView.Adapter<PhotoViewHolder> {
         Photo data = photos.get(position);
         binding.setData(data);
         binding.executePendingBindings();
+        if (data == null) {
+            // Shown until the page of this position has been loaded.
+            Glide.with(layoutInflater.getContext()).clear(binding.photo);
+            binding.photo.setImageResource(R.color.placeholder);
+            return;
+        }
+        final int[] size = ImageSize.getGridSize(layoutInflater.getContext(), position);
         Glide.with(layoutInflater.getContext())
-                .load(holder.getBinding().getData().getPhotoUrl(requestedPhotoWidth))
+                .load(data.getPhotoUrl(size[0]))
                 .placeholder(R.color.placeholder)
-                .override(ImageSize.NORMAL[0], ImageSize.NORMAL[1])
-                .into(holder.getBinding().photo);
+                .override(size[0], size[1])
+                .centerCrop()
+                .into(binding.photo);
     }
 
     @Override
@@ -70,6 +81,7 @@ public class PhotoAdapter extends RecyclerView.Adapter<PhotoViewHolder> {
 
     @Override
     public long getItemId(int position) {
-        return photos.get(position).id;
+        final Photo photo = photos.peek(position);
+        return photo != null ? photo.id : RecyclerView.NO_ID;
     }
 }
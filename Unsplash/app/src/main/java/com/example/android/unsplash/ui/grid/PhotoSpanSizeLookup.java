@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.ui.grid;
+
+import androidx.recyclerview.widget.GridLayoutManager;
+
+/**
+ * Repeats a pattern of one, two and three column wide photos every six positions.
+ */
+public class PhotoSpanSizeLookup extends GridLayoutManager.SpanSizeLookup {
+
+    @Override
+    public int getSpanSize(int position) {
+        return getSpanSizeOf(position);
+    }
+
+    /**
+     * @param position The position of a photo in the grid.
+     * @return The number of columns the photo spans.
+     */
+    public static int getSpanSizeOf(int position) {
+        /* emulating https://material-design.storage.googleapis.com/publish/material_v_4/material_ext_publish/0B6Okdz75tqQsck9lUkgxNVZza1U/style_imagery_integration_scale1.png */
+        switch (position % 6) {
+            case 5:
+                return 3;
+            case 3:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+}
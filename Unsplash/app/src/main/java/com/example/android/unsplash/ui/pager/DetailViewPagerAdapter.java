@@ -16,21 +16,33 @@
 package com.example.android.unsplash.ui.pager;
 
 import android.app.Activity;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.databinding.DataBindingUtil;
 import androidx.viewpager.widget.PagerAdapter;
+import androidx.viewpager.widget.ViewPager;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.request.transition.DrawableCrossFadeFactory;
 import com.example.android.unsplash.R;
 import com.example.android.unsplash.data.model.Photo;
 import com.example.android.unsplash.databinding.DetailViewBinding;
 import com.example.android.unsplash.ui.DetailSharedElementEnterCallback;
 import com.example.android.unsplash.ui.ImageSize;
 
+import java.util.ArrayDeque;
 import java.util.List;
 
 /**
@@ -39,17 +51,44 @@ import java.util.List;
 
 public class DetailViewPagerAdapter extends PagerAdapter {
 
+    private static final String TAG = "DetailViewPagerAdapter";
+
+    /**
+     * Fades the full resolution photo in over the thumbnail rather than over transparency.
+     */
+    private static final DrawableCrossFadeFactory CROSS_FADE =
+            new DrawableCrossFadeFactory.Builder().setCrossFadeEnabled(true).build();
+
+    /**
+     * The number of destroyed pages kept for reuse. The pager keeps its offscreen pages bound,
+     * so a fling only ever needs a few spare pages at a time.
+     */
+    static final int MAX_RECYCLED_BINDINGS = 3;
+
     private final List<Photo> allPhotos;
+    private final int gridOffset;
     private final LayoutInflater layoutInflater;
-    private final int photoWidth;
+    private final int[] photoSize;
     private final Activity host;
     private DetailSharedElementEnterCallback sharedElementCallback;
+    private int prefetchedPosition = -1;
+    private final ArrayDeque<DetailViewBinding> recycledBindings = new ArrayDeque<>();
+    private int inflationCount;
+    private int bindCount;
 
+    /**
+     * @param activity The hosting activity.
+     * @param photos The photos to page through.
+     * @param gridOffset The grid position of the first photo.
+     * @param callback The shared element callback to update with the current page.
+     */
     public DetailViewPagerAdapter(@NonNull Activity activity, @NonNull List<Photo> photos,
+                                  int gridOffset,
                                   @NonNull DetailSharedElementEnterCallback callback) {
         layoutInflater = LayoutInflater.from(activity);
         allPhotos = photos;
-        photoWidth = activity.getResources().getDisplayMetrics().widthPixels;
+        this.gridOffset = gridOffset;
+        photoSize = ImageSize.getDetailSize(activity);
         host = activity;
         sharedElementCallback = callback;
     }
@@ -61,28 +100,92 @@ public class DetailViewPagerAdapter extends PagerAdapter {
 
     @Override
     public Object instantiateItem(@NonNull ViewGroup container, int position) {
-        DetailViewBinding binding =
-                DataBindingUtil.inflate(layoutInflater, R.layout.detail_view, container, false);
+        DetailViewBinding binding = recycledBindings.pollFirst();
+        if (binding == null) {
+            binding = DataBindingUtil.inflate(layoutInflater, R.layout.detail_view, container,
+                    false);
+            inflationCount++;
+        } else {
+            binding.getRoot().scrollTo(0, 0);
+        }
+        bindCount++;
         binding.setData(allPhotos.get(position));
-        onViewBound(binding);
+        onViewBound(binding, position);
         binding.executePendingBindings();
         container.addView(binding.getRoot());
         return binding;
     }
 
-    private void onViewBound(DetailViewBinding binding) {
-        Glide.with(host)
-                .load(binding.getData().getPhotoUrl(photoWidth))
+    private void onViewBound(DetailViewBinding binding, int position) {
+        final Photo photo = binding.getData();
+        // Matches the grid's request, so the photo decoded for the grid is found in memory
+        // and bound synchronously, before the shared element transition captures the view.
+        final int[] gridSize = ImageSize.getGridSize(host, gridOffset + position);
+        createPhotoRequest(photo)
+                .thumbnail(Glide.with(host)
+                        .load(photo.getPhotoUrl(gridSize[0]))
+                        .override(gridSize[0], gridSize[1])
+                        .centerCrop()
+                        .dontAnimate())
                 .placeholder(R.color.placeholder)
-                .override(ImageSize.NORMAL[0], ImageSize.NORMAL[1])
+                .transition(DrawableTransitionOptions.with(CROSS_FADE))
+                .listener(new RequestListener<Drawable>() {
+                    @Override
+                    public boolean onLoadFailed(@Nullable GlideException e, Object model,
+                                                Target<Drawable> target,
+                                                boolean isFirstResource) {
+                        Log.w(TAG, "Loading photo " + photo.id + " failed", e);
+                        return false;
+                    }
+
+                    @Override
+                    public boolean onResourceReady(Drawable resource, Object model,
+                                                   Target<Drawable> target,
+                                                   DataSource dataSource,
+                                                   boolean isFirstResource) {
+                        return false;
+                    }
+                })
                 .into(binding.photo);
     }
 
+    /**
+     * Builds the full resolution request for a photo. Preloads use the same request so they
+     * populate the memory cache entry the page later binds from.
+     */
+    private RequestBuilder<Drawable> createPhotoRequest(Photo photo) {
+        return Glide.with(host)
+                .load(photo.getPhotoUrl(photoSize[0]))
+                .override(photoSize[0], photoSize[1])
+                .centerCrop();
+    }
+
+    /**
+     * Preloads the photos of the pages next to the ones the pager keeps bound, so that
+     * swiping to them binds the full resolution photo straight from memory.
+     */
+    private void prefetchAround(int position, int offscreenPageLimit) {
+        if (position == prefetchedPosition) {
+            return;
+        }
+        prefetchedPosition = position;
+        final int distance = offscreenPageLimit + 1;
+        for (int neighbor = position - distance; neighbor <= position + distance;
+             neighbor += 2 * distance) {
+            if (neighbor >= 0 && neighbor < allPhotos.size()) {
+                createPhotoRequest(allPhotos.get(neighbor)).preload();
+            }
+        }
+    }
+
     @Override
     public void setPrimaryItem(@NonNull ViewGroup container, int position, @NonNull Object object) {
         if (object instanceof DetailViewBinding) {
             sharedElementCallback.setBinding((DetailViewBinding) object);
         }
+        if (container instanceof ViewPager) {
+            prefetchAround(position, ((ViewPager) container).getOffscreenPageLimit());
+        }
     }
 
     @Override
@@ -93,6 +196,26 @@ public class DetailViewPagerAdapter extends PagerAdapter {
 
     @Override
     public void destroyItem(ViewGroup container, int position, @NonNull Object object) {
-        container.removeView(((DetailViewBinding) object).getRoot());
+        final DetailViewBinding binding = (DetailViewBinding) object;
+        container.removeView(binding.getRoot());
+        // Cancels a pending load and releases the photo, so a reused page never shows it.
+        Glide.with(host).clear(binding.photo);
+        if (recycledBindings.size() < MAX_RECYCLED_BINDINGS) {
+            recycledBindings.addLast(binding);
+        }
+    }
+
+    /**
+     * @return The number of pages inflated so far, as opposed to reused.
+     */
+    public int getInflationCount() {
+        return inflationCount;
+    }
+
+    /**
+     * @return The number of pages bound so far, whether inflated or reused.
+     */
+    public int getBindCount() {
+        return bindCount;
     }
 }
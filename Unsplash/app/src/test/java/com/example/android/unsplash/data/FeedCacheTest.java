@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.data;
+
+import androidx.test.filters.SmallTest;
+
+import com.example.android.unsplash.data.model.Photo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class FeedCacheTest {
+
+    private File dir;
+    private FeedCache cache;
+
+    @Before
+    public void alloc() throws IOException {
+        dir = Files.createTempDirectory("feed").toFile();
+        cache = new FeedCache(new File(dir, "feed"));
+    }
+
+    @After
+    public void release() {
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testReadInfo_empty() {
+        assertThat(cache.readInfo(), is(nullValue()));
+    }
+
+    @Test
+    public void testCommit_validatorsAndCount() throws IOException {
+        final FeedCache.Info committed = write("etag", null, 0, 5);
+        final FeedCache.Info info = cache.readInfo();
+        assertThat(info.etag, is("etag"));
+        assertThat(info.lastModified, is(nullValue()));
+        assertThat(info.count, is(5));
+        assertTrue(info.hasSameContent(committed));
+    }
+
+    @Test
+    public void testRead_range() throws IOException {
+        final FeedCache.Info info = write(null, "yesterday", 0, 10);
+        final List<Photo> photos = cache.read(info, 4, 3);
+        assertEquals(3, photos.size());
+        for (int i = 0; i < photos.size(); i++) {
+            assertEquals(4 + i, photos.get(i).id);
+            assertThat(photos.get(i).author, is("Author " + (4 + i)));
+        }
+    }
+
+    @Test
+    public void testRead_rangePastEnd() throws IOException {
+        final FeedCache.Info info = write(null, null, 0, 10);
+        assertEquals(2, cache.read(info, 8, 5).size());
+        assertTrue(cache.read(info, 10, 5).isEmpty());
+    }
+
+    @Test
+    public void testCommit_previousVersionStaysReadable() throws IOException {
+        final FeedCache.Info first = write(null, null, 0, 3);
+        final FeedCache.Info second = write(null, null, 100, 3);
+        assertFalse(second.hasSameContent(first));
+        assertEquals(0, cache.read(first, 0, 1).get(0).id);
+        assertEquals(100, cache.read(second, 0, 1).get(0).id);
+        assertEquals(100, cache.read(cache.readInfo(), 0, 1).get(0).id);
+    }
+
+    @Test(expected = IOException.class)
+    public void testCommit_olderVersionsDeleted() throws IOException {
+        final FeedCache.Info first = write(null, null, 0, 3);
+        write(null, null, 100, 3);
+        write(null, null, 200, 3);
+        cache.read(first, 0, 1);
+    }
+
+    @Test
+    public void testClose_uncommittedFeedDiscarded() throws IOException {
+        final FeedCache.Info committed = write(null, null, 0, 3);
+        try (FeedCache.Writer writer = cache.edit("other", null)) {
+            writer.append(createPhoto(100));
+        }
+        assertTrue(cache.readInfo().hasSameContent(committed));
+        assertEquals(1, dir.list().length);
+    }
+
+    private FeedCache.Info write(String etag, String lastModified, long firstId, int count)
+            throws IOException {
+        try (FeedCache.Writer writer = cache.edit(etag, lastModified)) {
+            for (int i = 0; i < count; i++) {
+                writer.append(createPhoto(firstId + i));
+            }
+            return writer.commit();
+        }
+    }
+
+    private static Photo createPhoto(long id) {
+        return new Photo("jpeg", 5616, 3744, id + ".jpeg", id, "Author " + id,
+                "https://unsplash.com/author" + id, null);
+    }
+}
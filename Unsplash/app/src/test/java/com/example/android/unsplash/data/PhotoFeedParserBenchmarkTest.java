@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.data;
+
+import androidx.test.filters.LargeTest;
+
+import com.example.android.unsplash.data.model.Photo;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Compares streaming the feed into the cache with building the whole <code>List&lt;Photo&gt;</code>
+ * through Gson, the way Retrofit's converter did, on a synthetic feed.
+ */
+@LargeTest
+public class PhotoFeedParserBenchmarkTest {
+
+    private static final int FEED_SIZE = 50000;
+    private static final int RUNS = 3;
+
+    /**
+     * The live heap is sampled every time this many characters of the feed have been read.
+     */
+    private static final int SAMPLE_INTERVAL_CHARS = 1024 * 1024;
+
+    private static final Type PHOTO_LIST_TYPE = new TypeToken<List<Photo>>() {
+    }.getType();
+
+    private File dir;
+    private File feedFile;
+    private FeedCache cache;
+
+    @Before
+    public void alloc() throws IOException {
+        dir = Files.createTempDirectory("feed").toFile();
+        feedFile = new File(dir, "list.json");
+        cache = new FeedCache(new File(dir, "feed"));
+        writeFeed(feedFile, FEED_SIZE);
+    }
+
+    @After
+    public void release() {
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testRead_benchmark() throws IOException {
+        // Warm up, so that the measured runs are compiled.
+        assertThat(readWithGson(null).size(), is(FEED_SIZE));
+        assertThat(readIntoCache(null).count, is(FEED_SIZE));
+
+        long gsonNanos = Long.MAX_VALUE;
+        long streamNanos = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            readWithGson(null);
+            gsonNanos = Math.min(gsonNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            readIntoCache(null);
+            streamNanos = Math.min(streamNanos, System.nanoTime() - start);
+        }
+
+        final HeapSampler gsonHeap = new HeapSampler();
+        final List<Photo> photos = readWithGson(gsonHeap);
+        // The whole list is still referenced here.
+        gsonHeap.sample();
+        assertThat(photos.size(), is(FEED_SIZE));
+
+        final HeapSampler streamHeap = new HeapSampler();
+        readIntoCache(streamHeap);
+        streamHeap.sample();
+
+        final String result = String.format(Locale.US,
+                "photoFeed count=%d gsonMs=%d streamMs=%d gsonHeapKb=%d streamHeapKb=%d",
+                FEED_SIZE, TimeUnit.NANOSECONDS.toMillis(gsonNanos),
+                TimeUnit.NANOSECONDS.toMillis(streamNanos),
+                gsonHeap.getHighWaterMark() / 1024, streamHeap.getHighWaterMark() / 1024);
+        assertThat(result, streamHeap.getHighWaterMark(),
+                lessThan(gsonHeap.getHighWaterMark() / 10));
+        System.out.println(result);
+    }
+
+    private List<Photo> readWithGson(HeapSampler sampler) throws IOException {
+        try (JsonReader reader = new JsonReader(openFeed(sampler))) {
+            return new Gson().fromJson(reader, PHOTO_LIST_TYPE);
+        }
+    }
+
+    private FeedCache.Info readIntoCache(HeapSampler sampler) throws IOException {
+        try (FeedCache.Writer writer = cache.edit(null, null);
+             JsonReader reader = new JsonReader(openFeed(sampler))) {
+            PhotoFeedParser.read(reader, writer);
+            return writer.commit();
+        }
+    }
+
+    private Reader openFeed(final HeapSampler sampler) throws IOException {
+        final Reader reader = new InputStreamReader(new FileInputStream(feedFile), "UTF-8");
+        if (sampler == null) {
+            return reader;
+        }
+        return new FilterReader(reader) {
+            private int charsSinceSample;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                final int read = super.read(buffer, offset, length);
+                charsSinceSample += Math.max(0, read);
+                if (charsSinceSample >= SAMPLE_INTERVAL_CHARS) {
+                    charsSinceSample = 0;
+                    sampler.sample();
+                }
+                return read;
+            }
+        };
+    }
+
+    private static void writeFeed(File file, int size) throws IOException {
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), "UTF-8"))) {
+            out.write('[');
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(String.format(Locale.US, "{\"format\":\"jpeg\",\"width\":5616,"
+                        + "\"height\":3744,\"filename\":\"%1$04d_yC-Yzbqy7PY.jpeg\",\"id\":%1$d,"
+                        + "\"author\":\"Author %1$d\","
+                        + "\"author_url\":\"https://unsplash.com/author%1$d\","
+                        + "\"post_url\":\"https://unsplash.com/photos/yC-Yzbqy7PY%1$d\"}", i));
+            }
+            out.write(']');
+        }
+    }
+
+    /**
+     * Tracks the largest heap still in use after a garbage collection, relative to when the
+     * sampler was created.
+     */
+    private static class HeapSampler {
+        private final long baseline;
+        private long highWaterMark;
+
+        HeapSampler() {
+            baseline = getLiveHeap();
+        }
+
+        void sample() {
+            highWaterMark = Math.max(highWaterMark, getLiveHeap() - baseline);
+        }
+
+        long getHighWaterMark() {
+            return highWaterMark;
+        }
+
+        private static long getLiveHeap() {
+            final Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.data;
+
+import androidx.test.filters.SmallTest;
+
+import com.example.android.unsplash.data.model.Photo;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+
+@SmallTest
+public class PhotoFeedParserTest {
+
+    private static final String FEED = "["
+            + "{\"format\":\"jpeg\",\"width\":5616,\"height\":3744,"
+            + "\"filename\":\"0000_yC-Yzbqy7PY.jpeg\",\"id\":0,"
+            + "\"author\":\"Alejandro Escamilla\","
+            + "\"author_url\":\"https://unsplash.com/alejandroescamilla\","
+            + "\"post_url\":\"https://unsplash.com/photos/yC-Yzbqy7PY\"},"
+            + "{\"id\":1,\"width\":800,\"height\":600,\"author\":null,"
+            + "\"tags\":[\"unknown\",{\"nested\":true}]}"
+            + "]";
+
+    private File dir;
+    private FeedCache cache;
+
+    @Before
+    public void alloc() throws IOException {
+        dir = Files.createTempDirectory("feed").toFile();
+        cache = new FeedCache(new File(dir, "feed"));
+    }
+
+    @After
+    public void release() {
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testRead_allFields() throws IOException {
+        final List<Photo> photos = parse(FEED);
+        final Photo photo = photos.get(0);
+        assertThat(photo.format, is("jpeg"));
+        assertEquals(5616, photo.width);
+        assertEquals(3744, photo.height);
+        assertThat(photo.filename, is("0000_yC-Yzbqy7PY.jpeg"));
+        assertEquals(0, photo.id);
+        assertThat(photo.author, is("Alejandro Escamilla"));
+        assertThat(photo.author_url, is("https://unsplash.com/alejandroescamilla"));
+        assertThat(photo.post_url, is("https://unsplash.com/photos/yC-Yzbqy7PY"));
+    }
+
+    @Test
+    public void testRead_nullAndUnknownFieldsSkipped() throws IOException {
+        final List<Photo> photos = parse(FEED);
+        assertEquals(2, photos.size());
+        final Photo photo = photos.get(1);
+        assertEquals(1, photo.id);
+        assertEquals(800, photo.width);
+        assertThat(photo.author, is(nullValue()));
+        assertThat(photo.format, is(nullValue()));
+    }
+
+    @Test
+    public void testRead_malformedNumbersSkipped() throws IOException {
+        final List<Photo> photos = parse("["
+                + "{\"id\":0,\"width\":\"wide\",\"author\":\"first\"},"
+                + "{\"id\":1,\"height\":1.5},"
+                + "{\"id\":99999999999999999999,\"tags\":[1]},"
+                + "{\"id\":3,\"width\":\"800\",\"author\":\"last\"}"
+                + "]");
+        assertEquals(1, photos.size());
+        assertEquals(3, photos.get(0).id);
+        assertEquals(800, photos.get(0).width);
+        assertThat(photos.get(0).author, is("last"));
+    }
+
+    @Test
+    public void testRead_emptyFeed() throws IOException {
+        assertEquals(0, parse("[]").size());
+    }
+
+    private List<Photo> parse(String json) throws IOException {
+        final FeedCache.Info info;
+        try (FeedCache.Writer writer = cache.edit(null, null);
+             JsonReader reader = new JsonReader(new StringReader(json))) {
+            PhotoFeedParser.read(reader, writer);
+            info = writer.commit();
+        }
+        return cache.read(info, 0, info.count);
+    }
+}
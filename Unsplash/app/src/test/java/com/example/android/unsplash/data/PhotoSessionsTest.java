@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.data;
+
+import androidx.test.filters.SmallTest;
+
+import com.example.android.unsplash.data.model.Photo;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@SmallTest
+public class PhotoSessionsTest {
+
+    private final List<Photo> photos = Collections.singletonList(
+            new Photo("jpeg", 5616, 3744, "0.jpeg", 0, null, null, null));
+
+    @Test
+    public void testGet_returnsSameList() {
+        final String token = PhotoSessions.put(photos);
+        assertThat(PhotoSessions.get(token), is(sameInstance(photos)));
+        PhotoSessions.remove(token);
+    }
+
+    @Test
+    public void testPut_distinctTokens() {
+        final String first = PhotoSessions.put(photos);
+        final String second = PhotoSessions.put(photos);
+        assertThat(first, is(not(second)));
+        PhotoSessions.remove(first);
+        PhotoSessions.remove(second);
+    }
+
+    @Test
+    public void testRemove_sessionGone() {
+        final String token = PhotoSessions.put(photos);
+        PhotoSessions.remove(token);
+        assertThat(PhotoSessions.get(token), is(nullValue()));
+    }
+
+    @Test
+    public void testGet_unknownToken() {
+        assertThat(PhotoSessions.get("unknown"), is(nullValue()));
+        assertThat(PhotoSessions.get(null), is(nullValue()));
+        PhotoSessions.remove(null);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.data.model;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+@SmallTest
+public class PhotoTest {
+
+    @Test
+    public void testGetBucketWidth_roundsUp() {
+        assertEquals(240, Photo.getBucketWidth(1));
+        assertEquals(240, Photo.getBucketWidth(240));
+        assertEquals(480, Photo.getBucketWidth(241));
+        assertEquals(1080, Photo.getBucketWidth(1000));
+    }
+
+    @Test
+    public void testGetBucketWidth_widestBucket() {
+        assertEquals(2160, Photo.getBucketWidth(2160));
+        assertEquals(2160, Photo.getBucketWidth(4000));
+    }
+
+    @Test
+    public void testGetPhotoUrl_bucketedWidth() {
+        final Photo photo = new Photo("jpeg", 5616, 3744, "42.jpeg", 42, null, null, null);
+        assertEquals("https://unsplash.it/720?image=42", photo.getPhotoUrl(700));
+    }
+}
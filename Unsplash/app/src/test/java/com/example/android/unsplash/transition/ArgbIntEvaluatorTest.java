@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.transition;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+@SmallTest
+public class ArgbIntEvaluatorTest {
+
+    private static final int RED = 0xffff0000;
+    private static final int TRANSPARENT_BLUE = 0x000000ff;
+
+    @Test
+    public void testEvaluate_endpoints() {
+        assertEquals(RED, ArgbIntEvaluator.evaluate(0f, RED, TRANSPARENT_BLUE));
+        assertEquals(TRANSPARENT_BLUE, ArgbIntEvaluator.evaluate(1f, RED, TRANSPARENT_BLUE));
+    }
+
+    @Test
+    public void testEvaluate_sameColor() {
+        assertEquals(RED, ArgbIntEvaluator.evaluate(0.3f, RED, RED));
+    }
+
+    @Test
+    public void testEvaluate_alphaIsLinear() {
+        assertEquals(0x80000000, ArgbIntEvaluator.evaluate(0.5f, 0xff000000, 0x00000000));
+    }
+
+    @Test
+    public void testEvaluate_channelsInterpolatedInLinearSpace() {
+        // Half way between black and white in linear space is 0.5^(1 / 2.2) * 255 in sRGB.
+        assertEquals(0xffbababa, ArgbIntEvaluator.evaluate(0.5f, 0xff000000, 0xffffffff));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.transition;
+
+import androidx.annotation.NonNull;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@SmallTest
+public class SizeBucketPoolTest {
+
+    private static final int MAX_BYTES = 1024;
+
+    private SizeBucketPool<Block> pool;
+
+    @Before
+    public void alloc() {
+        pool = new SizeBucketPool<Block>(MAX_BYTES) {
+            @Override
+            protected int getByteCount(@NonNull Block block) {
+                return block.size;
+            }
+        };
+    }
+
+    @Test
+    public void testTake_emptyPoolMisses() {
+        assertThat(pool.take(100), is(nullValue()));
+        assertThat(pool.getMissCount(), is(1));
+        assertThat(pool.getHitCount(), is(0));
+    }
+
+    @Test
+    public void testTake_releasedBlockHits() {
+        final Block block = new Block(256);
+        pool.put(block);
+        assertThat(pool.getSize(), is(256L));
+        assertThat(pool.take(200), is(sameInstance(block)));
+        assertThat(pool.getHitCount(), is(1));
+        assertThat(pool.getMissCount(), is(0));
+        assertThat(pool.getSize(), is(0L));
+        // The block is handed out only once.
+        assertThat(pool.take(200), is(nullValue()));
+        assertThat(pool.getMissCount(), is(1));
+    }
+
+    @Test
+    public void testTake_nextLargerBucket() {
+        final Block block = new Block(300);
+        pool.put(block);
+        // 300 bytes are in the 256 bucket, which a 150 byte request looks at as the next one.
+        assertThat(pool.take(150), is(sameInstance(block)));
+    }
+
+    @Test
+    public void testTake_muchLargerBlockMisses() {
+        pool.put(new Block(1024));
+        assertThat(pool.take(100), is(nullValue()));
+        assertThat(pool.getMissCount(), is(1));
+        assertThat(pool.getSize(), is(1024L));
+    }
+
+    @Test
+    public void testTake_tooSmallBlockMisses() {
+        pool.put(new Block(200));
+        assertThat(pool.take(250), is(nullValue()));
+        assertThat(pool.getSize(), is(200L));
+    }
+
+    @Test
+    public void testPut_evictsLeastRecentlyReleased() {
+        final Block first = new Block(512);
+        final Block second = new Block(256);
+        final Block third = new Block(512);
+        pool.put(first);
+        pool.put(second);
+        assertThat(pool.getEvictionCount(), is(0));
+        pool.put(third);
+        assertThat(pool.getEvictionCount(), is(1));
+        assertThat(pool.getSize(), is(768L));
+        // The first block was evicted, so only the third one is left in its bucket.
+        assertThat(pool.take(512), is(sameInstance(third)));
+        assertThat(pool.take(512), is(nullValue()));
+        assertThat(pool.take(256), is(sameInstance(second)));
+    }
+
+    @Test
+    public void testPut_largerThanBudgetDropped() {
+        pool.put(new Block(MAX_BYTES + 1));
+        assertThat(pool.getSize(), is(0L));
+        assertThat(pool.getEvictionCount(), is(0));
+    }
+
+    @Test
+    public void testClear() {
+        pool.put(new Block(100));
+        pool.put(new Block(200));
+        pool.clear();
+        assertThat(pool.getSize(), is(0L));
+        assertThat(pool.getEvictionCount(), is(2));
+        assertThat(pool.take(100), is(nullValue()));
+    }
+
+    private static final class Block {
+        final int size;
+
+        Block(int size) {
+            this.size = size;
+        }
+    }
+}
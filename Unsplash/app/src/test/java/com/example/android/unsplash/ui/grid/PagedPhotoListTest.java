@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.unsplash.ui.grid;
+
+import androidx.annotation.NonNull;
+import androidx.test.filters.SmallTest;
+
+import com.example.android.unsplash.data.PhotoPageSource;
+import com.example.android.unsplash.data.model.Photo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+
+@SmallTest
+public class PagedPhotoListTest {
+
+    private static final int SIZE = 100;
+    private static final int PAGE_SIZE = 10;
+    private static final int PREFETCH_DISTANCE = 5;
+    private static final int RETAINED_PAGES = 1;
+
+    private FakePageSource source;
+    private PagedPhotoList list;
+    private List<int[]> loadedRanges;
+
+    @Before
+    public void alloc() {
+        source = new FakePageSource();
+        list = new PagedPhotoList(source, SIZE, PAGE_SIZE, PREFETCH_DISTANCE, RETAINED_PAGES);
+        loadedRanges = new ArrayList<>();
+        list.setListener(new PagedPhotoList.Listener() {
+            @Override
+            public void onRangeLoaded(int positionStart, int itemCount) {
+                loadedRanges.add(new int[] {positionStart, itemCount});
+            }
+        });
+    }
+
+    @Test
+    public void testGet_loadsPage() {
+        assertThat(list.get(0), is(nullValue()));
+        assertEquals(1, source.requests.size());
+        source.complete(0);
+        assertEquals(0, list.get(0).id);
+        assertEquals(9, list.peek(9).id);
+        assertEquals(1, loadedRanges.size());
+        assertEquals(0, loadedRanges.get(0)[0]);
+        assertEquals(PAGE_SIZE, loadedRanges.get(0)[1]);
+    }
+
+    @Test
+    public void testGet_prefetchesNeighborPage() {
+        list.get(8);
+        assertEquals(2, source.requests.size());
+        assertEquals(0, source.requests.get(0).offset);
+        assertEquals(PAGE_SIZE, source.requests.get(1).offset);
+    }
+
+    @Test
+    public void testGet_loadingPageNotRequestedAgain() {
+        list.get(0);
+        list.get(1);
+        assertEquals(1, source.requests.size());
+        source.complete(0);
+        list.get(2);
+        assertEquals(1, source.requests.size());
+    }
+
+    @Test
+    public void testGet_distantPagesEvicted() {
+        list.get(0);
+        source.complete(0);
+        list.get(50);
+        source.complete(1);
+        source.complete(2);
+        assertThat(list.peek(0), is(nullValue()));
+        assertEquals(50, list.peek(50).id);
+    }
+
+    @Test
+    public void testGet_pageLoadedAfterScrollingAwayDropped() {
+        list.get(0);
+        list.get(50);
+        source.complete(0);
+        assertThat(list.peek(0), is(nullValue()));
+        assertEquals(0, loadedRanges.size());
+    }
+
+    @Test
+    public void testGet_failedPageRequestedAgain() {
+        list.get(0);
+        source.fail(0);
+        assertThat(list.peek(0), is(nullValue()));
+        list.get(0);
+        assertEquals(2, source.requests.size());
+        source.complete(1);
+        assertEquals(0, list.peek(0).id);
+    }
+
+    @Test
+    public void testGetLoadedRange_contiguousPages() {
+        list.get(8);
+        source.complete(0);
+        source.complete(1);
+        assertEquals(0, list.getLoadedRangeStart(15));
+        final List<Photo> photos = list.getLoadedRange(15);
+        assertEquals(2 * PAGE_SIZE, photos.size());
+        assertEquals(19, photos.get(19).id);
+    }
+
+    private static final class Request {
+        final int offset;
+        final int limit;
+        final PhotoPageSource.PageCallback callback;
+
+        Request(int offset, int limit, PhotoPageSource.PageCallback callback) {
+            this.offset = offset;
+            this.limit = limit;
+            this.callback = callback;
+        }
+    }
+
+    private static final class FakePageSource implements PhotoPageSource {
+        final List<Request> requests = new ArrayList<>();
+
+        @Override
+        public void loadPage(int offset, int limit, @NonNull PageCallback callback) {
+            requests.add(new Request(offset, limit, callback));
+        }
+
+        void complete(int index) {
+            final Request request = requests.get(index);
+            final List<Photo> photos = new ArrayList<>(request.limit);
+            for (int i = 0; i < request.limit; i++) {
+                final long id = request.offset + i;
+                photos.add(new Photo("jpeg", 5616, 3744, id + ".jpeg", id, null, null, null));
+            }
+            request.callback.onPageLoaded(request.offset, photos);
+        }
+
+        void fail(int index) {
+            final Request request = requests.get(index);
+            request.callback.onPageError(request.offset, new IOException());
+        }
+    }
+}